@@ -0,0 +1,79 @@
+package org.kaesoron.wallet.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Ограниченный кэш балансов. Значения попадают в кэш только при чтении, запись баланса после коммита
+ * удаляет ключ: два писателя могут закоммититься в одном порядке, а положить значения в другом, удаление же
+ * от порядка не зависит. Удаление ждёт загрузку того же ключа, начатую до коммита, и выбрасывает её результат.
+ * Загрузчик должен читать с primary: значение с реплики могло отстать от уже удалённого ключа.
+ * Устаревание ограничено {@code wallet.cache.ttl}.
+ * Счётчики попаданий, промахов и вытеснений публикуются как метрики {@code cache.*{cache=wallet.balances}}.
+ */
+@Component
+public class BalanceCache {
+
+    private final Cache<UUID, Long> cache;
+
+    public BalanceCache(WalletProperties properties, MeterRegistry meterRegistry) {
+        WalletProperties.Cache config = properties.getCache();
+        if (!config.isEnabled()) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "wallet.balances");
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public long get(UUID walletId, Function<UUID, Long> loader) {
+        return cache == null ? loader.apply(walletId) : cache.get(walletId, loader);
+    }
+
+    public Map<UUID, Long> getAllPresent(Collection<UUID> walletIds) {
+        return cache == null ? Map.of() : cache.getAllPresent(walletIds);
+    }
+
+    public void invalidate(UUID walletId) {
+        invalidateAll(List.of(walletId));
+    }
+
+    /**
+     * Удаляет ключи после завершения текущей транзакции — и при коммите, и при откате; вне транзакции сразу.
+     */
+    public void invalidateAll(Collection<UUID> walletIds) {
+        if (cache == null || walletIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidateAll(walletIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.invalidateAll(walletIds);
+            }
+        });
+    }
+}
@@ -0,0 +1,151 @@
+package org.kaesoron.wallet.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.ErrorResponse;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.exceptions.ForwardedRejectionException;
+import org.kaesoron.wallet.exceptions.OwnerUnavailableException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пересылка операций владельцу кошелька. Тело всегда уходит в JSON, отказ владельца (404, 422, 409)
+ * пересказывается клиенту с тем же статусом и в запрошенном клиентом формате.
+ * Метрика {@code wallet.cluster.forward{outcome}}: applied, rejected, unreachable, failed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.cluster.enabled", havingValue = "true")
+public class ClusterForwarder {
+
+    // Переслано другим участником: выполняем здесь, даже если по нашему кольцу владелец другой (кольца расходятся на время перестройки)
+    public static final String FORWARDED_HEADER = "X-Wallet-Forwarded-By";
+
+    // Без общего секрета заголовок выше мог бы выставить любой клиент и обойти владельца
+    public static final String SECRET_HEADER = "X-Wallet-Cluster-Secret";
+
+    private static final String OPERATION_PATH = "/api/v1/wallet";
+
+    private final ClusterMembership membership;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final Duration forwardTimeout;
+    private final byte[] secret;
+    private final Timer applied;
+    private final Timer rejected;
+    private final Timer unreachable;
+    private final Timer failed;
+
+    public ClusterForwarder(ClusterMembership membership, ObjectMapper objectMapper, WalletProperties properties,
+                            MeterRegistry meterRegistry) {
+        String secret = properties.getCluster().getSecret();
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("wallet.cluster.secret must be set when cluster mode is enabled");
+        }
+        this.membership = membership;
+        this.objectMapper = objectMapper;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getCluster().getConnectTimeout())
+                .build();
+        this.forwardTimeout = properties.getCluster().getForwardTimeout();
+        this.applied = timer(meterRegistry, "applied");
+        this.rejected = timer(meterRegistry, "rejected");
+        this.unreachable = timer(meterRegistry, "unreachable");
+        this.failed = timer(meterRegistry, "failed");
+    }
+
+    /**
+     * Пересылка от участника кластера: секрет совпадает, а отправитель есть в текущем списке участников.
+     * Иначе заголовок {@link #FORWARDED_HEADER} игнорируется и запрос маршрутизируется как обычный.
+     */
+    public boolean isTrustedForward(String forwardedBy, String presentedSecret) {
+        return forwardedBy != null && presentedSecret != null
+                && MessageDigest.isEqual(secret, presentedSecret.getBytes(StandardCharsets.UTF_8))
+                && membership.members().contains(forwardedBy);
+    }
+
+    /**
+     * Отправляет операцию владельцу, если кошелёк не наш. Возвращает {@code false}, если кошелёк свой.
+     * Недоступный владелец даёт 503, а не локальное выполнение: иначе записи кошелька шли бы через две JVM,
+     * и ни очередь WRITE_COMBINING, ни счётчики ADAPTIVE владельца не видели бы всех операций.
+     * Если соединение было, а ответа нет, владелец мог успеть применить операцию — клиент повторяет с ключом
+     * идемпотентности.
+     */
+    public boolean forwardIfRemote(WalletOperationRequest request) {
+        String owner = membership.owner(request.getWalletId());
+        if (owner == null || owner.equals(membership.self())) {
+            return false;
+        }
+        long start = System.nanoTime();
+        Timer outcome = failed;
+        try {
+            HttpResponse<byte[]> response = httpClient.send(httpRequest(owner, request),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() / 100 == 2) {
+                outcome = applied;
+                return true;
+            }
+            outcome = rejected;
+            throw rejection(owner, response);
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            outcome = unreachable;
+            log.warn("Wallet owner {} unreachable for {}: {}", owner, request.getWalletId(), e.toString());
+            throw new OwnerUnavailableException("Wallet owner " + owner + " is unreachable", e);
+        } catch (IOException e) {
+            throw new OwnerUnavailableException("Wallet owner " + owner + " did not answer", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OwnerUnavailableException("Interrupted while forwarding to " + owner, e);
+        } finally {
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private HttpRequest httpRequest(String owner, WalletOperationRequest request) throws IOException {
+        return HttpRequest.newBuilder(URI.create(owner + OPERATION_PATH))
+                .timeout(forwardTimeout)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(FORWARDED_HEADER, membership.self())
+                .header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(request)))
+                .build();
+    }
+
+    private ForwardedRejectionException rejection(String owner, HttpResponse<byte[]> response) {
+        try {
+            ErrorResponse error = objectMapper.readValue(response.body(), ErrorResponse.class);
+            return new ForwardedRejectionException(response.statusCode(), error.error(), error.message());
+        } catch (IOException e) {
+            return new ForwardedRejectionException(response.statusCode(), "Owner Error",
+                    owner + " answered " + new String(response.body(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("wallet.cluster.forward")
+                .description("Operations forwarded to the wallet owner")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,130 @@
+package org.kaesoron.wallet.cluster;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Текущий состав кластера и кольцо владельцев. Состав берётся из {@code wallet.cluster.members} или из файла
+ * {@code wallet.cluster.members-file}, который перечитывается каждые {@code refresh-interval}: изменение файла
+ * перестраивает кольцо, и кошельки переезжают к новым владельцам без перезапуска.
+ * Метрики: {@code wallet.cluster.members}, {@code wallet.cluster.rebalances}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.cluster.enabled", havingValue = "true")
+public class ClusterMembership {
+
+    private final String self;
+    private final Path membersFile;
+    private final int virtualNodes;
+    private final Counter rebalances;
+    private volatile HashRing ring;
+
+    public ClusterMembership(WalletProperties properties, MeterRegistry meterRegistry) {
+        WalletProperties.Cluster cluster = properties.getCluster();
+        if (cluster.getSelf() == null || cluster.getSelf().isBlank()) {
+            throw new IllegalStateException("wallet.cluster.self must be set when cluster mode is enabled");
+        }
+        this.self = normalize(cluster.getSelf());
+        this.membersFile = cluster.getMembersFile() == null || cluster.getMembersFile().isBlank()
+                ? null
+                : Path.of(cluster.getMembersFile());
+        this.virtualNodes = cluster.getVirtualNodes();
+        this.rebalances = Counter.builder("wallet.cluster.rebalances")
+                .description("Ring rebuilds caused by membership changes")
+                .register(meterRegistry);
+        Gauge.builder("wallet.cluster.members", this, membership -> membership.ring.members().size())
+                .register(meterRegistry);
+
+        List<String> members = membersFile == null ? parse(cluster.getMembers()) : readMembersFile();
+        this.ring = new HashRing(members, virtualNodes);
+        logMembership(members);
+    }
+
+    public String self() {
+        return self;
+    }
+
+    /**
+     * Владелец кошелька или {@code null}, если состав пуст (например, файл на время правки опустел):
+     * такой кошелёк обслуживается локально, а не отклоняется.
+     */
+    public String owner(UUID walletId) {
+        HashRing current = ring;
+        return current.isEmpty() ? null : current.owner(walletId);
+    }
+
+    public boolean isLocal(UUID walletId) {
+        String owner = owner(walletId);
+        return owner == null || owner.equals(self);
+    }
+
+    public List<String> members() {
+        return ring.members();
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.cluster.refresh-interval:5s}")
+    public void refresh() {
+        if (membersFile == null) {
+            return;
+        }
+        List<String> members;
+        try {
+            members = readMembersFile();
+        } catch (UncheckedIOException e) {
+            log.warn("Cannot read cluster members from {}, keeping {}: {}", membersFile, ring.members(), e.getMessage());
+            return;
+        }
+        if (members.equals(ring.members())) {
+            return;
+        }
+        ring = new HashRing(members, virtualNodes);
+        rebalances.increment();
+        logMembership(members);
+    }
+
+    private List<String> readMembersFile() {
+        try {
+            return parse(Files.readAllLines(membersFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> parse(Collection<String> lines) {
+        return lines.stream()
+                .map(line -> line.replaceFirst("#.*", "").trim())
+                .filter(line -> !line.isEmpty())
+                .map(ClusterMembership::normalize)
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    private void logMembership(List<String> members) {
+        if (!members.contains(self)) {
+            log.warn("Cluster members {} do not include self {}: this instance owns no wallets", members, self);
+        } else {
+            log.info("Cluster members {} (self {})", members, self);
+        }
+    }
+}
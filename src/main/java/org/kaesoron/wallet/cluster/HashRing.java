@@ -0,0 +1,74 @@
+package org.kaesoron.wallet.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Консистентное хеширование кошельков по участникам кластера. Каждый участник занимает {@code virtualNodes}
+ * точек на кольце, кошелёк принадлежит первой точке по часовой стрелке от своего хеша. При входе или выходе
+ * участника переезжает примерно {@code 1/N} кошельков, остальные остаются на своих владельцах.
+ * Хеши не зависят от JVM: все инстансы с одинаковым списком участников строят одинаковое кольцо.
+ */
+public final class HashRing {
+
+    private final List<String> members;
+    private final long[] points;
+    private final String[] owners;
+
+    public HashRing(List<String> members, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive: " + virtualNodes);
+        }
+        this.members = members.stream().distinct().sorted().toList();
+        int size = this.members.size() * virtualNodes;
+        long[] unsortedPoints = new long[size];
+        Integer[] order = new Integer[size];
+        for (int m = 0; m < this.members.size(); m++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int i = m * virtualNodes + v;
+                unsortedPoints[i] = pointHash(this.members.get(m) + "#" + v);
+                order[i] = i;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(unsortedPoints[a], unsortedPoints[b]));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = unsortedPoints[order[i]];
+            owners[i] = this.members.get(order[i] / virtualNodes);
+        }
+    }
+
+    public List<String> members() {
+        return members;
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    public String owner(UUID walletId) {
+        if (points.length == 0) {
+            throw new IllegalStateException("Cluster has no members");
+        }
+        int i = Arrays.binarySearch(points, keyHash(walletId));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    // У UUIDv4 старшие биты почти случайны, но у версий с временем — нет: перемешиваем обе половины (SplitMix64)
+    private static long keyHash(UUID walletId) {
+        long z = walletId.getMostSignificantBits() ^ Long.rotateLeft(walletId.getLeastSignificantBits(), 32);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long pointHash(String node) {
+        return keyHash(UUID.nameUUIDFromBytes(node.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,44 @@
+package org.kaesoron.wallet.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kaesoron.wallet.service.AdmissionLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Контроль допуска для API. Особенно нужен с {@code spring.threads.virtual.enabled=true}: виртуальных потоков
+ * сколько угодно, и без ограничения все они выстраиваются в очередь за соединением Hikari.
+ * Разрешение берётся при получении соединения из пула primary ({@link AdmissionDataSource}), поэтому отказ
+ * доходит до {@code GlobalExceptionHandler} из того места, где запросу впервые понадобилась база.
+ */
+@Configuration
+@ConditionalOnProperty(name = "wallet.admission.enabled", havingValue = "true")
+public class AdmissionControlConfig {
+
+    @Bean
+    public AdmissionLimiter admissionLimiter(WalletProperties properties,
+                                             @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                             MeterRegistry meterRegistry) {
+        WalletProperties.Admission admission = properties.getAdmission();
+        int permits = admission.getPermits() > 0 ? admission.getPermits() : poolSize;
+        return new AdmissionLimiter(permits, admission.getTimeout(), meterRegistry);
+    }
+
+    @Bean
+    public static BeanPostProcessor admissionDataSourcePostProcessor(ObjectProvider<AdmissionLimiter> admissionLimiter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return MetricsConfig.isPrimaryPool(bean, beanName) && !(bean instanceof AdmissionDataSource)
+                        ? new AdmissionDataSource((DataSource) bean, admissionLimiter::getObject)
+                        : bean;
+            }
+        };
+    }
+}
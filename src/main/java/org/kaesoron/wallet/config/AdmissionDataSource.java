@@ -0,0 +1,86 @@
+package org.kaesoron.wallet.config;
+
+import org.kaesoron.wallet.exceptions.AdmissionRejectedException;
+import org.kaesoron.wallet.service.AdmissionLimiter;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Разрешение {@link AdmissionLimiter} берётся вместе с соединением и возвращается при его закрытии, поэтому
+ * запросы, которые обходятся без базы (кэш, движок IN_MEMORY), разрешений не тратят. Ограничивается только
+ * синхронная обработка HTTP-запросов: фоновые задачи и потоковая выгрузка ждут пул как раньше. Выгрузка пишет тело
+ * в асинхронной части запроса, где тип ответа уже NDJSON и 503 с телом ошибки не отдать.
+ */
+public class AdmissionDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final Supplier<AdmissionLimiter> admissionLimiter;
+
+    public AdmissionDataSource(DataSource targetDataSource, Supplier<AdmissionLimiter> admissionLimiter) {
+        super(targetDataSource);
+        this.admissionLimiter = admissionLimiter;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return admit(super::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return admit(() -> super.getConnection(username, password));
+    }
+
+    private Connection admit(ConnectionSource source) throws SQLException {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)
+                || attributes.getRequest().isAsyncStarted()) {
+            return source.get();
+        }
+        AdmissionLimiter limiter = admissionLimiter.get();
+        if (!limiter.tryAcquire()) {
+            throw new AdmissionRejectedException("Too many concurrent requests, retry later");
+        }
+        try {
+            return releasingOnClose(source.get(), limiter);
+        } catch (SQLException | RuntimeException e) {
+            limiter.release();
+            throw e;
+        }
+    }
+
+    private static Connection releasingOnClose(Connection connection, AdmissionLimiter limiter) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(AdmissionDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            limiter.release();
+                        }
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+}
@@ -0,0 +1,53 @@
+package org.kaesoron.wallet.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kaesoron.wallet.metrics.TimedBinaryJacksonHttpMessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Компактные форматы для внутренних клиентов: выбираются по {@code Content-Type} / {@code Accept}.
+ * Конвертеры стоят сразу после JSON, поэтому на {@code Accept: *}{@code /*} и без заголовка по-прежнему
+ * отдаётся JSON. Построитель берётся у Spring Boot: настройки {@code spring.jackson.*} действуют на все форматы.
+ */
+@Configuration
+public class CodecConfig implements WebMvcConfigurer {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+    private final MeterRegistry meterRegistry;
+
+    public CodecConfig(ObjectProvider<Jackson2ObjectMapperBuilder> builders, MeterRegistry meterRegistry) {
+        this.builders = builders;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Стандартные конвертеры Spring для этих форматов заменяем своими, с таймером
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        int json = 0;
+        while (json < converters.size() && !(converters.get(json) instanceof MappingJackson2HttpMessageConverter)) {
+            json++;
+        }
+        int position = Math.min(json + 1, converters.size());
+        converters.add(position, new TimedBinaryJacksonHttpMessageConverter(
+                builders.getObject().factory(new SmileFactory()).build(), APPLICATION_SMILE, "smile", meterRegistry));
+        converters.add(position, new TimedBinaryJacksonHttpMessageConverter(
+                builders.getObject().factory(new CBORFactory()).build(), MediaType.APPLICATION_CBOR, "cbor",
+                meterRegistry));
+    }
+}
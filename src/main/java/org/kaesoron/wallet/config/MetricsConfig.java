@@ -0,0 +1,64 @@
+package org.kaesoron.wallet.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kaesoron.wallet.metrics.DataSourceWarmup;
+import org.kaesoron.wallet.metrics.TimedDataSource;
+import org.kaesoron.wallet.metrics.TimedJacksonHttpMessageConverter;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Инструментация стадий, которые не видны из сервисов: получение соединения и JSON.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Заменяет конвертер Spring Boot (он создаётся только при отсутствии своего)
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                 MeterRegistry meterRegistry) {
+        return new TimedJacksonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+
+    @Bean
+    public static BeanPostProcessor timedDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Только пул основной базы: при маршрутизации на реплику бин dataSource — ленивый прокси,
+                // который берёт соединение внутри первого запроса, поэтому оборачиваем сам Hikari.
+                // Метрики Hikari находят пул через DelegatingDataSource
+                return isPrimaryPool(bean, beanName) && !(bean instanceof TimedDataSource)
+                        ? new TimedDataSource((DataSource) bean)
+                        : bean;
+            }
+        };
+    }
+
+    // Пул primary, возможно уже обёрнутый другим пост-процессором (AdmissionDataSource)
+    static boolean isPrimaryPool(Object bean, String beanName) {
+        if (!"dataSource".equals(beanName) && !"primaryDataSource".equals(beanName)
+                || !(bean instanceof DataSource dataSource)) {
+            return false;
+        }
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "wallet.startup.warm-pool", havingValue = "true", matchIfMissing = true)
+    public static DataSourceWarmup dataSourceWarmup() {
+        return new DataSourceWarmup();
+    }
+}
@@ -0,0 +1,82 @@
+package org.kaesoron.wallet.config;
+
+import liquibase.UpdateSummaryEnum;
+import liquibase.UpdateSummaryOutputEnum;
+import liquibase.integration.spring.SpringLiquibase;
+import liquibase.ui.UIServiceEnum;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * Реплики при автомасштабировании стартуют с {@code wallet.migration.mode=VERIFY}: миграции применяет один инстанс
+ * или отдельный запуск с APPLY, остальные только проверяют схему. Свой бин {@link SpringLiquibase}
+ * отключает автоконфигурацию Liquibase, поэтому {@code spring.liquibase.*} переносятся сюда так же, как это делает она.
+ */
+@Configuration
+@ConditionalOnProperty(name = "wallet.migration.mode", havingValue = "VERIFY")
+@EnableConfigurationProperties(LiquibaseProperties.class)
+public class MigrationConfig {
+
+    @Bean
+    public SpringLiquibase liquibase(DataSource dataSource,
+                                     DataSourceProperties dataSourceProperties,
+                                     LiquibaseProperties properties) {
+        VerifyingLiquibase liquibase = new VerifyingLiquibase();
+        liquibase.setDataSource(migrationDataSource(dataSource, dataSourceProperties, properties));
+        liquibase.setChangeLog(properties.getChangeLog());
+        liquibase.setClearCheckSums(properties.isClearChecksums());
+        if (!CollectionUtils.isEmpty(properties.getContexts())) {
+            liquibase.setContexts(StringUtils.collectionToCommaDelimitedString(properties.getContexts()));
+        }
+        liquibase.setDefaultSchema(properties.getDefaultSchema());
+        liquibase.setLiquibaseSchema(properties.getLiquibaseSchema());
+        liquibase.setLiquibaseTablespace(properties.getLiquibaseTablespace());
+        liquibase.setDatabaseChangeLogTable(properties.getDatabaseChangeLogTable());
+        liquibase.setDatabaseChangeLogLockTable(properties.getDatabaseChangeLogLockTable());
+        liquibase.setDropFirst(properties.isDropFirst());
+        liquibase.setShouldRun(properties.isEnabled());
+        if (!CollectionUtils.isEmpty(properties.getLabelFilter())) {
+            liquibase.setLabelFilter(StringUtils.collectionToCommaDelimitedString(properties.getLabelFilter()));
+        }
+        liquibase.setChangeLogParameters(properties.getParameters());
+        liquibase.setRollbackFile(properties.getRollbackFile());
+        liquibase.setTestRollbackOnUpdate(properties.isTestRollbackOnUpdate());
+        liquibase.setTag(properties.getTag());
+        if (properties.getShowSummary() != null) {
+            liquibase.setShowSummary(UpdateSummaryEnum.valueOf(properties.getShowSummary().name()));
+        }
+        if (properties.getShowSummaryOutput() != null) {
+            liquibase.setShowSummaryOutput(UpdateSummaryOutputEnum.valueOf(properties.getShowSummaryOutput().name()));
+        }
+        if (properties.getUiService() != null) {
+            liquibase.setUiService(UIServiceEnum.valueOf(properties.getUiService().name()));
+        }
+        return liquibase;
+    }
+
+    // spring.liquibase.url/user — отдельное соединение для проверки, недостающее берётся из spring.datasource.*
+    private static DataSource migrationDataSource(DataSource dataSource, DataSourceProperties dataSourceProperties,
+                                                  LiquibaseProperties properties) {
+        if (properties.getUrl() == null && properties.getUser() == null) {
+            return dataSource;
+        }
+        return DataSourceBuilder.create()
+                .type(SimpleDriverDataSource.class)
+                .url(properties.getUrl() != null ? properties.getUrl() : dataSourceProperties.determineUrl())
+                .username(properties.getUser() != null ? properties.getUser() : dataSourceProperties.determineUsername())
+                .password(properties.getPassword() != null ? properties.getPassword() : dataSourceProperties.determinePassword())
+                .driverClassName(properties.getDriverClassName() != null
+                        ? properties.getDriverClassName() : dataSourceProperties.determineDriverClassName())
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package org.kaesoron.wallet.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Следит за доступностью и отставанием реплики. Пока реплика недоступна или отстаёт больше
+ * {@code wallet.replica.max-lag}, read-only транзакции уходят на primary.
+ */
+@Slf4j
+public class ReplicaHealthMonitor {
+
+    // Отставание считаем только пока есть непроигранный WAL, иначе простаивающий primary выглядел бы отстающей репликой
+    private static final String LAG_SQL = """
+            SELECT CASE
+                     WHEN pg_is_in_recovery() AND pg_last_wal_receive_lsn() IS DISTINCT FROM pg_last_wal_replay_lsn()
+                       THEN COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                     ELSE 0
+                   END
+            """;
+
+    private final DataSource replica;
+    private final Duration maxLag;
+    private volatile boolean available;
+
+    public ReplicaHealthMonitor(DataSource replica, Duration maxLag) {
+        this.replica = replica;
+        this.maxLag = maxLag;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public void markUnavailable(SQLException cause) {
+        if (available) {
+            log.warn("Replica marked unavailable, routing reads to primary: {}", cause.getMessage());
+        }
+        available = false;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.replica.check-interval:5s}")
+    public void check() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_SQL)) {
+            rs.next();
+            double lagSeconds = rs.getDouble(1);
+            boolean healthy = lagSeconds * 1000 <= maxLag.toMillis();
+            if (healthy != available) {
+                log.info("Replica {} (lag {}s)", healthy ? "available" : "lagging, routing reads to primary", lagSeconds);
+            }
+            available = healthy;
+        } catch (SQLException e) {
+            markUnavailable(e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.kaesoron.wallet.config;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.changelog.ChangeSet;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+
+import java.util.List;
+
+/**
+ * Liquibase режима {@code wallet.migration.mode=VERIFY}: ничего не применяет и не берёт блокировку миграций,
+ * только сверяет базу с changelog. Несовпадение контрольной суммы уже применённого набора или неприменённый
+ * набор останавливают старт: инстанс не должен работать со схемой, которой не знает.
+ */
+public class VerifyingLiquibase extends SpringLiquibase {
+
+    @Override
+    protected void performUpdate(Liquibase liquibase) throws LiquibaseException {
+        liquibase.validate();
+        List<ChangeSet> pending = liquibase.listUnrunChangeSets(new Contexts(contexts), new LabelExpression(labelFilter));
+        if (!pending.isEmpty()) {
+            throw new IllegalStateException("Database schema is behind the changelog: " + pending.size()
+                    + " pending changesets, first " + pending.get(0).toString(false)
+                    + ". Apply migrations with wallet.migration.mode=APPLY first");
+        }
+        log.info("Database schema matches changelog " + changeLog);
+    }
+}
@@ -0,0 +1,290 @@
+package org.kaesoron.wallet.config;
+
+import lombok.Data;
+import org.kaesoron.wallet.enums.ExecutionMode;
+import org.kaesoron.wallet.enums.MigrationMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "wallet")
+public class WalletProperties {
+
+    private Execution execution = new Execution();
+
+    private Batch batch = new Batch();
+
+    private Cache cache = new Cache();
+
+    private Replica replica = new Replica();
+
+    private Striping striping = new Striping();
+
+    private Ledger ledger = new Ledger();
+
+    private Idempotency idempotency = new Idempotency();
+
+    private Admission admission = new Admission();
+
+    private Metrics metrics = new Metrics();
+
+    private Export export = new Export();
+
+    private Adaptive adaptive = new Adaptive();
+
+    private Cluster cluster = new Cluster();
+
+    private Intake intake = new Intake();
+
+    private Engine engine = new Engine();
+
+    private Migration migration = new Migration();
+
+    private Startup startup = new Startup();
+
+    @Data
+    public static class Execution {
+
+        private ExecutionMode mode = ExecutionMode.PESSIMISTIC;
+
+        // Сколько операций одного кошелька применяется под одной блокировкой в режиме WRITE_COMBINING
+        private int maxBatchSize = 128;
+    }
+
+    @Data
+    public static class Batch {
+
+        private int maxSize = 50_000;
+
+        // Сколько id принимает POST /api/v1/wallets/balances за раз
+        private int maxBalanceLookup = 5_000;
+
+        // Сколько кошельков создаёт POST /api/v1/wallets/bulk за раз
+        private int maxCreate = 100_000;
+
+        // С какого размера пачки кошельки вставляются через COPY, а не батчем INSERT-ов
+        private int copyThreshold = 1_000;
+    }
+
+    @Data
+    public static class Cache {
+
+        private boolean enabled = false;
+
+        private long maxSize = 100_000;
+
+        // Верхняя граница устаревания: запись живёт не дольше ttl после последней записи
+        private Duration ttl = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Replica {
+
+        private boolean enabled = false;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+
+        // Недоступная реплика не должна задерживать чтение: ждём соединение недолго и уходим на primary
+        private Duration connectionTimeout = Duration.ofMillis(250);
+
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        private Duration checkInterval = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Striping {
+
+        private int maxSlots = 64;
+
+        private long slotCountCacheSize = 100_000;
+
+        private Duration slotCountTtl = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Ledger {
+
+        // Кошелёк компактизируется, когда в его хвосте набралось столько операций
+        private int compactionThreshold = 100;
+
+        private int compactionBatchSize = 500;
+
+        private Duration compactionInterval = Duration.ofSeconds(1);
+
+        // Хвост со старейшей операцией старше этого возраста компактизируется независимо от длины
+        private Duration compactionMaxAge = Duration.ofMinutes(1);
+
+        // Сколько хранить уже свёрнутые операции как историю; 0 — удалять на следующем проходе
+        private Duration retention = Duration.ZERO;
+
+        private int purgeBatchSize = 10_000;
+    }
+
+    @Data
+    public static class Idempotency {
+
+        // Сколько последних ключей с результатами держим в памяти для мгновенного повтора
+        private long recentKeys = 100_000;
+
+        // Размер bloom-фильтра: после стольких вставок фильтр начинается заново
+        private int expectedKeys = 1_000_000;
+
+        private double falsePositiveRate = 0.01;
+
+        // Через сколько ключ удаляется из базы; повтор после этого применит операцию заново
+        private Duration retention = Duration.ofHours(24);
+
+        private Duration cleanupInterval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Admission {
+
+        private boolean enabled = false;
+
+        // 0 — по размеру пула соединений primary
+        private int permits = 0;
+
+        // Сколько запрос ждёт разрешения, прежде чем получить 503
+        private Duration timeout = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class Metrics {
+
+        // Счётчиков в окне горячих кошельков: кошелёк с долей нагрузки больше 1/hotWalletCounters точно попадёт в окно
+        private int hotWalletCounters = 1000;
+
+        private int hotWalletTop = 20;
+
+        private Duration hotWalletWindow = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Export {
+
+        // Строк за один сетевой раунд курсора: память на экспорт не зависит от размера таблицы
+        private int fetchSize = 1_000;
+    }
+
+    @Data
+    public static class Adaptive {
+
+        // Попыток оптимистичного пути до перехода на блокировку для этой операции
+        private int maxRetries = 3;
+
+        // Сглаженная доля конфликтов, при которой кошелёк переводится на пессимистичный путь
+        private double conflictThreshold = 0.2;
+
+        // Доля, ниже которой кошелёк возвращается на оптимистичный путь; разрыв с порогом не даёт режиму дребезжать
+        private double recoveryThreshold = 0.05;
+
+        // Вес нового наблюдения в экспоненциальном сглаживании
+        private double smoothing = 0.1;
+
+        // Минимальное время на пессимистичном пути после переключения
+        private Duration pessimisticHold = Duration.ofSeconds(30);
+
+        // Ожидание блокировки дольше этого на пессимистичном пути считается конфликтом
+        private Duration contendedLockWait = Duration.ofMillis(2);
+
+        private long trackedWallets = 100_000;
+    }
+
+    @Data
+    public static class Cluster {
+
+        private boolean enabled = false;
+
+        // Базовый URL этого инстанса ровно в том виде, в каком он записан в списке участников
+        private String self;
+
+        private List<String> members = new ArrayList<>();
+
+        // Файл со списком участников (URL в строке, # — комментарий); если задан, важнее members и перечитывается
+        private String membersFile;
+
+        private Duration refreshInterval = Duration.ofSeconds(5);
+
+        // Точек на кольце на участника: больше точек — ровнее распределение кошельков
+        private int virtualNodes = 128;
+
+        private Duration connectTimeout = Duration.ofMillis(250);
+
+        private Duration forwardTimeout = Duration.ofSeconds(5);
+
+        // Общий секрет участников: без него заголовок пересылки от клиента не принимается
+        private String secret;
+    }
+
+    @Data
+    public static class Intake {
+
+        private boolean enabled = false;
+
+        // Обработчиков очереди на инстанс; 0 — инстанс только принимает операции
+        private int workers = 4;
+
+        // Операций за одну транзакцию обработчика
+        private int batchSize = 500;
+
+        // Попыток обработать операцию по отдельности, после которых она получает статус FAILED
+        private int maxAttempts = 3;
+
+        // Пауза обработчика, когда очередь выбрана не полной пачкой
+        private Duration pollInterval = Duration.ofMillis(100);
+
+        // Сколько хранится итог обработанной операции для GET статуса
+        private Duration retention = Duration.ofHours(24);
+
+        private Duration cleanupInterval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Engine {
+
+        // Каталог журналов партиций: должен переживать рестарт, иначе пропадут операции после контрольной точки
+        private String journalDir = "journal";
+
+        // Партиций, у каждой свой поток-писатель и свой журнал
+        private int partitions = 4;
+
+        // Размер журнала партиции; заполненный журнал останавливает партицию до контрольной точки
+        private DataSize journalSize = DataSize.ofMegabytes(64);
+
+        // Операций партиции под одним fsync журнала
+        private int maxBatchSize = 1_024;
+
+        private int queueCapacity = 65_536;
+
+        // Сколько операция ждёт, пока писатель возьмёт её в пачку; потом она снимается с очереди и отклоняется
+        private Duration operationTimeout = Duration.ofSeconds(5);
+
+        private Duration checkpointInterval = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Migration {
+
+        // VERIFY: миграции не применяются, старт падает, если схема не совпадает с changelog
+        private MigrationMode mode = MigrationMode.APPLY;
+    }
+
+    @Data
+    public static class Startup {
+
+        // Открыть пул основной базы на старте; false — для запусков без базы, как тренировочный запуск CDS
+        private boolean warmPool = true;
+    }
+}
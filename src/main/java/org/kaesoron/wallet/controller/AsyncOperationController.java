@@ -0,0 +1,37 @@
+package org.kaesoron.wallet.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.dto.AsyncOperationResponse;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.service.AsyncOperationService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/wallet/async")
+@RequiredArgsConstructor
+@Validated
+@ConditionalOnProperty(name = "wallet.intake.enabled", havingValue = "true")
+public class AsyncOperationController {
+
+    private final AsyncOperationService asyncOperationService;
+
+    @PostMapping
+    public ResponseEntity<AsyncOperationResponse> submit(@RequestBody @Valid WalletOperationRequest request) {
+        AsyncOperationResponse accepted = asyncOperationService.submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/wallet/async/" + accepted.operationId()))
+                .body(accepted);
+    }
+
+    @GetMapping("/{operationId}")
+    public AsyncOperationResponse status(@PathVariable UUID operationId) {
+        return asyncOperationService.status(operationId);
+    }
+}
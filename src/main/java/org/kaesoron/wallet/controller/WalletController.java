@@ -2,13 +2,20 @@ package org.kaesoron.wallet.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.cluster.ClusterForwarder;
 import org.kaesoron.wallet.dto.WalletBalanceResponse;
+import org.kaesoron.wallet.dto.WalletBalancesRequest;
+import org.kaesoron.wallet.dto.WalletBalancesResponse;
+import org.kaesoron.wallet.dto.WalletBatchRequest;
+import org.kaesoron.wallet.dto.WalletBatchResponse;
 import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.service.WalletBatchService;
 import org.kaesoron.wallet.service.WalletService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -18,13 +25,37 @@ import java.util.UUID;
 public class WalletController {
 
     private final WalletService walletService;
+    private final WalletBatchService walletBatchService;
+    // Есть только в кластерном режиме (wallet.cluster.enabled)
+    private final Optional<ClusterForwarder> clusterForwarder;
 
     @PostMapping("/wallet")
-    public ResponseEntity<Void> operate(@RequestBody @Valid WalletOperationRequest request) {
-        walletService.processOperation(request);
+    public ResponseEntity<Void> operate(@RequestBody @Valid WalletOperationRequest request,
+                                        @RequestHeader(value = ClusterForwarder.FORWARDED_HEADER, required = false)
+                                        String forwardedBy,
+                                        @RequestHeader(value = ClusterForwarder.SECRET_HEADER, required = false)
+                                        String clusterSecret) {
+        // Пачки и bulk-чтения затрагивают много кошельков и выполняются там, куда пришли
+        boolean forwarded = clusterForwarder
+                .map(forwarder -> !forwarder.isTrustedForward(forwardedBy, clusterSecret)
+                        && forwarder.forwardIfRemote(request))
+                .orElse(false);
+        if (!forwarded) {
+            walletService.processOperation(request);
+        }
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/wallet/batch")
+    public WalletBatchResponse operateBatch(@RequestBody @Valid WalletBatchRequest request) {
+        return walletBatchService.processBatch(request);
+    }
+
+    @PostMapping("/wallets/balances")
+    public WalletBalancesResponse getBalances(@RequestBody @Valid WalletBalancesRequest request) {
+        return walletBatchService.getBalances(request.getWalletIds());
+    }
+
     @GetMapping("/wallets/{walletId}")
     public WalletBalanceResponse getBalance(@PathVariable UUID walletId) {
         Long balance = walletService.getBalance(walletId);
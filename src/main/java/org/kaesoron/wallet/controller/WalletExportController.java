@@ -0,0 +1,28 @@
+package org.kaesoron.wallet.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.service.WalletExportService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class WalletExportController {
+
+    private final WalletExportService walletExportService;
+
+    @GetMapping("/wallets/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) UUID after) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> walletExportService.exportBalances(after, out));
+    }
+}
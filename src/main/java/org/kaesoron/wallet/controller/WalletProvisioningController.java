@@ -0,0 +1,36 @@
+package org.kaesoron.wallet.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.dto.WalletBalanceResponse;
+import org.kaesoron.wallet.dto.WalletBulkCreateRequest;
+import org.kaesoron.wallet.dto.WalletBulkCreateResponse;
+import org.kaesoron.wallet.dto.WalletCreateRequest;
+import org.kaesoron.wallet.service.WalletProvisioningService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/v1/wallets")
+@RequiredArgsConstructor
+@Validated
+public class WalletProvisioningController {
+
+    private final WalletProvisioningService walletProvisioningService;
+
+    @PostMapping
+    public ResponseEntity<WalletBalanceResponse> create(@RequestBody(required = false) @Valid WalletCreateRequest request) {
+        WalletBalanceResponse created = walletProvisioningService.create(
+                request != null ? request : new WalletCreateRequest());
+        return ResponseEntity.created(URI.create("/api/v1/wallets/" + created.walletId())).body(created);
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<WalletBulkCreateResponse> createAll(@RequestBody @Valid WalletBulkCreateRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(walletProvisioningService.createAll(request.getWallets()));
+    }
+}
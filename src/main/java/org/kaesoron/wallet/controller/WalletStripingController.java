@@ -0,0 +1,32 @@
+package org.kaesoron.wallet.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.dto.WalletBalanceResponse;
+import org.kaesoron.wallet.dto.WalletStripeRequest;
+import org.kaesoron.wallet.service.WalletStripingService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/wallets/{walletId}/stripes")
+@RequiredArgsConstructor
+@Validated
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "STRIPED")
+public class WalletStripingController {
+
+    private final WalletStripingService walletStripingService;
+
+    @PutMapping
+    public WalletBalanceResponse stripe(@PathVariable UUID walletId, @RequestBody @Valid WalletStripeRequest request) {
+        return new WalletBalanceResponse(walletId, walletStripingService.stripe(walletId, request.getSlots()));
+    }
+
+    @DeleteMapping
+    public WalletBalanceResponse unstripe(@PathVariable UUID walletId) {
+        return new WalletBalanceResponse(walletId, walletStripingService.unstripe(walletId));
+    }
+}
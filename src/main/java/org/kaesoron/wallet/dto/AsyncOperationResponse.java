@@ -0,0 +1,12 @@
+package org.kaesoron.wallet.dto;
+
+import org.kaesoron.wallet.enums.AsyncOperationStatus;
+import org.kaesoron.wallet.enums.OperationType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// balance, error и message заполняются после обработки; balance — баланс кошелька-источника после операции
+public record AsyncOperationResponse(UUID operationId, UUID walletId, OperationType operationType, long amount,
+                                     UUID targetWalletId, AsyncOperationStatus status, Long balance, String error,
+                                     String message, Instant createdAt, Instant processedAt) {}
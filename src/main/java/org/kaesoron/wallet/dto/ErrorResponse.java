@@ -0,0 +1,5 @@
+package org.kaesoron.wallet.dto;
+
+import java.time.Instant;
+
+public record ErrorResponse(Instant timestamp, int status, String error, String message) {}
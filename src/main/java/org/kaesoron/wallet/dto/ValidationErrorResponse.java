@@ -0,0 +1,9 @@
+package org.kaesoron.wallet.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ValidationErrorResponse(Instant timestamp, int status, String error, List<FieldError> messages) {
+
+    public record FieldError(String field, String message) {}
+}
@@ -0,0 +1,8 @@
+package org.kaesoron.wallet.dto;
+
+import java.util.UUID;
+
+/**
+ * @param balance {@code null}, если кошелька нет; тогда {@code error} — {@code "Wallet Not Found"}
+ */
+public record WalletBalanceItem(UUID walletId, Long balance, String error) {}
@@ -0,0 +1,19 @@
+package org.kaesoron.wallet.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBalancesRequest {
+
+    @NotEmpty
+    private List<@NotNull UUID> walletIds;
+}
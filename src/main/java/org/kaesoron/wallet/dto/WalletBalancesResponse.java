@@ -0,0 +1,5 @@
+package org.kaesoron.wallet.dto;
+
+import java.util.List;
+
+public record WalletBalancesResponse(int found, int missing, List<WalletBalanceItem> results) {}
@@ -0,0 +1,8 @@
+package org.kaesoron.wallet.dto;
+
+import org.kaesoron.wallet.enums.BatchItemStatus;
+
+import java.util.UUID;
+
+public record WalletBatchItemResult(int index, UUID walletId, BatchItemStatus status, Long balance,
+                                    String error, String message) {}
@@ -0,0 +1,24 @@
+package org.kaesoron.wallet.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.kaesoron.wallet.enums.BatchMode;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBatchRequest {
+
+    @NotNull
+    private BatchMode mode = BatchMode.ALL_OR_NOTHING;
+
+    @NotEmpty
+    @Valid
+    private List<@NotNull WalletOperationRequest> operations;
+}
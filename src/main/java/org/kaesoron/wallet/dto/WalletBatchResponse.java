@@ -0,0 +1,7 @@
+package org.kaesoron.wallet.dto;
+
+import org.kaesoron.wallet.enums.BatchMode;
+
+import java.util.List;
+
+public record WalletBatchResponse(BatchMode mode, int applied, int rejected, List<WalletBatchItemResult> results) {}
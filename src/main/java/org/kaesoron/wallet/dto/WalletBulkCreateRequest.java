@@ -0,0 +1,20 @@
+package org.kaesoron.wallet.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBulkCreateRequest {
+
+    @NotEmpty
+    @Valid
+    private List<@NotNull WalletCreateRequest> wallets;
+}
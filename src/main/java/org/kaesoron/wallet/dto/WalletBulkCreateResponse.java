@@ -0,0 +1,7 @@
+package org.kaesoron.wallet.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+// id в порядке элементов запроса
+public record WalletBulkCreateResponse(int created, List<UUID> walletIds) {}
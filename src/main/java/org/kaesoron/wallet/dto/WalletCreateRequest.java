@@ -0,0 +1,22 @@
+package org.kaesoron.wallet.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletCreateRequest {
+
+    // Необязателен: без него сервер выдаёт UUIDv7. Свой id делает повтор импорта безопасным — дубликат получит 409
+    private UUID walletId;
+
+    @NotNull
+    @PositiveOrZero
+    private Long initialBalance = 0L;
+}
@@ -1,7 +1,10 @@
 package org.kaesoron.wallet.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -23,4 +26,28 @@ public class WalletOperationRequest {
     @NotNull
     @Positive
     private Long amount;
-}
\ No newline at end of file
+
+    // Необязательный: повтор запроса с тем же ключом вернёт результат первой попытки, а не применит операцию снова
+    @Size(max = 64)
+    private String idempotencyKey;
+
+    // Только для TRANSFER: кошелёк, на который зачисляется списанное с walletId
+    private UUID targetWalletId;
+
+    public WalletOperationRequest(UUID walletId, OperationType operationType, Long amount) {
+        this(walletId, operationType, amount, null, null);
+    }
+
+    public WalletOperationRequest(UUID walletId, OperationType operationType, Long amount, String idempotencyKey) {
+        this(walletId, operationType, amount, idempotencyKey, null);
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "targetWalletId is required for TRANSFER, must differ from walletId and is not allowed otherwise")
+    public boolean isTargetWalletValid() {
+        if (operationType != OperationType.TRANSFER) {
+            return targetWalletId == null;
+        }
+        return targetWalletId != null && !targetWalletId.equals(walletId);
+    }
+}
@@ -0,0 +1,17 @@
+package org.kaesoron.wallet.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletStripeRequest {
+
+    @NotNull
+    @Positive
+    private Integer slots;
+}
@@ -0,0 +1,531 @@
+package org.kaesoron.wallet.engine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.AdmissionRejectedException;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.repository.WalletCheckpointRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+/**
+ * Движок режима IN_MEMORY: балансы живут в памяти и источником истины служат они, а не {@code wallets}.
+ * Кошельки разложены по партициям; у каждой один поток-писатель, своя {@link BalanceTable} и свой {@link Journal}.
+ * Писатель забирает из очереди пачку операций, применяет их, дописывает балансы в журнал и делает один fsync
+ * на всю пачку — только после этого вызывающие получают ответ.
+ * <p>
+ * Балансами владеет один инстанс: движок стартует, только захватив {@link EngineLock}, и перестаёт принимать
+ * операции, если блокировка потеряна. Кошелёк подгружается из {@code wallets} при первом обращении. Контрольная точка раз в
+ * {@code wallet.engine.checkpoint-interval} переносит изменённые балансы в {@code wallets} и освобождает журнал.
+ * При старте хвосты журналов после последней контрольной точки дописываются в базу, и движок начинает с пустой памяти.
+ * Ошибка fsync необратима: пачка откатывается и в памяти, и в журнале, партиция перестаёт принимать операции
+ * и писать контрольные точки, остальное восстановит рестарт.
+ * Операция, которую партиция не взяла в работу за {@code wallet.engine.operation-timeout}, отменяется с 503;
+ * команды, оставшиеся в очереди после выхода писателя, получают ошибку, а не ждут вечно.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "IN_MEMORY")
+public class BalanceEngine implements SmartLifecycle {
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final long STOP_TIMEOUT_MILLIS = 10_000;
+    private static final long POLL_MILLIS = 100;
+
+    private final WalletCheckpointRepository walletCheckpointRepository;
+    private final EngineLock engineLock;
+    private final WalletProperties.Engine settings;
+    private final MeterRegistry meterRegistry;
+    private final Timer fsync;
+    private final Timer checkpoints;
+    private final long operationTimeoutNanos;
+    private Partition[] partitions = new Partition[0];
+    private volatile boolean running;
+
+    public BalanceEngine(WalletCheckpointRepository walletCheckpointRepository,
+                         EngineLock engineLock,
+                         WalletProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.walletCheckpointRepository = walletCheckpointRepository;
+        this.engineLock = engineLock;
+        this.settings = properties.getEngine();
+        this.meterRegistry = meterRegistry;
+        this.operationTimeoutNanos = settings.getOperationTimeout().toNanos();
+        this.fsync = Timer.builder("wallet.engine.fsync")
+                .description("Journal flush of one batch of operations")
+                .register(meterRegistry);
+        this.checkpoints = Timer.builder("wallet.engine.checkpoint")
+                .description("Transfer of changed balances to the wallets table")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Применяет пополнение или списание и возвращает баланс после того, как операция легла в журнал на диске.
+     */
+    public long apply(UUID walletId, OperationType operationType, long amount) {
+        if (!running) {
+            throw new IllegalStateException("Balance engine is not running");
+        }
+        Command command = new Command(walletId.getMostSignificantBits(), walletId.getLeastSignificantBits(),
+                operationType == OperationType.WITHDRAW ? -amount : amount);
+        return partitionOf(command.msb, command.lsb).submit(command);
+    }
+
+    /**
+     * Баланс из памяти; пусто, если кошелёк ещё не загружался и {@code wallets} для него актуальна.
+     */
+    public OptionalLong balance(UUID walletId) {
+        long msb = walletId.getMostSignificantBits();
+        long lsb = walletId.getLeastSignificantBits();
+        long balance = partitionOf(msb, lsb).read(msb, lsb);
+        return balance == BalanceTable.ABSENT ? OptionalLong.empty() : OptionalLong.of(balance);
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.engine.checkpoint-interval:1s}")
+    public void checkpoint() {
+        if (!running) {
+            return;
+        }
+        for (Partition partition : partitions) {
+            if (partition.failure != null) {
+                continue;
+            }
+            try {
+                partition.checkpoint();
+            } catch (RuntimeException e) {
+                log.warn("Checkpoint of partition {} failed: {}", partition.index, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        // До восстановления: хвосты журналов дописывает в базу только владелец
+        engineLock.acquire();
+        Path directory = Path.of(settings.getJournalDir());
+        try {
+            recover(directory);
+        } catch (RuntimeException e) {
+            engineLock.release();
+            throw e;
+        }
+        long journalSize = settings.getJournalSize().toBytes();
+        if (journalSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("wallet.engine.journal-size must be below 2GB: " + settings.getJournalSize());
+        }
+        int capacity = (int) ((journalSize - 64) / Journal.RECORD_SIZE);
+        partitions = new Partition[settings.getPartitions()];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i, Journal.create(journalPath(directory, i), capacity));
+        }
+        Gauge.builder("wallet.engine.wallets", this, engine -> Stream.of(engine.partitions)
+                        .mapToInt(partition -> partition.table.size()).sum())
+                .register(meterRegistry);
+        running = true;
+        for (Partition partition : partitions) {
+            partition.writer.start();
+        }
+    }
+
+    // Писатели дорабатывают очередь, затем последняя контрольная точка переносит всё в базу
+    @Override
+    public synchronized void stop() {
+        running = false;
+        long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+        for (Partition partition : partitions) {
+            try {
+                partition.writer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.checkpoint();
+            } catch (RuntimeException e) {
+                log.warn("Final checkpoint of partition {} failed, the journal will be replayed on start: {}",
+                        partition.index, e.getMessage());
+            }
+            partition.journal.close();
+        }
+        engineLock.release();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Раньше веб-сервера при старте и позже него при остановке: запросы приходят только в работающий движок
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 2;
+    }
+
+    /**
+     * Дописывает в базу балансы из хвостов всех журналов каталога, в том числе от прежнего числа партиций.
+     * Повтор безопасен: в журнале итоговые балансы, а не приращения.
+     */
+    private void recover(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            List<Path> journals;
+            try (Stream<Path> files = Files.list(directory)) {
+                journals = files.filter(path -> path.getFileName().toString().endsWith(JOURNAL_SUFFIX)).sorted().toList();
+            }
+            Map<UUID, Long> recovered = new LinkedHashMap<>();
+            for (Path journal : journals) {
+                recovered.putAll(Journal.replay(journal));
+            }
+            if (!recovered.isEmpty()) {
+                walletCheckpointRepository.writeBalances(recovered);
+                log.info("Recovered {} wallet balances from {} journals", recovered.size(), journals.size());
+            }
+            for (Path journal : journals) {
+                Files.delete(journal);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover journals from " + directory, e);
+        }
+    }
+
+    // Без блокировки итоговые балансы контрольной точки могли бы затереть операции нового владельца
+    private void requireOwnership() {
+        if (!engineLock.isHeld()) {
+            IllegalStateException lost = new IllegalStateException("Balance engine lost its database lock");
+            for (Partition partition : partitions) {
+                partition.fail(lost);
+            }
+            throw lost;
+        }
+    }
+
+    private Partition partitionOf(long msb, long lsb) {
+        // Старшие биты хэша: младшие выбирают слот в таблице партиции
+        return partitions[(int) Long.remainderUnsigned(BalanceTable.hash(msb, lsb) >>> 32, partitions.length)];
+    }
+
+    private static Path journalPath(Path directory, int index) {
+        return directory.resolve("partition-" + index + JOURNAL_SUFFIX);
+    }
+
+    private final class Partition {
+
+        private final int index;
+        private final BalanceTable table = new BalanceTable(1024);
+        private final Journal journal;
+        private final BlockingQueue<Command> queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+        private final StampedLock lock = new StampedLock();
+        private final ReentrantLock checkpointLock = new ReentrantLock();
+        private final Thread writer;
+        private volatile RuntimeException failure;
+        private volatile boolean closed;
+
+        private Partition(int index, Journal journal) {
+            this.index = index;
+            this.journal = journal;
+            this.writer = new Thread(this::run, "balance-engine-" + index);
+        }
+
+        private long submit(Command command) {
+            try {
+                while (!queue.offer(command, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (closed) {
+                        throw closedException();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing operation", e);
+            }
+            // Писатель ставит closed до того, как вычерпать очередь: команду после этого заберём сами
+            if (closed && queue.remove(command)) {
+                throw closedException();
+            }
+            long deadline = System.nanoTime() + operationTimeoutNanos;
+            while (!command.await(deadline)) {
+                // Команду ещё не взяли в пачку — отменяем, она точно не применена
+                if (queue.remove(command)) {
+                    throw new AdmissionRejectedException("Balance engine partition " + index
+                            + " did not take the operation within " + settings.getOperationTimeout());
+                }
+                // Уже в пачке: писатель ответит после fsync или при выходе
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS);
+            }
+            return command.result();
+        }
+
+        // Под блокировкой партиции: пачка писателя либо успевает целиком, либо видит отказ и откатывается.
+        // Новые команды отклоняются сразу, очередь и пачку вычерпает писатель при выходе
+        private void fail(RuntimeException e) {
+            long stamp = lock.writeLock();
+            try {
+                if (failure == null) {
+                    failure = e;
+                }
+                closed = true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private IllegalStateException closedException() {
+            return failure != null
+                    ? new IllegalStateException("Balance engine partition " + index + " has failed", failure)
+                    : new IllegalStateException("Balance engine is not running");
+        }
+
+        private long read(long msb, long lsb) {
+            long stamp = lock.tryOptimisticRead();
+            long balance = table.get(msb, lsb);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    balance = table.get(msb, lsb);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return balance;
+        }
+
+        private void run() {
+            List<Command> batch = new ArrayList<>(settings.getMaxBatchSize());
+            try {
+                while (failure == null && (running || !queue.isEmpty())) {
+                    Command first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, settings.getMaxBatchSize() - 1);
+                    if (failure != null) {
+                        break;
+                    }
+                    process(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException | Error e) {
+                log.error("Balance engine partition {} failed", index, e);
+                failure = e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e);
+            } finally {
+                // Ни одна команда не остаётся без ответа: и недоделанная пачка, и всё, что успели поставить в очередь
+                closed = true;
+                RuntimeException reason = closedException();
+                batch.forEach(command -> command.complete(0, reason));
+                for (Command command = queue.poll(); command != null; command = queue.poll()) {
+                    command.complete(0, reason);
+                }
+            }
+        }
+
+        private void process(List<Command> batch) {
+            // Подгрузка идёт без блокировки партиции: таблицу меняет только этот поток
+            for (Command command : batch) {
+                if (table.get(command.msb, command.lsb) == BalanceTable.ABSENT) {
+                    load(command);
+                }
+            }
+            if (journal.free() < batch.size()) {
+                try {
+                    checkpoint();
+                } catch (RuntimeException e) {
+                    log.warn("Checkpoint of full journal {} failed: {}", index, e.getMessage());
+                }
+                if (journal.free() < batch.size()) {
+                    RuntimeException full = new IllegalStateException("Journal of partition " + index + " is full");
+                    batch.forEach(command -> command.complete(0, full));
+                    return;
+                }
+            }
+
+            long stamp = lock.writeLock();
+            long firstSeq = journal.nextSeq();
+            boolean durable = false;
+            try {
+                for (Command command : batch) {
+                    if (command.done) {
+                        continue;
+                    }
+                    long balance = table.get(command.msb, command.lsb);
+                    if (balance + command.delta < 0) {
+                        command.failure = new InsufficientFundsException(-command.delta, balance);
+                        continue;
+                    }
+                    command.previous = balance;
+                    command.balance = balance + command.delta;
+                    table.update(command.msb, command.lsb, command.balance);
+                    journal.append(command.msb, command.lsb, command.balance);
+                }
+                // Читатели ждут fsync и поэтому не видят баланс, который может пропасть при сбое
+                fsync.record(journal::force);
+                // Отказ ставится под этой же блокировкой: после потери владения пачка не должна получить успех
+                durable = failure == null;
+            } finally {
+                if (!durable) {
+                    rollback(batch, firstSeq);
+                }
+                lock.unlockWrite(stamp);
+            }
+            if (!durable) {
+                RuntimeException reason = closedException();
+                batch.forEach(command -> command.complete(0, reason));
+                return;
+            }
+            for (Command command : batch) {
+                command.complete(command.balance, command.failure);
+            }
+        }
+
+        // Под блокировкой партиции: читатели и контрольная точка не видят балансов неудавшейся пачки.
+        // Отметки грязных остаются, но партиция с отказом контрольные точки уже не пишет
+        private void rollback(List<Command> batch, long firstSeq) {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                Command command = batch.get(i);
+                if (command.previous != BalanceTable.ABSENT) {
+                    table.put(command.msb, command.lsb, command.previous);
+                }
+            }
+            try {
+                journal.discard(firstSeq);
+            } catch (RuntimeException e) {
+                log.error("Cannot discard journal records of a failed batch in partition {}", index, e);
+            }
+        }
+
+        private void load(Command command) {
+            UUID walletId = new UUID(command.msb, command.lsb);
+            Long balance;
+            try {
+                balance = walletCheckpointRepository.findBalance(walletId).orElse(null);
+            } catch (RuntimeException e) {
+                command.complete(0, e);
+                return;
+            }
+            if (balance == null) {
+                command.complete(0, new WalletNotFoundException(walletId));
+                return;
+            }
+            long stamp = lock.writeLock();
+            try {
+                table.put(command.msb, command.lsb, balance);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Снимок грязных балансов и номер журнала берутся под блокировкой между пачками писателя, поэтому
+         * всё до этого номера попадает в базу. Если запись не удалась, отметки возвращаются, а журнал не сдвигается.
+         */
+        private void checkpoint() {
+            checkpointLock.lock();
+            try {
+                // Память партиции с отказом может расходиться с журналом, её восстановит повтор журнала
+                if (failure != null) {
+                    throw closedException();
+                }
+                requireOwnership();
+                Map<UUID, Long> balances;
+                long seq;
+                long stamp = lock.writeLock();
+                try {
+                    balances = table.drainDirty();
+                    seq = journal.nextSeq();
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+                try {
+                    checkpoints.record(() -> walletCheckpointRepository.writeBalances(balances));
+                } catch (RuntimeException e) {
+                    stamp = lock.writeLock();
+                    try {
+                        table.markDirty(balances.keySet());
+                    } finally {
+                        lock.unlockWrite(stamp);
+                    }
+                    throw e;
+                }
+                journal.checkpoint(seq);
+            } finally {
+                checkpointLock.unlock();
+            }
+        }
+    }
+
+    private static final class Command {
+        private final long msb;
+        private final long lsb;
+        private final long delta;
+        private final Thread caller = Thread.currentThread();
+        private long balance;
+        private long previous = BalanceTable.ABSENT;
+        private RuntimeException failure;
+        private volatile boolean done;
+
+        private Command(long msb, long lsb, long delta) {
+            this.msb = msb;
+            this.lsb = lsb;
+            this.delta = delta;
+        }
+
+        private void complete(long balance, RuntimeException failure) {
+            if (done) {
+                return;
+            }
+            this.balance = balance;
+            this.failure = failure;
+            this.done = true;
+            LockSupport.unpark(caller);
+        }
+
+        // Прерывание не отменяет ожидание: флаг возвращается потоку, когда придёт ответ
+        private boolean await(long deadline) {
+            boolean interrupted = false;
+            long remaining;
+            while (!done && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+                interrupted |= Thread.interrupted();
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return done;
+        }
+
+        private long result() {
+            if (failure != null) {
+                throw failure;
+            }
+            return balance;
+        }
+    }
+}
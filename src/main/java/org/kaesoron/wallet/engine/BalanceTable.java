@@ -0,0 +1,172 @@
+package org.kaesoron.wallet.engine;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Балансы кошельков в примитивных массивах с открытой адресацией: ключ — две половины UUID, значение — long,
+ * без {@code Long} и сущностей. Меняет таблицу только писатель партиции, согласованность чтения обеспечивает
+ * блокировка партиции. Кошельки из таблицы не удаляются; изменённые после контрольной точки помечаются грязными.
+ */
+final class BalanceTable {
+
+    static final long ABSENT = -1;
+
+    private volatile Slots slots;
+    private int size;
+    private int[] dirty = new int[64];
+    private int dirtyCount;
+
+    BalanceTable(int expectedWallets) {
+        this.slots = new Slots(Integer.highestOneBit(Math.max(16, expectedWallets * 2 - 1)) << 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dirtyCount() {
+        return dirtyCount;
+    }
+
+    /**
+     * Баланс кошелька или {@link #ABSENT}. Безопасен и для читателя без блокировки: после перестройки таблицы
+     * он дочитывает старые массивы, а результат потом проверяет блокировка партиции.
+     */
+    long get(long msb, long lsb) {
+        Slots current = slots;
+        int index = current.indexOf(msb, lsb);
+        return index < 0 ? ABSENT : current.balances[index];
+    }
+
+    void put(long msb, long lsb, long balance) {
+        if (size + 1 > slots.capacity() / 2) {
+            resize();
+        }
+        Slots current = slots;
+        int index = current.indexOf(msb, lsb);
+        if (index >= 0) {
+            current.balances[index] = balance;
+            return;
+        }
+        index = ~index;
+        current.msbs[index] = msb;
+        current.lsbs[index] = lsb;
+        current.balances[index] = balance;
+        current.used[index] = true;
+        size++;
+    }
+
+    /**
+     * Меняет баланс уже загруженного кошелька и помечает его для следующей контрольной точки.
+     */
+    void update(long msb, long lsb, long balance) {
+        Slots current = slots;
+        int index = current.indexOf(msb, lsb);
+        if (index < 0) {
+            throw new IllegalStateException("Wallet is not loaded: " + new UUID(msb, lsb));
+        }
+        current.balances[index] = balance;
+        markDirty(current, index);
+    }
+
+    /**
+     * Забирает грязные кошельки с текущими балансами и снимает с них отметку.
+     */
+    Map<UUID, Long> drainDirty() {
+        Slots current = slots;
+        Map<UUID, Long> balances = new LinkedHashMap<>(dirtyCount * 2);
+        for (int i = 0; i < dirtyCount; i++) {
+            int index = dirty[i];
+            current.dirty[index] = false;
+            balances.put(new UUID(current.msbs[index], current.lsbs[index]), current.balances[index]);
+        }
+        dirtyCount = 0;
+        return balances;
+    }
+
+    // Возвращает отметку кошелькам, чья контрольная точка не записалась
+    void markDirty(Collection<UUID> walletIds) {
+        Slots current = slots;
+        for (UUID walletId : walletIds) {
+            int index = current.indexOf(walletId.getMostSignificantBits(), walletId.getLeastSignificantBits());
+            if (index >= 0) {
+                markDirty(current, index);
+            }
+        }
+    }
+
+    static long hash(long msb, long lsb) {
+        long z = msb ^ Long.rotateLeft(lsb, 32);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private void markDirty(Slots current, int index) {
+        if (current.dirty[index]) {
+            return;
+        }
+        current.dirty[index] = true;
+        if (dirtyCount == dirty.length) {
+            dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+        }
+        dirty[dirtyCount++] = index;
+    }
+
+    private void resize() {
+        Slots old = slots;
+        Slots grown = new Slots(old.capacity() * 2);
+        dirtyCount = 0;
+        for (int i = 0; i < old.capacity(); i++) {
+            if (old.used[i]) {
+                int index = ~grown.indexOf(old.msbs[i], old.lsbs[i]);
+                grown.msbs[index] = old.msbs[i];
+                grown.lsbs[index] = old.lsbs[i];
+                grown.balances[index] = old.balances[i];
+                grown.used[index] = true;
+                if (old.dirty[i]) {
+                    markDirty(grown, index);
+                }
+            }
+        }
+        slots = grown;
+    }
+
+    private static final class Slots {
+        private final long[] msbs;
+        private final long[] lsbs;
+        private final long[] balances;
+        private final boolean[] used;
+        private final boolean[] dirty;
+        private final int mask;
+
+        private Slots(int capacity) {
+            this.msbs = new long[capacity];
+            this.lsbs = new long[capacity];
+            this.balances = new long[capacity];
+            this.used = new boolean[capacity];
+            this.dirty = new boolean[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private int capacity() {
+            return mask + 1;
+        }
+
+        // Индекс ключа или ~индекс свободного слота, куда его вставить; таблица заполнена не больше чем наполовину
+        private int indexOf(long msb, long lsb) {
+            int index = (int) hash(msb, lsb) & mask;
+            while (used[index]) {
+                if (msbs[index] == msb && lsbs[index] == lsb) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return ~index;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.kaesoron.wallet.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Право владеть балансами в режиме IN_MEMORY: сессионная advisory-блокировка PostgreSQL на отдельном соединении,
+ * которое живёт, пока работает движок. Контрольные точки пишут в {@code wallets} итоговые балансы, поэтому второй
+ * движок над той же базой затёр бы чужие операции — он не стартует, пока блокировку держит первый.
+ * Если соединение оборвалось, блокировка снята сервером и владение потеряно.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "IN_MEMORY")
+public class EngineLock {
+
+    // Ключи advisory-блокировок (int, int): 7 — очередь асинхронных операций, 8 — движок IN_MEMORY
+    private static final int LOCK_SPACE = 8;
+    private static final int LOCK_ID = 0;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource dataSource;
+    private Connection connection;
+
+    public EngineLock(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public synchronized void acquire() {
+        try {
+            Connection candidate = dataSource.getConnection();
+            try (PreparedStatement statement = candidate.prepareStatement("SELECT pg_try_advisory_lock(?, ?)")) {
+                statement.setInt(1, LOCK_SPACE);
+                statement.setInt(2, LOCK_ID);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        connection = candidate;
+                        return;
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                candidate.close();
+                throw e;
+            }
+            candidate.close();
+            throw new IllegalStateException("Another instance owns the IN_MEMORY balance engine of this database");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot acquire the IN_MEMORY balance engine lock", e);
+        }
+    }
+
+    /**
+     * Блокировка всё ещё наша: соединение, на котором она взята, живо.
+     */
+    public synchronized boolean isHeld() {
+        try {
+            return connection != null && connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    public synchronized void release() {
+        if (connection == null) {
+            return;
+        }
+        try (Connection held = connection;
+             PreparedStatement statement = held.prepareStatement("SELECT pg_advisory_unlock(?, ?)")) {
+            statement.setInt(1, LOCK_SPACE);
+            statement.setInt(2, LOCK_ID);
+            statement.execute();
+        } catch (SQLException e) {
+            // Закрытие соединения всё равно снимает сессионную блокировку
+            log.warn("Cannot release the balance engine lock explicitly: {}", e.getMessage());
+        } finally {
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.kaesoron.wallet.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Журнал предзаписи партиции в файле, отображённом в память. Запись — баланс кошелька после операции
+ * (seq, id, balance, контрольная сумма; 40 байт), поэтому повтор журнала идемпотентен. Файл кольцевой:
+ * номер записи задаёт её место, а в заголовке лежит номер первой записи, ещё не перенесённой в базу.
+ * При повторе журнал читается с этого номера до первой записи с чужим номером или неверной суммой.
+ * <p>
+ * Писатель дописывает записи без системных вызовов и сбрасывает на диск пачку целиком одним {@link #force()} —
+ * групповой fsync. {@link #checkpoint} вызывается из потока контрольных точек: он пишет только заголовок.
+ */
+final class Journal implements AutoCloseable {
+
+    private static final long MAGIC = 0x57414c4c45544a31L;
+    private static final int HEADER_SIZE = 64;
+    private static final int CHECKPOINT_OFFSET = 8;
+    static final int RECORD_SIZE = 40;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private long nextSeq;
+    private long forcedSeq;
+    private volatile long checkpointSeq;
+
+    private Journal(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Создаёт пустой журнал на {@code capacity} записей, затирая прежний файл.
+     */
+    static Journal create(Path path, int capacity) {
+        try {
+            Files.deleteIfExists(path);
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) capacity * RECORD_SIZE);
+            buffer.putLong(0, MAGIC);
+            buffer.putLong(CHECKPOINT_OFFSET, 0);
+            buffer.force(0, HEADER_SIZE);
+            return new Journal(channel, buffer, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal " + path, e);
+        }
+    }
+
+    /**
+     * Читает записи после контрольной точки: последний баланс каждого кошелька в порядке записи.
+     */
+    static Map<UUID, Long> replay(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            Map<UUID, Long> balances = new LinkedHashMap<>();
+            if (length < HEADER_SIZE) {
+                return balances;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getLong(0) != MAGIC) {
+                throw new IllegalStateException("Not a wallet journal: " + path);
+            }
+            int capacity = (int) ((length - HEADER_SIZE) / RECORD_SIZE);
+            long seq = buffer.getLong(CHECKPOINT_OFFSET);
+            for (long end = seq + capacity; seq < end; seq++) {
+                int offset = offset(seq, capacity);
+                long msb = buffer.getLong(offset + 8);
+                long lsb = buffer.getLong(offset + 16);
+                long balance = buffer.getLong(offset + 24);
+                if (buffer.getLong(offset) != seq || buffer.getLong(offset + 32) != checksum(seq, msb, lsb, balance)) {
+                    break;
+                }
+                balances.put(new UUID(msb, lsb), balance);
+            }
+            return balances;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read journal " + path, e);
+        }
+    }
+
+    /**
+     * Сколько записей ещё помещается, не затирая не перенесённые в базу.
+     */
+    int free() {
+        return (int) (capacity - (nextSeq - checkpointSeq));
+    }
+
+    long nextSeq() {
+        return nextSeq;
+    }
+
+    void append(long msb, long lsb, long balance) {
+        long seq = nextSeq++;
+        int offset = offset(seq, capacity);
+        buffer.putLong(offset, seq);
+        buffer.putLong(offset + 8, msb);
+        buffer.putLong(offset + 16, lsb);
+        buffer.putLong(offset + 24, balance);
+        buffer.putLong(offset + 32, checksum(seq, msb, lsb, balance));
+    }
+
+    /**
+     * Сбрасывает на диск всё, что дописано после прошлого вызова. Кольцо может разрезать диапазон надвое.
+     */
+    void force() {
+        forceRange(forcedSeq, nextSeq);
+        forcedSeq = nextSeq;
+    }
+
+    /**
+     * Отменяет записи начиная с {@code fromSeq}: номер записи портится, и повтор журнала на ней остановится.
+     * Уже сброшенные на диск записи сбрасываются ещё раз, уже испорченными.
+     */
+    void discard(long fromSeq) {
+        long toSeq = nextSeq;
+        for (long seq = fromSeq; seq < toSeq; seq++) {
+            buffer.putLong(offset(seq, capacity), -1);
+        }
+        nextSeq = fromSeq;
+        if (forcedSeq > fromSeq) {
+            forceRange(fromSeq, Math.min(forcedSeq, toSeq));
+            forcedSeq = fromSeq;
+        }
+    }
+
+    /**
+     * Отмечает, что записи до {@code seq} (не включая) перенесены в базу и их место можно занимать.
+     */
+    void checkpoint(long seq) {
+        buffer.putLong(CHECKPOINT_OFFSET, seq);
+        buffer.force(0, HEADER_SIZE);
+        checkpointSeq = seq;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void forceRange(long fromSeq, long toSeq) {
+        if (fromSeq == toSeq) {
+            return;
+        }
+        int from = offset(fromSeq, capacity);
+        int to = offset(toSeq - 1, capacity) + RECORD_SIZE;
+        if (from < to) {
+            buffer.force(from, to - from);
+        } else {
+            buffer.force(from, HEADER_SIZE + capacity * RECORD_SIZE - from);
+            buffer.force(HEADER_SIZE, to - HEADER_SIZE);
+        }
+    }
+
+    private static int offset(long seq, int capacity) {
+        return HEADER_SIZE + (int) (seq % capacity) * RECORD_SIZE;
+    }
+
+    // С MAGIC внутри: у обнулённого хвоста файла сумма не сходится даже для записи с номером 0
+    private static long checksum(long seq, long msb, long lsb, long balance) {
+        return BalanceTable.hash(seq ^ BalanceTable.hash(msb, lsb), balance ^ MAGIC);
+    }
+}
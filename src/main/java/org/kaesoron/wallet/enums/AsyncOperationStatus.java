@@ -0,0 +1,9 @@
+package org.kaesoron.wallet.enums;
+
+public enum AsyncOperationStatus {
+    PENDING,
+    APPLIED,
+    REJECTED,
+    // Обработка падала wallet.intake.max-attempts раз; операция не применена
+    FAILED
+}
@@ -0,0 +1,7 @@
+package org.kaesoron.wallet.enums;
+
+public enum BatchItemStatus {
+    APPLIED,
+    REJECTED,
+    ROLLED_BACK
+}
@@ -0,0 +1,6 @@
+package org.kaesoron.wallet.enums;
+
+public enum BatchMode {
+    ALL_OR_NOTHING,
+    BEST_EFFORT
+}
@@ -0,0 +1,11 @@
+package org.kaesoron.wallet.enums;
+
+public enum ExecutionMode {
+    PESSIMISTIC,
+    WRITE_COMBINING,
+    ATOMIC_UPDATE,
+    STRIPED,
+    LEDGER,
+    ADAPTIVE,
+    IN_MEMORY
+}
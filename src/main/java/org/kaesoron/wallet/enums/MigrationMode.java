@@ -0,0 +1,6 @@
+package org.kaesoron.wallet.enums;
+
+public enum MigrationMode {
+    APPLY,
+    VERIFY
+}
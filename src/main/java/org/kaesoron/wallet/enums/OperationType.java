@@ -2,5 +2,6 @@ package org.kaesoron.wallet.enums;
 
 public enum OperationType {
     DEPOSIT,
-    WITHDRAW
+    WITHDRAW,
+    TRANSFER
 }
@@ -0,0 +1,17 @@
+package org.kaesoron.wallet.exceptions;
+
+import lombok.Getter;
+
+// Отказ владельца кошелька, пересказанный клиенту с тем же статусом. Ожидаемый отказ: без стека.
+@Getter
+public class ForwardedRejectionException extends RuntimeException {
+
+    private final int status;
+    private final String error;
+
+    public ForwardedRejectionException(int status, String error, String message) {
+        super(message, null, false, false);
+        this.status = status;
+        this.error = error;
+    }
+}
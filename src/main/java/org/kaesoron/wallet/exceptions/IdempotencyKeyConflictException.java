@@ -0,0 +1,7 @@
+package org.kaesoron.wallet.exceptions;
+
+public class IdempotencyKeyConflictException extends RuntimeException {
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
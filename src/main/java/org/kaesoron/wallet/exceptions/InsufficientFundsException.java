@@ -1,7 +1,25 @@
 package org.kaesoron.wallet.exceptions;
 
+// Ожидаемый отказ, а не ошибка: без стека, сообщение собирается только если его запросят.
 public class InsufficientFundsException extends RuntimeException {
+
+    private final long requested;
+    private final long available;
+
     public InsufficientFundsException(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.requested = -1;
+        this.available = -1;
+    }
+
+    public InsufficientFundsException(long requested, long available) {
+        super(null, null, false, false);
+        this.requested = requested;
+        this.available = available;
+    }
+
+    @Override
+    public String getMessage() {
+        return requested < 0 ? super.getMessage() : "Insufficient funds: requested " + requested + ", available " + available;
     }
 }
@@ -0,0 +1,7 @@
+package org.kaesoron.wallet.exceptions;
+
+public class OperationNotFoundException extends RuntimeException {
+    public OperationNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.kaesoron.wallet.exceptions;
+
+public class OwnerUnavailableException extends RuntimeException {
+    public OwnerUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package org.kaesoron.wallet.exceptions;
+
+public class WalletAlreadyExistsException extends RuntimeException {
+    public WalletAlreadyExistsException(String message) {
+        super(message);
+    }
+}
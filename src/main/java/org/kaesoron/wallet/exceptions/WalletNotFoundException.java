@@ -1,7 +1,24 @@
 package org.kaesoron.wallet.exceptions;
 
+import java.util.UUID;
+
+// Ожидаемый отказ, а не ошибка: без стека, сообщение собирается только если его запросят.
 public class WalletNotFoundException extends RuntimeException {
+
+    private final UUID walletId;
+
     public WalletNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.walletId = null;
+    }
+
+    public WalletNotFoundException(UUID walletId) {
+        super(null, null, false, false);
+        this.walletId = walletId;
+    }
+
+    @Override
+    public String getMessage() {
+        return walletId == null ? super.getMessage() : "Wallet not found: " + walletId;
     }
 }
@@ -1,7 +1,17 @@
 package org.kaesoron.wallet.handler;
 
+import org.kaesoron.wallet.dto.ErrorResponse;
+import org.kaesoron.wallet.dto.ValidationErrorResponse;
+import org.kaesoron.wallet.exceptions.AdmissionRejectedException;
+import org.kaesoron.wallet.exceptions.ForwardedRejectionException;
+import org.kaesoron.wallet.exceptions.IdempotencyKeyConflictException;
 import org.kaesoron.wallet.exceptions.WalletNotFoundException;
 import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.OperationNotFoundException;
+import org.kaesoron.wallet.exceptions.OwnerUnavailableException;
+import org.kaesoron.wallet.exceptions.WalletAlreadyExistsException;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -10,9 +20,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -22,28 +30,53 @@ public class GlobalExceptionHandler {
         return buildError(HttpStatus.NOT_FOUND, "Wallet Not Found", ex.getMessage());
     }
 
+    @ExceptionHandler(OperationNotFoundException.class)
+    public ResponseEntity<?> handleOperationNotFound(OperationNotFoundException ex) {
+        return buildError(HttpStatus.NOT_FOUND, "Operation Not Found", ex.getMessage());
+    }
+
     @ExceptionHandler(InsufficientFundsException.class)
     public ResponseEntity<?> handleInsufficientFunds(InsufficientFundsException ex) {
         return buildError(HttpStatus.UNPROCESSABLE_ENTITY, "Insufficient Funds", ex.getMessage());
     }
 
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<?> handleIdempotencyKeyConflict(IdempotencyKeyConflictException ex) {
+        return buildError(HttpStatus.CONFLICT, "Idempotency Key Conflict", ex.getMessage());
+    }
+
+    @ExceptionHandler(WalletAlreadyExistsException.class)
+    public ResponseEntity<?> handleWalletAlreadyExists(WalletAlreadyExistsException ex) {
+        return buildError(HttpStatus.CONFLICT, "Wallet Already Exists", ex.getMessage());
+    }
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<?> handleAdmissionRejected(AdmissionRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorBody(HttpStatus.SERVICE_UNAVAILABLE, "Service Overloaded", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ForwardedRejectionException.class)
+    public ResponseEntity<?> handleForwardedRejection(ForwardedRejectionException ex) {
+        HttpStatus status = HttpStatus.resolve(ex.getStatus());
+        return buildError(status == null ? HttpStatus.BAD_GATEWAY : status, ex.getError(), ex.getMessage());
+    }
+
+    @ExceptionHandler(OwnerUnavailableException.class)
+    public ResponseEntity<?> handleOwnerUnavailable(OwnerUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorBody(HttpStatus.SERVICE_UNAVAILABLE, "Owner Unavailable", ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> handleValidation(MethodArgumentNotValidException ex) {
-        List<Map<String, String>> errors = ex.getBindingResult().getFieldErrors().stream()
-                .map(field -> {
-                    Map<String, String> error = new HashMap<>();
-                    error.put("field", field.getField());
-                    error.put("message", field.getDefaultMessage());
-                    return error;
-                })
+        List<ValidationErrorResponse.FieldError> errors = ex.getBindingResult().getFieldErrors().stream()
+                .map(field -> new ValidationErrorResponse.FieldError(field.getField(), field.getDefaultMessage()))
                 .toList();
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", Instant.now());
-        response.put("status", HttpStatus.BAD_REQUEST.value());
-        response.put("error", "Validation Failed");
-        response.put("messages", errors);
-        return ResponseEntity.badRequest().body(response);
+        return ResponseEntity.badRequest().body(new ValidationErrorResponse(Instant.now(),
+                HttpStatus.BAD_REQUEST.value(), "Validation Failed", errors));
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
@@ -58,15 +91,18 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleUnexpected(Exception ex) {
+        // Отказ в допуске при получении соединения приходит обёрнутым (CannotCreateTransactionException и т.п.)
+        if (NestedExceptionUtils.getMostSpecificCause(ex) instanceof AdmissionRejectedException rejected) {
+            return handleAdmissionRejected(rejected);
+        }
         return buildError(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected Error", ex.getMessage());
     }
 
-    private ResponseEntity<Map<String, Object>> buildError(HttpStatus status, String error, String message) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", Instant.now());
-        body.put("status", status.value());
-        body.put("error", error);
-        body.put("message", message);
-        return ResponseEntity.status(status).body(body);
+    private ResponseEntity<ErrorResponse> buildError(HttpStatus status, String error, String message) {
+        return ResponseEntity.status(status).body(errorBody(status, error, message));
+    }
+
+    private ErrorResponse errorBody(HttpStatus status, String error, String message) {
+        return new ErrorResponse(Instant.now(), status.value(), error, message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package org.kaesoron.wallet.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймер {@code wallet.json{format, direction, type}}, общий для JSON и бинарных конвертеров.
+ */
+final class CodecTimer {
+
+    private final MeterRegistry meterRegistry;
+    private final String format;
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    CodecTimer(MeterRegistry meterRegistry, String format) {
+        this.meterRegistry = meterRegistry;
+        this.format = format;
+    }
+
+    void record(String direction, Type type, long nanos) {
+        timer(direction, type).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Регистрация в реестре ищет метр под блокировкой, поэтому таймеры кэшируются здесь, как в WalletMetrics
+    private Timer timer(String direction, Type type) {
+        String typeName = type instanceof Class<?> clazz ? clazz.getSimpleName() : type.getTypeName();
+        return timers.computeIfAbsent(direction + '|' + typeName, ignored -> Timer.builder("wallet.json")
+                .tag("format", format)
+                .tag("direction", direction)
+                .tag("type", typeName)
+                .register(meterRegistry));
+    }
+}
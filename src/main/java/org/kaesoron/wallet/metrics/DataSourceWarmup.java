@@ -0,0 +1,43 @@
+package org.kaesoron.wallet.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationStartupAware;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Открывает пул основной базы сразу при создании бина, отдельным шагом старта {@link StartupReport#DATASOURCE_CONNECT_STEP}.
+ * Иначе Hikari подключается лениво, на первом запросе Liquibase, и время соединения попадает в фазу миграций.
+ * Недоступная база старт не роняет: пул останется ленивым, как раньше.
+ */
+@Slf4j
+public class DataSourceWarmup implements BeanPostProcessor, ApplicationStartupAware {
+
+    private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
+    @Override
+    public void setApplicationStartup(ApplicationStartup applicationStartup) {
+        this.applicationStartup = applicationStartup;
+    }
+
+    // До инициализации: после неё пул уже может быть обёрнут в TimedDataSource
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource && !"replicaDataSource".equals(beanName)) {
+            StartupStep step = applicationStartup.start(StartupReport.DATASOURCE_CONNECT_STEP).tag("beanName", beanName);
+            try (Connection ignored = dataSource.getConnection()) {
+                log.debug("Connection pool {} started", dataSource.getPoolName());
+            } catch (SQLException e) {
+                log.warn("Connection pool {} was not started eagerly: {}", beanName, e.getMessage());
+            } finally {
+                step.end();
+            }
+        }
+        return bean;
+    }
+}
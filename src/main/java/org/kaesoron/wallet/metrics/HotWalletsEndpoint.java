@@ -0,0 +1,21 @@
+package org.kaesoron.wallet.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "hotwallets")
+@RequiredArgsConstructor
+public class HotWalletsEndpoint {
+
+    private final WalletMetrics walletMetrics;
+
+    @ReadOperation
+    public Map<String, Object> hotWallets() {
+        return walletMetrics.hotWallets();
+    }
+}
@@ -0,0 +1,98 @@
+package org.kaesoron.wallet.metrics;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Время стадий текущей операции потока. Стадии копятся здесь и записываются в таймеры одним разом,
+ * когда известен исход операции (см. {@link WalletMetrics}). Вне операции вызовы ничего не делают.
+ */
+public final class OperationTrace {
+
+    public enum Stage { CONNECTION, LOCK, FLUSH, COMMIT, EXECUTE, QUERY }
+
+    private static final ThreadLocal<OperationTrace> CURRENT = new ThreadLocal<>();
+
+    private final long[] nanos = new long[Stage.values().length];
+
+    private OperationTrace() {
+    }
+
+    static OperationTrace begin() {
+        OperationTrace trace = new OperationTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    long nanos(Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    public static void add(Stage stage, long elapsedNanos) {
+        OperationTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.nanos[stage.ordinal()] += elapsedNanos;
+        }
+    }
+
+    public static <T> T time(Stage stage, Supplier<T> action) {
+        long start = System.nanoTime();
+        long connection = connectionNanos();
+        try {
+            return action.get();
+        } finally {
+            addExclusive(stage, System.nanoTime() - start, connection);
+        }
+    }
+
+    public static void time(Stage stage, Runnable action) {
+        long start = System.nanoTime();
+        long connection = connectionNanos();
+        try {
+            action.run();
+        } finally {
+            addExclusive(stage, System.nanoTime() - start, connection);
+        }
+    }
+
+    private static long connectionNanos() {
+        OperationTrace trace = CURRENT.get();
+        return trace == null ? 0 : trace.nanos(Stage.CONNECTION);
+    }
+
+    // Соединение берётся лениво, внутри первого запроса стадии; его ожидание уже учтено в CONNECTION
+    private static void addExclusive(Stage stage, long elapsedNanos, long connectionBefore) {
+        long connection = connectionNanos() - connectionBefore;
+        add(stage, stage == Stage.CONNECTION ? elapsedNanos : Math.max(0, elapsedNanos - connection));
+    }
+
+    /**
+     * Засекает коммит текущей транзакции: от beforeCommit (после flush) до завершения.
+     */
+    public static void timeCommit() {
+        if (CURRENT.get() == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long start;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                start = System.nanoTime();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (start != 0) {
+                    add(Stage.COMMIT, System.nanoTime() - start);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package org.kaesoron.wallet.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Поиск самых тяжёлых ключей алгоритмом space-saving: не больше {@code capacity} счётчиков. Ключ, чей реальный
+ * вес больше суммарного веса / capacity, гарантированно в таблице; оценка веса завышена не больше чем на {@code error}.
+ */
+public class SpaceSaving<K> {
+
+    private static final Comparator<Counter<?>> BY_WEIGHT =
+            Comparator.<Counter<?>>comparingLong(counter -> counter.weight).thenComparingLong(counter -> counter.sequence);
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    // Упорядочены по весу: минимальный для вытеснения — первый, обновление за O(log capacity)
+    private final TreeSet<Counter<?>> byWeight = new TreeSet<>(BY_WEIGHT);
+    private long sequence;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void add(K key, long weight) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            byWeight.remove(counter);
+            counter.weight += weight;
+            byWeight.add(counter);
+            return;
+        }
+
+        long error = 0;
+        if (counters.size() >= capacity) {
+            // Новый ключ занимает место минимального и наследует его вес как погрешность
+            @SuppressWarnings("unchecked")
+            Counter<K> min = (Counter<K>) byWeight.pollFirst();
+            counters.remove(min.key);
+            error = min.weight;
+        }
+        Counter<K> added = new Counter<>(key, error + weight, error, sequence++);
+        counters.put(key, added);
+        byWeight.add(added);
+    }
+
+    public synchronized List<Entry<K>> top(int limit) {
+        List<Entry<K>> entries = new ArrayList<>(Math.min(limit, counters.size()));
+        Iterator<Counter<?>> iterator = byWeight.descendingIterator();
+        while (iterator.hasNext() && entries.size() < limit) {
+            @SuppressWarnings("unchecked")
+            Counter<K> counter = (Counter<K>) iterator.next();
+            entries.add(new Entry<>(counter.key, counter.weight, counter.error));
+        }
+        return entries;
+    }
+
+    public record Entry<K>(K key, long weight, long error) {}
+
+    private static final class Counter<K> {
+        private final K key;
+        private long weight;
+        private final long error;
+        private final long sequence;
+
+        private Counter(K key, long weight, long error, long sequence) {
+            this.key = key;
+            this.weight = weight;
+            this.error = error;
+            this.sequence = sequence;
+        }
+    }
+}
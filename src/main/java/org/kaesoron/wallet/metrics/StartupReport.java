@@ -0,0 +1,152 @@
+package org.kaesoron.wallet.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбивка времени старта по фазам: {@code datasource}, {@code liquibase}, {@code jpa}, {@code web}, остальные бины
+ * ({@code beans}), прочая работа контекста ({@code context}) и всё, что не попало в шаги ({@code other}: JVM, окружение).
+ * Строится по шагам {@link BufferingApplicationStartup}: каждому шагу достаётся собственное время без вложенных,
+ * и оно идёт в фазу ближайшего распознанного шага вверх по дереву. Отчёт пишется в лог при готовности приложения
+ * и публикуется как {@code wallet.startup{phase}}; без буферизующего startup (например, в тестовом контексте)
+ * в лог попадает только общее время.
+ */
+@Slf4j
+@Component
+public class StartupReport implements ApplicationListener<ApplicationReadyEvent> {
+
+    public static final String DATASOURCE_CONNECT_STEP = "wallet.datasource.connect";
+    private static final String BEAN_STEP = "spring.beans.instantiate";
+    private static final String WEB_SERVER_STEP = "spring.boot.webserver.create";
+
+    private final MeterRegistry meterRegistry;
+    private volatile Map<String, Duration> phases = Map.of();
+
+    public StartupReport(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Map<String, Duration> phases() {
+        return phases;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        Duration total = event.getTimeTaken();
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            log.info("Application ready in {} ms", total == null ? "?" : total.toMillis());
+            return;
+        }
+        // getBufferedTimeline не очищает буфер: шаги остаются и для /actuator/startup
+        phases = phases(startup.getBufferedTimeline().getEvents(), total);
+        StringBuilder report = new StringBuilder("Application ready in ").append(total.toMillis()).append(" ms:");
+        phases.forEach((phase, duration) -> {
+            report.append(' ').append(phase).append('=').append(duration.toMillis()).append("ms");
+            TimeGauge.builder("wallet.startup", duration, TimeUnit.MILLISECONDS, value -> value.toMillis())
+                    .tag("phase", phase)
+                    .register(meterRegistry);
+        });
+        log.info(report.toString());
+    }
+
+    /**
+     * Суммирует собственное время шагов по фазам; {@code other} — остаток до {@code total}.
+     */
+    public static Map<String, Duration> phases(List<TimelineEvent> events, Duration total) {
+        Map<Long, TimelineEvent> byId = new HashMap<>(events.size() * 2);
+        Map<Long, Long> childrenNanos = new HashMap<>();
+        for (TimelineEvent event : events) {
+            byId.put(event.getStartupStep().getId(), event);
+        }
+        for (TimelineEvent event : events) {
+            Long parentId = event.getStartupStep().getParentId();
+            if (parentId != null && byId.containsKey(parentId)) {
+                childrenNanos.merge(parentId, event.getDuration().toNanos(), Long::sum);
+            }
+        }
+
+        Map<String, Long> nanos = new LinkedHashMap<>();
+        for (String phase : List.of("datasource", "liquibase", "jpa", "web", "beans", "context")) {
+            nanos.put(phase, 0L);
+        }
+        long tracked = 0;
+        for (TimelineEvent event : events) {
+            long self = Math.max(0, event.getDuration().toNanos() - childrenNanos.getOrDefault(event.getStartupStep().getId(), 0L));
+            nanos.merge(phaseOf(event, byId), self, Long::sum);
+            // Время верхних шагов целиком — остальное до total прошло вне шагов
+            if (event.getStartupStep().getParentId() == null || !byId.containsKey(event.getStartupStep().getParentId())) {
+                tracked += event.getDuration().toNanos();
+            }
+        }
+
+        Map<String, Duration> phases = new LinkedHashMap<>();
+        nanos.forEach((phase, value) -> phases.put(phase, Duration.ofNanos(value)));
+        phases.put("other", Duration.ofNanos(Math.max(0, total.toNanos() - tracked)));
+        return phases;
+    }
+
+    private static String phaseOf(TimelineEvent event, Map<Long, TimelineEvent> byId) {
+        StartupStep step = event.getStartupStep();
+        boolean bean = false;
+        while (step != null) {
+            String phase = classify(step);
+            if (phase != null) {
+                return phase;
+            }
+            bean |= BEAN_STEP.equals(step.getName());
+            TimelineEvent parent = step.getParentId() == null ? null : byId.get(step.getParentId());
+            step = parent == null ? null : parent.getStartupStep();
+        }
+        return bean ? "beans" : "context";
+    }
+
+    private static String classify(StartupStep step) {
+        if (DATASOURCE_CONNECT_STEP.equals(step.getName())) {
+            return "datasource";
+        }
+        if (WEB_SERVER_STEP.equals(step.getName())) {
+            return "web";
+        }
+        if (!BEAN_STEP.equals(step.getName())) {
+            return null;
+        }
+        String beanName = null;
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                beanName = tag.getValue().toLowerCase(Locale.ROOT);
+            }
+        }
+        if (beanName == null) {
+            return null;
+        }
+        if (beanName.contains("liquibase")) {
+            return "liquibase";
+        }
+        if (beanName.contains("datasource") || beanName.contains("hikari")) {
+            return "datasource";
+        }
+        if (beanName.contains("entitymanager") || beanName.startsWith("jpa")) {
+            return "jpa";
+        }
+        if (beanName.contains("webserver") || beanName.contains("tomcat") || beanName.contains("dispatcherservlet")
+                || beanName.contains("handlermapping") || beanName.contains("handleradapter")) {
+            return "web";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+package org.kaesoron.wallet.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Конвертер для бинарных форматов Jackson (CBOR, Smile) с тем же таймером, что и у JSON.
+ * Модель и аннотации DTO общие, меняется только фабрика парсера: UUID пишется 16 байтами, а не строкой.
+ */
+public class TimedBinaryJacksonHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    private final CodecTimer timer;
+
+    public TimedBinaryJacksonHttpMessageConverter(ObjectMapper objectMapper, MediaType mediaType, String format,
+                                                  MeterRegistry meterRegistry) {
+        super(objectMapper, mediaType);
+        this.timer = new CodecTimer(meterRegistry, format);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        long start = System.nanoTime();
+        try {
+            return super.read(type, contextClass, inputMessage);
+        } finally {
+            timer.record("read", type, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            timer.record("write", object.getClass(), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.kaesoron.wallet.metrics;
+
+import org.kaesoron.wallet.metrics.OperationTrace.Stage;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Засекает получение соединения из пула как стадию {@code connection} текущей операции.
+ */
+public class TimedDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    public TimedDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    // Обёртка прячет close() пула от автоопределения destroy-метода, поэтому закрываем пул сами
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection();
+        } finally {
+            OperationTrace.add(Stage.CONNECTION, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            OperationTrace.add(Stage.CONNECTION, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.kaesoron.wallet.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.exceptions.IdempotencyKeyConflictException;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.metrics.OperationTrace.Stage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Таймеры операций: {@code wallet.operation{operation, outcome}} — вся операция,
+ * {@code wallet.operation.stage{operation, outcome, stage}} — её стадии (см. {@link OperationTrace.Stage}).
+ * Для записей ведётся окно самых нагруженных кошельков (space-saving по времени исполнения),
+ * доступное на {@code /actuator/hotwallets}.
+ */
+@Component
+public class WalletMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final WalletProperties.Metrics settings;
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private volatile SpaceSaving<UUID> hotWallets;
+    private volatile Instant windowStart = Instant.now();
+    private volatile List<SpaceSaving.Entry<UUID>> previousWindow = List.of();
+
+    public WalletMetrics(MeterRegistry meterRegistry, WalletProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.settings = properties.getMetrics();
+        this.hotWallets = new SpaceSaving<>(settings.getHotWalletCounters());
+    }
+
+    /**
+     * Выполняет операцию и записывает её таймеры. {@code walletId} учитывается в горячих кошельках,
+     * если не {@code null}.
+     */
+    public <T> T record(String operation, UUID walletId, Supplier<T> action) {
+        OperationTrace trace = OperationTrace.begin();
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            OperationTrace.end();
+            timer("wallet.operation", operation, outcome, null).record(elapsed, TimeUnit.NANOSECONDS);
+            for (Stage stage : Stage.values()) {
+                long nanos = trace.nanos(stage);
+                if (nanos > 0) {
+                    timer("wallet.operation.stage", operation, outcome, stage).record(nanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            if (walletId != null) {
+                // Вес — время исполнения в микросекундах: в нём сидят и ожидания блокировок
+                hotWallets.add(walletId, Math.max(1, trace.nanos(Stage.EXECUTE) / 1_000));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.metrics.hot-wallet-window:5m}")
+    public void rotateHotWallets() {
+        previousWindow = hotWallets.top(settings.getHotWalletTop());
+        hotWallets = new SpaceSaving<>(settings.getHotWalletCounters());
+        windowStart = Instant.now();
+    }
+
+    public Map<String, Object> hotWallets() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("windowStart", windowStart);
+        snapshot.put("current", hotWallets.top(settings.getHotWalletTop()));
+        snapshot.put("previous", previousWindow);
+        return snapshot;
+    }
+
+    private Timer timer(String name, String operation, String outcome, Stage stage) {
+        String stageTag = stage == null ? null : stage.name().toLowerCase();
+        String key = name + '|' + operation + '|' + outcome + '|' + stageTag;
+        return timers.computeIfAbsent(key, ignored -> {
+            Timer.Builder builder = Timer.builder(name)
+                    .tag("operation", operation)
+                    .tag("outcome", outcome);
+            if (stageTag != null) {
+                builder.tag("stage", stageTag);
+            }
+            return builder.register(meterRegistry);
+        });
+    }
+
+    private static String outcome(RuntimeException e) {
+        if (e instanceof InsufficientFundsException) {
+            return "insufficient_funds";
+        }
+        if (e instanceof WalletNotFoundException) {
+            return "not_found";
+        }
+        if (e instanceof IdempotencyKeyConflictException) {
+            return "conflict";
+        }
+        if (e instanceof IllegalArgumentException) {
+            return "invalid";
+        }
+        return "error";
+    }
+}
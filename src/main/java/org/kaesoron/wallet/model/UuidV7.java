@@ -0,0 +1,30 @@
+package org.kaesoron.wallet.model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Идентификаторы UUIDv7 (RFC 9562): 48 бит миллисекунд Unix, 12 бит счётчика внутри миллисекунды, 62 случайных бита.
+ * Новые id монотонно растут, поэтому вставки идут в правый край B-дерева первичного ключа, а не в случайные страницы,
+ * как у UUIDv4. Порядок сохраняется и в пределах одной миллисекунды, и при откате часов назад.
+ */
+public final class UuidV7 {
+
+    // Старшие 48 бит — миллисекунды, младшие 12 — счётчик; переполнение счётчика заимствует следующую миллисекунду
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        long now = System.currentTimeMillis();
+        long current = LAST.updateAndGet(last -> (last >>> 12) < now
+                // Счётчик стартует со случайного значения в нижней половине: остаётся запас на рост в той же миллисекунде
+                ? now << 12 | ThreadLocalRandom.current().nextInt(0x800)
+                : last + 1);
+        long msb = (current >>> 12) << 16 | 0x7000L | (current & 0xFFFL);
+        long lsb = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
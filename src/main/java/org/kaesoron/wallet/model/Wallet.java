@@ -4,10 +4,11 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.kaesoron.wallet.enums.OperationType;
 import org.kaesoron.wallet.exceptions.InsufficientFundsException;
 
 import java.util.UUID;
@@ -17,7 +18,6 @@ import java.util.UUID;
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class Wallet {
 
     @Id
@@ -26,14 +26,36 @@ public class Wallet {
     @Column(nullable = false)
     private long balance;
 
+    // null у ещё не сохранённого кошелька: save() делает persist, а не merge
+    @Version
+    private Long version;
+
+    public Wallet(UUID id, long balance) {
+        this.id = id;
+        this.balance = balance;
+    }
+
     public void deposit(long amount) {
         this.balance += amount;
     }
 
     public void withdraw(long amount) {
         if (amount > balance) {
-            throw new InsufficientFundsException("Insufficient funds: requested " + amount + ", available " + balance);
+            throw new InsufficientFundsException(amount, balance);
         }
         this.balance -= amount;
     }
+
+    public void transferTo(Wallet target, long amount) {
+        withdraw(amount);
+        target.deposit(amount);
+    }
+
+    public void apply(OperationType operationType, long amount) {
+        switch (operationType) {
+            case DEPOSIT -> deposit(amount);
+            case WITHDRAW -> withdraw(amount);
+            default -> throw new IllegalArgumentException("Unsupported operation: " + operationType);
+        }
+    }
 }
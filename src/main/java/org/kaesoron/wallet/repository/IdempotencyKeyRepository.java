@@ -0,0 +1,69 @@
+package org.kaesoron.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO idempotency_keys (idempotency_key, wallet_id, operation_type, amount, balance, target_wallet_id)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+    private static final String FIND_SQL = """
+            SELECT wallet_id, operation_type, amount, balance, target_wallet_id
+            FROM idempotency_keys WHERE idempotency_key = ?
+            """;
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM idempotency_keys WHERE created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Сохраняет результат операции. Если ключ уже есть, бросает DuplicateKeyException (а при
+     * конкурентной вставке сначала дождётся коммита первой транзакции).
+     */
+    public void insert(String key, WalletOperationRequest request, long balance) {
+        jdbcTemplate.update(INSERT_SQL, key, request.getWalletId(), request.getOperationType().name(),
+                request.getAmount(), balance, request.getTargetWalletId());
+    }
+
+    public Optional<StoredResult> find(String key) {
+        List<StoredResult> result = jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> new StoredResult(
+                rs.getObject("wallet_id", UUID.class),
+                OperationType.valueOf(rs.getString("operation_type")),
+                rs.getLong("amount"),
+                rs.getLong("balance"),
+                rs.getObject("target_wallet_id", UUID.class)), key);
+        return result.stream().findFirst();
+    }
+
+    public int deleteCreatedBefore(Instant threshold) {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.from(threshold));
+    }
+
+    public record StoredResult(UUID walletId, OperationType operationType, long amount, long balance,
+                               UUID targetWalletId) {
+
+        public StoredResult(UUID walletId, OperationType operationType, long amount, long balance) {
+            this(walletId, operationType, amount, balance, null);
+        }
+
+        public boolean matches(WalletOperationRequest request) {
+            return walletId.equals(request.getWalletId())
+                    && operationType == request.getOperationType()
+                    && amount == request.getAmount()
+                    && Objects.equals(targetWalletId, request.getTargetWalletId());
+        }
+    }
+}
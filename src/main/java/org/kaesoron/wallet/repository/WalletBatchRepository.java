@@ -0,0 +1,75 @@
+package org.kaesoron.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class WalletBatchRepository {
+
+    // ORDER BY под FOR ... UPDATE: строки блокируются в порядке id, поэтому пересекающиеся батчи не дают дедлоков.
+    // Порядок тот же, что у полосатых кошельков: сначала строки wallets, затем их слоты.
+    private static final String LOCK_WALLETS_SQL =
+            "SELECT id FROM wallets WHERE id = ANY(?) ORDER BY id FOR NO KEY UPDATE";
+    private static final String LOCK_SLOTS_SQL =
+            "SELECT wallet_id FROM wallet_slots WHERE wallet_id = ANY(?) ORDER BY wallet_id, slot FOR UPDATE";
+    // Баланс читаем отдельным запросом уже под блокировкой, чтобы увидеть все зафиксированные до нас изменения
+    private static final String BALANCES_SQL = "SELECT id, balance FROM wallet_balances WHERE id = ANY(?)";
+    // Пишем приращение, а не итог: в строке wallets лежит только часть баланса, если есть слоты или хвост журнала.
+    // Версия растёт при любом изменении строки, иначе оптимистичный писатель режима ADAPTIVE затрёт наше обновление.
+    private static final String UPDATE_SQL = "UPDATE wallets SET balance = balance + ?, version = version + 1 WHERE id = ?";
+
+    private static final RowCallbackHandler IGNORE_ROWS = rs -> {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Блокирует найденные кошельки в порядке id и возвращает их полные балансы. Отсутствующих id в результате нет.
+     */
+    public Map<UUID, Long> lockBalances(Collection<UUID> walletIds) {
+        Object[] ids = walletIds.toArray();
+        PreparedStatementSetter idsSetter = ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids));
+        jdbcTemplate.query(LOCK_WALLETS_SQL, idsSetter, IGNORE_ROWS);
+        jdbcTemplate.query(LOCK_SLOTS_SQL, idsSetter, IGNORE_ROWS);
+
+        Map<UUID, Long> balances = new LinkedHashMap<>();
+        jdbcTemplate.query(BALANCES_SQL, idsSetter,
+                (RowCallbackHandler) rs -> balances.put(rs.getObject("id", UUID.class), rs.getLong("balance")));
+        return balances;
+    }
+
+    /**
+     * Балансы без блокировок одним запросом по массиву id; read-only, поэтому при маршрутизации читает реплику.
+     * Отсутствующих id в результате нет.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, Long> findBalances(Collection<UUID> walletIds) {
+        Object[] ids = walletIds.toArray();
+        Map<UUID, Long> balances = new HashMap<>(ids.length * 2);
+        jdbcTemplate.query(BALANCES_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids)),
+                (RowCallbackHandler) rs -> balances.put(rs.getObject("id", UUID.class), rs.getLong("balance")));
+        return balances;
+    }
+
+    public void applyDeltas(Map<UUID, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> args.add(new Object[]{delta, id}));
+        jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+    }
+}
@@ -0,0 +1,64 @@
+package org.kaesoron.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Строки {@code wallets} для движка IN_MEMORY: движок сам хранит баланс целиком, поэтому пишет его
+ * в {@code wallets.balance}. Слоты STRIPED и несвёрнутый хвост LEDGER при загрузке переносятся в строку,
+ * иначе после контрольной точки {@code wallet_balances} посчитала бы их второй раз.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletCheckpointRepository {
+
+    // Весь баланс по wallet_balances — в строку, водяной знак журнала — на последнюю операцию, слоты удаляются.
+    // Все части запроса видят один снимок; строка блокируется обновлением, поэтому свёртка не гонится сама с собой
+    private static final String LOAD_SQL = """
+            WITH folded AS (
+                UPDATE wallets w
+                SET balance = b.balance, slot_count = 0, version = w.version + 1,
+                    ledger_offset = COALESCE((SELECT MAX(o.id) FROM wallet_operations o WHERE o.wallet_id = w.id),
+                                             w.ledger_offset)
+                FROM wallet_balances b
+                WHERE w.id = ? AND b.id = w.id AND (b.balance <> w.balance OR w.slot_count > 0)
+                RETURNING w.balance),
+                 dropped AS (DELETE FROM wallet_slots WHERE wallet_id = ?)
+            SELECT balance FROM folded
+            UNION ALL
+            SELECT balance FROM wallets WHERE id = ? AND NOT EXISTS (SELECT 1 FROM folded)
+            """;
+    // Версия растёт, чтобы оптимистичный писатель ADAPTIVE после смены режима не затёр контрольную точку
+    private static final String UPDATE_SQL = "UPDATE wallets SET balance = ?, version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Полный баланс кошелька; пусто, если кошелька нет.
+     */
+    @Transactional
+    public Optional<Long> findBalance(UUID walletId) {
+        return jdbcTemplate.queryForList(LOAD_SQL, Long.class, walletId, walletId, walletId).stream().findFirst();
+    }
+
+    /**
+     * Записывает итоговые балансы одной транзакцией: контрольная точка либо целиком в базе, либо её нет.
+     */
+    @Transactional
+    public void writeBalances(Map<UUID, Long> balances) {
+        if (balances.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(balances.size());
+        balances.forEach((id, balance) -> args.add(new Object[]{balance, id}));
+        jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+    }
+}
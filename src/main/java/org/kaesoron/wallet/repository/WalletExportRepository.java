@@ -0,0 +1,50 @@
+package org.kaesoron.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class WalletExportRepository {
+
+    // Обход по первичному ключу: первая строка приходит сразу, без сортировки всей таблицы
+    private static final String BALANCES_SQL = "SELECT id, balance FROM wallet_balances ORDER BY id";
+    private static final String BALANCES_AFTER_SQL = "SELECT id, balance FROM wallet_balances WHERE id > ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Отдаёт балансы по возрастанию id, начиная после {@code after}. Драйвер Postgres держит курсор
+     * на сервере и подгружает по {@code fetchSize} строк, только если вызов идёт внутри транзакции.
+     */
+    public void streamBalances(UUID after, int fetchSize, BalanceConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(after == null ? BALANCES_SQL : BALANCES_AFTER_SQL);
+            statement.setFetchSize(fetchSize);
+            if (after != null) {
+                statement.setObject(1, after);
+            }
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            try {
+                consumer.accept(rs.getObject("id", UUID.class), rs.getLong("balance"));
+            } catch (IOException e) {
+                // Клиент отключился: запрос прерывается, курсор закрывается вместе с транзакцией
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    public interface BalanceConsumer {
+
+        void accept(UUID walletId, long balance) throws IOException;
+    }
+}
@@ -0,0 +1,174 @@
+package org.kaesoron.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.dto.AsyncOperationResponse;
+import org.kaesoron.wallet.dto.WalletBatchItemResult;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.AsyncOperationStatus;
+import org.kaesoron.wallet.enums.BatchItemStatus;
+import org.kaesoron.wallet.enums.OperationType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Очередь асинхронных операций в таблице {@code wallet_intake}. Id — UUIDv7, поэтому порядок id — порядок приёма.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletIntakeRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO wallet_intake (id, wallet_id, operation_type, amount, target_wallet_id, idempotency_key)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+    // Пространство advisory-блокировок очереди (8 занято движком IN_MEMORY, см. EngineLock): второй ключ — хеш кошелька
+    private static final int WALLET_LOCK_SPACE = 7;
+    // Кошельки из головы очереди, которые удалось захватить без ожидания: пока транзакция жива, операции кошелька
+    // берёт только она, а другие обработчики уходят к следующим кошелькам, а не ждут её на блокировке строк.
+    // FOR UPDATE перечитывает статус: строки, обработанные до нашего захвата, отсеются.
+    private static final String CLAIM_SQL = """
+            WITH claimed_wallets AS (
+                SELECT wallet_id FROM (
+                    SELECT DISTINCT wallet_id FROM (
+                        SELECT wallet_id FROM wallet_intake WHERE status = 'PENDING' ORDER BY id LIMIT ?
+                    ) head
+                ) candidates
+                WHERE pg_try_advisory_xact_lock(?, hashtext(wallet_id::text))
+            )
+            SELECT id, wallet_id, operation_type, amount, target_wallet_id FROM wallet_intake
+            WHERE status = 'PENDING' AND wallet_id IN (SELECT wallet_id FROM claimed_wallets)
+            ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED
+            """;
+    private static final String LOCK_WALLET_SQL = "SELECT pg_advisory_xact_lock(?, hashtext(?::text))";
+    private static final String LOCK_PENDING_SQL = "SELECT id FROM wallet_intake WHERE id = ? AND status = 'PENDING' FOR UPDATE";
+    private static final String FAIL_SQL = """
+            UPDATE wallet_intake
+            SET attempts = attempts + 1,
+                status = CASE WHEN attempts + 1 >= ? THEN 'FAILED' ELSE status END,
+                processed_at = CASE WHEN attempts + 1 >= ? THEN ? ELSE processed_at END,
+                error = ?, message = ?
+            WHERE id = ? AND status = 'PENDING'
+            RETURNING status
+            """;
+    private static final String COMPLETE_SQL = """
+            UPDATE wallet_intake SET status = ?, balance = ?, error = ?, message = ?, processed_at = ? WHERE id = ?
+            """;
+    private static final String SELECT_SQL = """
+            SELECT id, wallet_id, operation_type, amount, target_wallet_id, status, balance, error, message,
+                   created_at, processed_at
+            FROM wallet_intake
+            """;
+    private static final String FIND_SQL = SELECT_SQL + " WHERE id = ?";
+    private static final String FIND_BY_KEY_SQL = SELECT_SQL + " WHERE idempotency_key = ?";
+    private static final String DELETE_PROCESSED_SQL =
+            "DELETE FROM wallet_intake WHERE status <> 'PENDING' AND processed_at < ?";
+    private static final int MESSAGE_LENGTH = 255;
+
+    private static final RowMapper<AsyncOperationResponse> RESPONSE_MAPPER = (rs, rowNum) -> new AsyncOperationResponse(
+            rs.getObject("id", UUID.class),
+            rs.getObject("wallet_id", UUID.class),
+            OperationType.valueOf(rs.getString("operation_type")),
+            rs.getLong("amount"),
+            rs.getObject("target_wallet_id", UUID.class),
+            AsyncOperationStatus.valueOf(rs.getString("status")),
+            rs.getObject("balance", Long.class),
+            rs.getString("error"),
+            rs.getString("message"),
+            instant(rs, "created_at"),
+            instant(rs, "processed_at"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ставит операцию в очередь. Если ключ идемпотентности уже есть, бросает DuplicateKeyException.
+     */
+    public void insert(UUID operationId, WalletOperationRequest request) {
+        jdbcTemplate.update(INSERT_SQL, operationId, request.getWalletId(), request.getOperationType().name(),
+                request.getAmount(), request.getTargetWalletId(), request.getIdempotencyKey());
+    }
+
+    /**
+     * Забирает до {@code limit} самых старых ожидающих операций тех кошельков, которые не обрабатывает другая
+     * транзакция, и держит кошельки и строки до конца транзакции. Операции кошелька идут по порядку id.
+     */
+    public List<ClaimedOperation> claim(int limit) {
+        return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new ClaimedOperation(
+                rs.getObject("id", UUID.class),
+                new WalletOperationRequest(
+                        rs.getObject("wallet_id", UUID.class),
+                        OperationType.valueOf(rs.getString("operation_type")),
+                        rs.getLong("amount"),
+                        null,
+                        rs.getObject("target_wallet_id", UUID.class))), limit, WALLET_LOCK_SPACE, limit);
+    }
+
+    /**
+     * Захватывает кошелёк так же, как {@link #claim}, но с ожиданием, и блокирует операцию, если она ещё ожидает.
+     */
+    public boolean lockPending(ClaimedOperation operation) {
+        jdbcTemplate.query(LOCK_WALLET_SQL, rs -> null, WALLET_LOCK_SPACE, operation.request().getWalletId());
+        return !jdbcTemplate.queryForList(LOCK_PENDING_SQL, UUID.class, operation.id()).isEmpty();
+    }
+
+    /**
+     * Засчитывает неудачную попытку. Возвращает новый статус; {@code FAILED} — попытки исчерпаны.
+     * Пустой результат — операция уже не ожидает.
+     */
+    public Optional<AsyncOperationStatus> recordFailure(UUID operationId, String error, String message,
+                                                        int maxAttempts, Instant processedAt) {
+        return jdbcTemplate.queryForList(FAIL_SQL, String.class, maxAttempts, maxAttempts,
+                        Timestamp.from(processedAt), error, truncate(message), operationId).stream()
+                .findFirst()
+                .map(AsyncOperationStatus::valueOf);
+    }
+
+    /**
+     * Записывает итоги: {@code results} идут в том же порядке, что и {@code operations}.
+     */
+    public void complete(List<ClaimedOperation> operations, List<WalletBatchItemResult> results, Instant processedAt) {
+        List<Object[]> args = new ArrayList<>(operations.size());
+        Timestamp timestamp = Timestamp.from(processedAt);
+        for (int i = 0; i < operations.size(); i++) {
+            WalletBatchItemResult result = results.get(i);
+            AsyncOperationStatus status = result.status() == BatchItemStatus.APPLIED
+                    ? AsyncOperationStatus.APPLIED
+                    : AsyncOperationStatus.REJECTED;
+            args.add(new Object[]{status.name(), result.balance(), result.error(), truncate(result.message()), timestamp,
+                    operations.get(i).id()});
+        }
+        jdbcTemplate.batchUpdate(COMPLETE_SQL, args);
+    }
+
+    public Optional<AsyncOperationResponse> find(UUID operationId) {
+        return jdbcTemplate.query(FIND_SQL, RESPONSE_MAPPER, operationId).stream().findFirst();
+    }
+
+    public Optional<AsyncOperationResponse> findByIdempotencyKey(String key) {
+        return jdbcTemplate.query(FIND_BY_KEY_SQL, RESPONSE_MAPPER, key).stream().findFirst();
+    }
+
+    public int deleteProcessedBefore(Instant threshold) {
+        return jdbcTemplate.update(DELETE_PROCESSED_SQL, Timestamp.from(threshold));
+    }
+
+    private static String truncate(String message) {
+        return message == null || message.length() <= MESSAGE_LENGTH ? message : message.substring(0, MESSAGE_LENGTH);
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    public record ClaimedOperation(UUID id, WalletOperationRequest request) {}
+}
@@ -0,0 +1,138 @@
+package org.kaesoron.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.enums.OperationType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Журнал операций: каждая операция — вставка в {@code wallet_operations}, строка {@code wallets}
+ * хранит снимок баланса и обновляется только при компактизации. Компактизация переносит в снимок операции
+ * с id до {@code wallets.ledger_offset} и сдвигает этот водяной знак; сами строки журнала не переписываются.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletLedgerRepository {
+
+    // Вью не видит вставку из того же запроса, поэтому сумму операции добавляем явно.
+    // KEY SHARE берётся до того, как вставка получит id: компактизация дожидается всех операций с меньшими id.
+    private static final String APPEND_SQL = """
+            WITH wallet AS (SELECT id FROM wallets WHERE id = :id FOR KEY SHARE),
+                 inserted AS (
+                     INSERT INTO wallet_operations (wallet_id, operation_type, amount)
+                     SELECT id, :type, :amount FROM wallet
+                     RETURNING amount)
+            SELECT (SELECT balance FROM wallet_balances WHERE id = :id) + (SELECT amount FROM inserted)
+            """;
+
+    // NO KEY UPDATE не конфликтует с KEY SHARE от внешнего ключа, поэтому пополнения не ждут списаний
+    private static final String LOCK_SQL = "SELECT id FROM wallets WHERE id = :id FOR NO KEY UPDATE";
+
+    // Отдельный запрос после блокировки: свежий снимок видит все зафиксированные до нас списания
+    private static final String CONDITIONAL_APPEND_SQL = """
+            WITH current AS (SELECT balance FROM wallet_balances WHERE id = :id),
+                 inserted AS (
+                     INSERT INTO wallet_operations (wallet_id, operation_type, amount)
+                     SELECT :id, :type, :amount FROM current WHERE current.balance + :amount >= 0
+                     RETURNING amount)
+            SELECT balance, (SELECT COUNT(*) FROM inserted) AS appended FROM current
+            """;
+
+    // Кандидаты: длинный хвост или хвост старше :before, чтобы редко пополняемые кошельки тоже сворачивались
+    private static final String COMPACTION_CANDIDATES_SQL = """
+            SELECT o.wallet_id FROM wallet_operations o JOIN wallets w ON w.id = o.wallet_id
+            WHERE o.id > w.ledger_offset
+            GROUP BY o.wallet_id HAVING COUNT(*) >= :minOperations OR MIN(o.created_at) < :before
+            LIMIT :limit
+            """;
+
+    // FOR UPDATE конфликтует с KEY SHARE операций: ждём незакоммиченные вставки и не пускаем новые до коммита
+    private static final String LOCK_FOR_COMPACTION_SQL =
+            "SELECT ledger_offset FROM wallets WHERE id = :id FOR UPDATE";
+
+    // Отдельный запрос после блокировки: свежий снимок видит весь хвост до водяного знака.
+    // Снимок и водяной знак меняются одним UPDATE, читатели видят либо старое, либо новое состояние целиком
+    private static final String COMPACT_SQL = """
+            WITH tail AS (
+                SELECT SUM(amount) AS amount, MAX(id) AS last_id FROM wallet_operations
+                WHERE wallet_id = :id AND id > :offset)
+            UPDATE wallets SET balance = balance + tail.amount, ledger_offset = tail.last_id, version = version + 1
+            FROM tail WHERE wallets.id = :id AND tail.last_id IS NOT NULL
+            """;
+
+    private static final String PURGE_SQL = """
+            DELETE FROM wallet_operations WHERE id IN (
+                SELECT o.id FROM wallet_operations o JOIN wallets w ON w.id = o.wallet_id
+                WHERE o.id <= w.ledger_offset AND o.created_at < :before
+                LIMIT :limit)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Дописывает операцию без проверки баланса. Возвращает баланс после неё или {@code null}, если кошелька нет.
+     */
+    public Long append(UUID walletId, OperationType type, long amount) {
+        return jdbcTemplate.queryForObject(APPEND_SQL, params(walletId, type, amount), Long.class);
+    }
+
+    public boolean lock(UUID walletId) {
+        return !jdbcTemplate.queryForList(LOCK_SQL, new MapSqlParameterSource("id", walletId), UUID.class).isEmpty();
+    }
+
+    /**
+     * Дописывает операцию, только если баланс после неё не уйдёт в минус. Вызывать под {@link #lock}.
+     */
+    public ConditionalAppend appendIfCovered(UUID walletId, OperationType type, long amount) {
+        return jdbcTemplate.queryForObject(CONDITIONAL_APPEND_SQL, params(walletId, type, amount),
+                (rs, rowNum) -> new ConditionalAppend(rs.getLong("balance"), rs.getLong("appended") > 0));
+    }
+
+    public List<UUID> findCompactionCandidates(int minOperations, Instant before, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("minOperations", minOperations)
+                .addValue("before", Timestamp.from(before))
+                .addValue("limit", limit);
+        return jdbcTemplate.queryForList(COMPACTION_CANDIDATES_SQL, params, UUID.class);
+    }
+
+    /**
+     * Переносит хвост кошелька в снимок. Вызывать в транзакции: блокировка держится до коммита.
+     */
+    public void compact(UUID walletId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("id", walletId);
+        List<Long> offset = jdbcTemplate.queryForList(LOCK_FOR_COMPACTION_SQL, params, Long.class);
+        if (!offset.isEmpty()) {
+            jdbcTemplate.update(COMPACT_SQL, params.addValue("offset", offset.get(0)));
+        }
+    }
+
+    /**
+     * Удаляет до {@code limit} уже свёрнутых операций, записанных раньше {@code before}. Возвращает число удалённых.
+     */
+    public int purgeCompacted(Instant before, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("before", Timestamp.from(before))
+                .addValue("limit", limit);
+        return jdbcTemplate.update(PURGE_SQL, params);
+    }
+
+    private MapSqlParameterSource params(UUID walletId, OperationType type, long amount) {
+        return new MapSqlParameterSource()
+                .addValue("id", walletId)
+                .addValue("type", type.name())
+                .addValue("amount", amount);
+    }
+
+    /**
+     * @param balance  баланс до операции
+     * @param appended {@code false}, если средств не хватило
+     */
+    public record ConditionalAppend(long balance, boolean appended) {}
+}
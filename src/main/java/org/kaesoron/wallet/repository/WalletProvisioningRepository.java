@@ -0,0 +1,82 @@
+package org.kaesoron.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Создание кошельков. Крупные пачки идут через {@code COPY ... FROM STDIN}: один поток данных вместо тысяч
+ * INSERT-ов, без разбора и планирования каждой строки. Небольшие пачки и базы без COPY — JDBC-батчем INSERT-ов.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletProvisioningRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO wallets (id, balance) VALUES (?, ?)";
+    // Текстовый формат: uuid и bigint не требуют экранирования; version получает значение по умолчанию
+    private static final String COPY_SQL = "COPY wallets (id, balance) FROM STDIN";
+    private static final int INSERT_BATCH_SIZE = 1_000;
+    // Сколько байт строк копим перед отправкой: память на импорт не зависит от его размера
+    private static final int COPY_CHUNK_BYTES = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WalletProperties properties;
+
+    /**
+     * Вставляет кошельки. Существующий id роняет всю пачку с {@code DuplicateKeyException}: COPY атомарен сам,
+     * для батча INSERT-ов атомарность даёт транзакция вызывающего.
+     */
+    public void insert(Map<UUID, Long> balances) {
+        if (balances.size() >= properties.getBatch().getCopyThreshold()) {
+            Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection ->
+                    connection.isWrapperFor(PGConnection.class)
+                            ? copy(connection.unwrap(PGConnection.class), balances)
+                            : null);
+            if (copied != null) {
+                return;
+            }
+        }
+        List<Object[]> args = new ArrayList<>(balances.size());
+        balances.forEach((id, balance) -> args.add(new Object[]{id, balance}));
+        jdbcTemplate.batchUpdate(INSERT_SQL, args, INSERT_BATCH_SIZE, (ps, row) -> {
+            ps.setObject(1, row[0]);
+            ps.setLong(2, (Long) row[1]);
+        });
+    }
+
+    private static long copy(PGConnection connection, Map<UUID, Long> balances) throws SQLException {
+        CopyIn copyIn = connection.getCopyAPI().copyIn(COPY_SQL);
+        try {
+            StringBuilder rows = new StringBuilder(COPY_CHUNK_BYTES + 64);
+            for (Map.Entry<UUID, Long> entry : balances.entrySet()) {
+                rows.append(entry.getKey()).append('\t').append(entry.getValue().longValue()).append('\n');
+                if (rows.length() >= COPY_CHUNK_BYTES) {
+                    write(copyIn, rows);
+                }
+            }
+            write(copyIn, rows);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder rows) throws SQLException {
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.US_ASCII);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -16,4 +17,25 @@ public interface WalletRepository extends JpaRepository<Wallet, UUID> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT w FROM Wallet w WHERE w.id = :id")
     Optional<Wallet> findByIdForUpdate(UUID id);
+
+    // read-only: при включённой маршрутизации запрос уходит на реплику.
+    // Вью складывает строку кошелька и его слоты (см. 002-create-table-wallet-slots.yml).
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT balance FROM wallet_balances WHERE id = :id", nativeQuery = true)
+    Optional<Long> findBalanceById(UUID id);
+
+    // Для кэша: отстающий баланс с реплики остался бы в кэше до ttl и пережил бы удаление ключа после записи.
+    @Transactional
+    @Query(value = "SELECT balance FROM wallet_balances WHERE id = :id", nativeQuery = true)
+    Optional<Long> findPrimaryBalanceById(UUID id);
+
+    /**
+     * Атомарно меняет баланс на {@code delta}, если текущий баланс не меньше {@code required}.
+     * Пустой результат означает, что строка не обновлена: кошелька нет или не хватает средств.
+     */
+    @Query(value = """
+            UPDATE wallets SET balance = balance + :delta, version = version + 1
+            WHERE id = :id AND balance >= :required RETURNING balance
+            """, nativeQuery = true)
+    Optional<Long> applyDelta(UUID id, long delta, long required);
 }
@@ -0,0 +1,125 @@
+package org.kaesoron.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Баланс полосатого кошелька = {@code wallets.balance} + сумма его строк в {@code wallet_slots}.
+ * Поэтому любое изменение строки кошелька или слота корректно, даже если вызывающий
+ * ошибся в числе слотов: это влияет только на распределение конкуренции, но не на сумму.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletSlotRepository {
+
+    private static final String SLOT_COUNT_SQL = "SELECT slot_count FROM wallets WHERE id = :id";
+    // По первичному ключу слотов: без полосатых кошельков это пустой проход по индексу, а не скан wallets
+    private static final String STRIPED_WALLETS_SQL = "SELECT DISTINCT wallet_id FROM wallet_slots LIMIT :limit";
+
+    private static final String APPLY_TO_SLOT_SQL = """
+            WITH updated AS (
+                UPDATE wallet_slots SET balance = balance + :delta
+                WHERE wallet_id = :id AND slot = :slot AND balance >= :required
+                RETURNING balance)
+            SELECT (SELECT balance FROM updated)
+                 + (SELECT COALESCE(SUM(balance), 0) FROM wallet_slots WHERE wallet_id = :id AND slot <> :slot)
+                 + (SELECT balance FROM wallets WHERE id = :id)
+            """;
+
+    private static final String APPLY_TO_WALLET_SQL = """
+            WITH updated AS (
+                UPDATE wallets SET balance = balance + :delta, version = version + 1
+                WHERE id = :id AND balance >= :required
+                RETURNING balance)
+            SELECT (SELECT balance FROM updated)
+                 + (SELECT COALESCE(SUM(balance), 0) FROM wallet_slots WHERE wallet_id = :id)
+            """;
+
+    // Порядок блокировок везде одинаковый: сначала строка кошелька, затем слоты по возрастанию номера.
+    private static final String LOCK_WALLET_SQL = "SELECT balance FROM wallets WHERE id = :id FOR UPDATE";
+    private static final String LOCK_SLOTS_SQL =
+            "SELECT balance FROM wallet_slots WHERE wallet_id = :id ORDER BY slot FOR UPDATE";
+
+    private static final String UPSERT_SLOT_SQL = """
+            INSERT INTO wallet_slots (wallet_id, slot, balance) VALUES (:id, :slot, :balance)
+            ON CONFLICT (wallet_id, slot) DO UPDATE SET balance = EXCLUDED.balance
+            """;
+    private static final String DELETE_EXTRA_SLOTS_SQL = "DELETE FROM wallet_slots WHERE wallet_id = :id AND slot >= :slots";
+    private static final String UPDATE_WALLET_SQL =
+            "UPDATE wallets SET balance = :balance, slot_count = :slots, version = version + 1 WHERE id = :id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Optional<Integer> findSlotCount(UUID walletId) {
+        List<Integer> result = jdbcTemplate.queryForList(SLOT_COUNT_SQL, params(walletId), Integer.class);
+        return result.stream().findFirst();
+    }
+
+    public List<UUID> findStripedWalletIds(int limit) {
+        return jdbcTemplate.queryForList(STRIPED_WALLETS_SQL, new MapSqlParameterSource("limit", limit), UUID.class);
+    }
+
+    /**
+     * Меняет баланс слота, если в нём не меньше {@code required}. Возвращает полный баланс кошелька
+     * или {@code null}, если слот не изменён (слота нет или в нём не хватает средств).
+     */
+    public Long applyToSlot(UUID walletId, int slot, long delta, long required) {
+        MapSqlParameterSource params = params(walletId)
+                .addValue("slot", slot)
+                .addValue("delta", delta)
+                .addValue("required", required);
+        return jdbcTemplate.queryForObject(APPLY_TO_SLOT_SQL, params, Long.class);
+    }
+
+    /**
+     * То же для основной строки кошелька; {@code null} — кошелька нет или в строке не хватает средств.
+     */
+    public Long applyToWallet(UUID walletId, long delta, long required) {
+        MapSqlParameterSource params = params(walletId)
+                .addValue("delta", delta)
+                .addValue("required", required);
+        return jdbcTemplate.queryForObject(APPLY_TO_WALLET_SQL, params, Long.class);
+    }
+
+    /**
+     * Блокирует строку кошелька и все его слоты и возвращает полный баланс. Пусто, если кошелька нет.
+     */
+    public Optional<Long> lockTotal(UUID walletId) {
+        List<Long> walletBalance = jdbcTemplate.queryForList(LOCK_WALLET_SQL, params(walletId), Long.class);
+        if (walletBalance.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Long> slots = jdbcTemplate.queryForList(LOCK_SLOTS_SQL, params(walletId), Long.class);
+        return Optional.of(walletBalance.get(0) + slots.stream().mapToLong(Long::longValue).sum());
+    }
+
+    /**
+     * Раскладывает {@code total} по {@code slots} слотам поровну (остаток — в нулевой слот).
+     * При {@code slots == 0} весь баланс возвращается в строку кошелька. Вызывать под {@link #lockTotal}.
+     */
+    public void redistribute(UUID walletId, long total, int slots) {
+        if (slots > 0) {
+            SqlParameterSource[] batch = new SqlParameterSource[slots];
+            for (int slot = 0; slot < slots; slot++) {
+                long share = total / slots + (slot == 0 ? total % slots : 0);
+                batch[slot] = params(walletId).addValue("slot", slot).addValue("balance", share);
+            }
+            jdbcTemplate.batchUpdate(UPSERT_SLOT_SQL, batch);
+        }
+        jdbcTemplate.update(DELETE_EXTRA_SLOTS_SQL, params(walletId).addValue("slots", slots));
+        jdbcTemplate.update(UPDATE_WALLET_SQL, params(walletId)
+                .addValue("balance", slots > 0 ? 0L : total)
+                .addValue("slots", slots));
+    }
+
+    private MapSqlParameterSource params(UUID walletId) {
+        return new MapSqlParameterSource("id", walletId);
+    }
+}
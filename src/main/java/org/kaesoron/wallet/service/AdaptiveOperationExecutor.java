@@ -0,0 +1,101 @@
+package org.kaesoron.wallet.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.metrics.OperationTrace;
+import org.kaesoron.wallet.metrics.OperationTrace.Stage;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+/**
+ * Режим ADAPTIVE: кошелёк читается без блокировки, UPDATE проверяет {@code version}, при конфликте
+ * попытка повторяется в новой транзакции. Кошельки, где конфликты частые, {@link ContentionTracker}
+ * переводит на {@code SELECT ... FOR UPDATE}, как в PESSIMISTIC, и возвращает обратно, когда конкуренция спадает.
+ * Метрики: {@code wallet.adaptive.conflicts}, {@code wallet.adaptive.fallbacks}, {@code wallet.adaptive.attempts}.
+ */
+@Service
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "ADAPTIVE")
+public class AdaptiveOperationExecutor implements WalletOperationExecutor {
+
+    private final WalletRepository walletRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ContentionTracker contentionTracker;
+    private final int maxRetries;
+    private final long contendedLockWaitNanos;
+    private final Counter conflicts;
+    private final Counter fallbacks;
+    private final DistributionSummary attempts;
+
+    public AdaptiveOperationExecutor(WalletRepository walletRepository, PlatformTransactionManager transactionManager,
+                                     WalletProperties properties, MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.contentionTracker = new ContentionTracker(properties.getAdaptive(), meterRegistry);
+        this.maxRetries = properties.getAdaptive().getMaxRetries();
+        this.contendedLockWaitNanos = properties.getAdaptive().getContendedLockWait().toNanos();
+        this.conflicts = meterRegistry.counter("wallet.adaptive.conflicts");
+        this.fallbacks = meterRegistry.counter("wallet.adaptive.fallbacks");
+        this.attempts = DistributionSummary.builder("wallet.adaptive.attempts").register(meterRegistry);
+    }
+
+    @Override
+    public long execute(WalletOperationRequest request) {
+        UUID walletId = request.getWalletId();
+        // Внутри чужой транзакции (запись ключа идемпотентности) повторять нельзя: конфликт пометит её rollback-only
+        if (TransactionSynchronizationManager.isActualTransactionActive() || contentionTracker.isPessimistic(walletId)) {
+            return transactionTemplate.execute(status -> pessimistic(request));
+        }
+
+        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            try {
+                long balance = transactionTemplate.execute(status -> optimistic(request));
+                contentionTracker.record(walletId, false);
+                attempts.record(attempt);
+                return balance;
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                contentionTracker.record(walletId, true);
+            }
+        }
+        fallbacks.increment();
+        attempts.record(maxRetries + 1);
+        return transactionTemplate.execute(status -> pessimistic(request));
+    }
+
+    private long optimistic(WalletOperationRequest request) {
+        OperationTrace.timeCommit();
+        Wallet wallet = walletRepository.findById(request.getWalletId())
+                .orElseThrow(() -> new WalletNotFoundException(request.getWalletId()));
+
+        wallet.apply(request.getOperationType(), request.getAmount());
+
+        // Конфликт версии всплывает на flush внутри попытки, а не на коммите
+        OperationTrace.time(Stage.FLUSH, walletRepository::flush);
+        return wallet.getBalance();
+    }
+
+    private long pessimistic(WalletOperationRequest request) {
+        OperationTrace.timeCommit();
+        long start = System.nanoTime();
+        Wallet wallet = OperationTrace.time(Stage.LOCK, () -> walletRepository.findByIdForUpdate(request.getWalletId()))
+                .orElseThrow(() -> new WalletNotFoundException(request.getWalletId()));
+        contentionTracker.record(request.getWalletId(), System.nanoTime() - start > contendedLockWaitNanos);
+
+        wallet.apply(request.getOperationType(), request.getAmount());
+
+        OperationTrace.time(Stage.FLUSH, walletRepository::flush);
+        return wallet.getBalance();
+    }
+}
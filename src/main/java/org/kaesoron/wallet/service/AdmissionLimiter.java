@@ -0,0 +1,68 @@
+package org.kaesoron.wallet.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Допуск запросов к базе: одновременно работают не больше {@code permits} запросов (по размеру пула),
+ * остальные ждут разрешения не дольше {@code timeout} и отклоняются, а не копятся в очереди пула Hikari.
+ * Метрики: {@code wallet.admission.waiting}, {@code wallet.admission.available},
+ * {@code wallet.admission.wait}, {@code wallet.admission.rejected}.
+ */
+public class AdmissionLimiter {
+
+    private final Semaphore permits;
+    private final long timeoutNanos;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public AdmissionLimiter(int permits, Duration timeout, MeterRegistry meterRegistry) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Admission permits must be positive: " + permits);
+        }
+        // Честная очередь: под нагрузкой разрешения достаются в порядке прихода
+        this.permits = new Semaphore(permits, true);
+        this.timeoutNanos = timeout.toNanos();
+        this.waitTimer = Timer.builder("wallet.admission.wait")
+                .description("Time spent waiting for a database permit")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("wallet.admission.rejected")
+                .description("Requests rejected because no database permit was available in time")
+                .register(meterRegistry);
+        Gauge.builder("wallet.admission.waiting", waiting, AtomicInteger::get)
+                .description("Requests waiting for a database permit")
+                .register(meterRegistry);
+        Gauge.builder("wallet.admission.available", this.permits, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+
+    public boolean tryAcquire() {
+        waiting.incrementAndGet();
+        long start = System.nanoTime();
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            rejected.increment();
+        }
+        return acquired;
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
@@ -0,0 +1,222 @@
+package org.kaesoron.wallet.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.AsyncOperationResponse;
+import org.kaesoron.wallet.dto.WalletBatchItemResult;
+import org.kaesoron.wallet.dto.WalletBatchRequest;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.AsyncOperationStatus;
+import org.kaesoron.wallet.enums.BatchItemStatus;
+import org.kaesoron.wallet.enums.BatchMode;
+import org.kaesoron.wallet.enums.ExecutionMode;
+import org.kaesoron.wallet.exceptions.IdempotencyKeyConflictException;
+import org.kaesoron.wallet.exceptions.OperationNotFoundException;
+import org.kaesoron.wallet.model.UuidV7;
+import org.kaesoron.wallet.repository.WalletIntakeRepository;
+import org.kaesoron.wallet.repository.WalletIntakeRepository.ClaimedOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронные операции: приём — одна вставка в {@code wallet_intake} без блокировок кошельков, поэтому
+ * горячий кошелёк не тормозит приём. Обработка — пачками через {@link WalletBatchService#processBatch}:
+ * все кошельки пачки блокируются одним запросом, на каждый кошелёк пишется одно итоговое приращение,
+ * так что тысяча начислений на один кошелёк — один UPDATE, а не тысяча ожиданий блокировки.
+ * Пачка, которая падает целиком, разбирается по одной операции: упавшая операция после
+ * {@code wallet.intake.max-attempts} попыток получает статус FAILED и больше не держит очередь.
+ * Метрики: {@code wallet.intake.submitted}, {@code wallet.intake.processed{status}}, {@code wallet.intake.lag}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "wallet.intake.enabled", havingValue = "true")
+public class AsyncOperationService {
+
+    private final WalletIntakeRepository walletIntakeRepository;
+    private final WalletBatchService walletBatchService;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletProperties.Intake settings;
+    private final int claimLimit;
+    private final boolean inMemory;
+    private final Counter submitted;
+    private final Counter applied;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Timer lag;
+
+    public AsyncOperationService(WalletIntakeRepository walletIntakeRepository,
+                                 WalletBatchService walletBatchService,
+                                 PlatformTransactionManager transactionManager,
+                                 WalletProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.walletIntakeRepository = walletIntakeRepository;
+        this.walletBatchService = walletBatchService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = properties.getIntake();
+        // Пачка больше лимита processBatch отвергалась бы целиком на каждом проходе
+        this.claimLimit = Math.min(settings.getBatchSize(), properties.getBatch().getMaxSize());
+        this.inMemory = properties.getExecution().getMode() == ExecutionMode.IN_MEMORY;
+        this.submitted = Counter.builder("wallet.intake.submitted").register(meterRegistry);
+        this.applied = Counter.builder("wallet.intake.processed").tag("status", "applied").register(meterRegistry);
+        this.rejected = Counter.builder("wallet.intake.processed").tag("status", "rejected").register(meterRegistry);
+        this.failed = Counter.builder("wallet.intake.processed").tag("status", "failed").register(meterRegistry);
+        this.lag = Timer.builder("wallet.intake.lag")
+                .description("Time from submission to the commit of the operation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ставит операцию в очередь. Повтор с тем же ключом идемпотентности возвращает уже принятую операцию.
+     */
+    public AsyncOperationResponse submit(WalletOperationRequest request) {
+        if (request.getOperationType() == null) {
+            throw new IllegalArgumentException("Operation type must be provided");
+        }
+        // Обработчики пишут балансы пачкой мимо движка IN_MEMORY, поэтому принятая операция никогда бы не применилась
+        if (inMemory) {
+            throw new IllegalArgumentException("Async operations are not available in IN_MEMORY mode");
+        }
+        UUID operationId = UuidV7.next();
+        try {
+            walletIntakeRepository.insert(operationId, request);
+        } catch (DuplicateKeyException e) {
+            AsyncOperationResponse existing = walletIntakeRepository.findByIdempotencyKey(request.getIdempotencyKey())
+                    .orElseThrow(() -> e);
+            if (!existing.walletId().equals(request.getWalletId())
+                    || existing.operationType() != request.getOperationType()
+                    || existing.amount() != request.getAmount()
+                    || !Objects.equals(existing.targetWalletId(), request.getTargetWalletId())) {
+                throw new IdempotencyKeyConflictException(
+                        "Idempotency key " + request.getIdempotencyKey() + " was already used for another operation");
+            }
+            return existing;
+        }
+        submitted.increment();
+        return new AsyncOperationResponse(operationId, request.getWalletId(), request.getOperationType(),
+                request.getAmount(), request.getTargetWalletId(), AsyncOperationStatus.PENDING, null, null, null,
+                Instant.now(), null);
+    }
+
+    public AsyncOperationResponse status(UUID operationId) {
+        return walletIntakeRepository.find(operationId)
+                .orElseThrow(() -> new OperationNotFoundException("Operation not found: " + operationId));
+    }
+
+    /**
+     * Обрабатывает одну пачку из очереди в одной транзакции. Возвращает число обработанных операций.
+     * Если транзакция откатилась, операции пачки разбираются по одной, каждая в своей транзакции.
+     */
+    public int drain() {
+        // Операции, принятые до переключения в IN_MEMORY, ждут возврата режима, а не копят неудачные попытки
+        if (inMemory) {
+            return 0;
+        }
+        List<ClaimedOperation> claimed = new ArrayList<>();
+        Drained drained;
+        try {
+            drained = transactionTemplate.execute(status -> {
+                List<ClaimedOperation> operations = walletIntakeRepository.claim(claimLimit);
+                claimed.addAll(operations);
+                if (operations.isEmpty()) {
+                    return new Drained(operations, List.of());
+                }
+                return process(operations);
+            });
+        } catch (RuntimeException e) {
+            if (claimed.isEmpty()) {
+                throw e;
+            }
+            log.warn("Async operation batch of {} failed, processing one by one: {}", claimed.size(), e.getMessage());
+            return drainSeparately(claimed);
+        }
+        record(drained);
+        return drained.operations().size();
+    }
+
+    // После ошибки следующие операции того же кошелька ждут следующего прохода, чтобы не обогнать упавшую
+    private int drainSeparately(List<ClaimedOperation> operations) {
+        Set<UUID> stalled = new HashSet<>();
+        int processed = 0;
+        for (ClaimedOperation operation : operations) {
+            UUID walletId = operation.request().getWalletId();
+            if (stalled.contains(walletId)) {
+                continue;
+            }
+            try {
+                Drained drained = transactionTemplate.execute(status -> walletIntakeRepository.lockPending(operation)
+                        ? process(List.of(operation))
+                        : new Drained(List.of(), List.of()));
+                record(drained);
+                processed += drained.operations().size();
+            } catch (RuntimeException e) {
+                stalled.add(walletId);
+                if (recordFailure(operation, e)) {
+                    processed++;
+                }
+            }
+        }
+        return processed;
+    }
+
+    private Drained process(List<ClaimedOperation> operations) {
+        List<WalletBatchItemResult> results = walletBatchService.processBatch(new WalletBatchRequest(
+                BatchMode.BEST_EFFORT, operations.stream().map(ClaimedOperation::request).toList())).results();
+        walletIntakeRepository.complete(operations, results, Instant.now());
+        return new Drained(operations, results);
+    }
+
+    // true — попытки исчерпаны и операция закрыта как FAILED
+    private boolean recordFailure(ClaimedOperation operation, RuntimeException cause) {
+        try {
+            Optional<AsyncOperationStatus> status = transactionTemplate.execute(tx -> walletIntakeRepository
+                    .recordFailure(operation.id(), "Processing Failed", cause.getMessage(), settings.getMaxAttempts(),
+                            Instant.now()));
+            if (status.orElse(null) != AsyncOperationStatus.FAILED) {
+                return false;
+            }
+            log.warn("Async operation {} failed after {} attempts: {}", operation.id(), settings.getMaxAttempts(),
+                    cause.getMessage());
+            failed.increment();
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not record failure of async operation {}: {}", operation.id(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.intake.cleanup-interval:10m}")
+    public void purgeProcessed() {
+        int deleted = walletIntakeRepository.deleteProcessedBefore(Instant.now().minus(settings.getRetention()));
+        if (deleted > 0) {
+            log.debug("Purged {} processed async operations", deleted);
+        }
+    }
+
+    // Время приёма берём из id: старшие 48 бит UUIDv7 — миллисекунды
+    private void record(Drained drained) {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < drained.operations().size(); i++) {
+            (drained.results().get(i).status() == BatchItemStatus.APPLIED ? applied : rejected).increment();
+            lag.record(now - (drained.operations().get(i).id().getMostSignificantBits() >>> 16), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private record Drained(List<ClaimedOperation> operations, List<WalletBatchItemResult> results) {}
+}
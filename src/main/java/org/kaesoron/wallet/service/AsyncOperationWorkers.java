@@ -0,0 +1,85 @@
+package org.kaesoron.wallet.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обработчики очереди асинхронных операций: {@code wallet.intake.workers} потоков на инстанс, каждый забирает пачки
+ * по кошелькам, которые никто другой сейчас не обрабатывает, поэтому потоки и инстансы делят очередь, не дожидаясь друг друга.
+ * Пока очередь отдаёт полные пачки, поток берёт следующую сразу; неполная пачка — пауза {@code poll-interval}.
+ * Потоки стартуют после поднятия контекста и при остановке дорабатывают текущую пачку.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.intake.enabled", havingValue = "true")
+public class AsyncOperationWorkers implements SmartLifecycle {
+
+    private static final long STOP_TIMEOUT_MILLIS = 10_000;
+
+    private final AsyncOperationService asyncOperationService;
+    private final WalletProperties.Intake settings;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public AsyncOperationWorkers(AsyncOperationService asyncOperationService, WalletProperties properties) {
+        this.asyncOperationService = asyncOperationService;
+        this.settings = properties.getIntake();
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        for (int i = 0; i < settings.getWorkers(); i++) {
+            Thread thread = new Thread(this::work, "intake-worker-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        // Без interrupt: прерванный посреди пачки JDBC-вызов только откатил бы уже сделанную работу
+        running = false;
+        long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+        for (Thread thread : threads) {
+            try {
+                thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        threads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void work() {
+        while (running) {
+            int processed = 0;
+            try {
+                processed = asyncOperationService.drain();
+            } catch (RuntimeException e) {
+                // Пачку не удалось даже забрать, операции остались в очереди
+                log.warn("Async operation batch failed: {}", e.getMessage());
+            }
+            if (processed < settings.getBatchSize()) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(settings.getPollInterval().toMillis());
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.kaesoron.wallet.service;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.metrics.OperationTrace;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Операция одним условным UPDATE ... RETURNING без загрузки сущности и dirty-checking.
+ * Блокировка строки держится только на время самого UPDATE.
+ */
+@Service
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "ATOMIC_UPDATE")
+@RequiredArgsConstructor
+public class AtomicUpdateOperationExecutor implements WalletOperationExecutor {
+
+    private final WalletRepository walletRepository;
+
+    @Override
+    @Transactional
+    public long execute(WalletOperationRequest request) {
+        OperationTrace.timeCommit();
+        UUID walletId = request.getWalletId();
+        long amount = request.getAmount();
+
+        Optional<Long> balance = switch (request.getOperationType()) {
+            case DEPOSIT -> walletRepository.applyDelta(walletId, amount, Long.MIN_VALUE);
+            case WITHDRAW -> walletRepository.applyDelta(walletId, -amount, amount);
+            default -> throw new IllegalArgumentException("Unsupported operation: " + request.getOperationType());
+        };
+        if (balance.isPresent()) {
+            return balance.get();
+        }
+
+        // Второй запрос нужен только на пути отказа, чтобы отличить отсутствующий кошелёк от нехватки средств.
+        long available = walletRepository.findBalanceById(walletId)
+                .orElseThrow(() -> new WalletNotFoundException(walletId));
+        throw new InsufficientFundsException(amount, available);
+    }
+}
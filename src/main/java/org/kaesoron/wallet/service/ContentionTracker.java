@@ -0,0 +1,95 @@
+package org.kaesoron.wallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.config.WalletProperties;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сглаженная доля конфликтов по каждому кошельку для режима ADAPTIVE. Кошелёк переходит на пессимистичный путь,
+ * когда доля доходит до {@code conflictThreshold}, и возвращается, когда она падает ниже {@code recoveryThreshold},
+ * но не раньше чем через {@code pessimisticHold}. Кошельки без операций забываются и снова идут оптимистично.
+ * Метрики: {@code wallet.adaptive.switches{to}}, {@code wallet.adaptive.pessimistic.wallets}.
+ */
+@Slf4j
+public class ContentionTracker {
+
+    private static final Duration IDLE_EXPIRY = Duration.ofMinutes(10);
+
+    private final WalletProperties.Adaptive settings;
+    private final Ticker ticker;
+    private final Cache<UUID, State> states;
+    private final AtomicInteger pessimisticWallets = new AtomicInteger();
+    private final Counter toPessimistic;
+    private final Counter toOptimistic;
+
+    public ContentionTracker(WalletProperties.Adaptive settings, MeterRegistry meterRegistry) {
+        this(settings, meterRegistry, Ticker.systemTicker());
+    }
+
+    public ContentionTracker(WalletProperties.Adaptive settings, MeterRegistry meterRegistry, Ticker ticker) {
+        this.settings = settings;
+        this.ticker = ticker;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(settings.getTrackedWallets())
+                .expireAfterAccess(IDLE_EXPIRY)
+                .ticker(ticker)
+                .<UUID, State>removalListener((walletId, state, cause) -> {
+                    if (state != null && state.pessimistic) {
+                        pessimisticWallets.decrementAndGet();
+                    }
+                })
+                .build();
+        this.toPessimistic = Counter.builder("wallet.adaptive.switches").tag("to", "pessimistic").register(meterRegistry);
+        this.toOptimistic = Counter.builder("wallet.adaptive.switches").tag("to", "optimistic").register(meterRegistry);
+        Gauge.builder("wallet.adaptive.pessimistic.wallets", pessimisticWallets, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public boolean isPessimistic(UUID walletId) {
+        State state = states.getIfPresent(walletId);
+        return state != null && state.pessimistic;
+    }
+
+    /**
+     * @param contended на оптимистичном пути — конфликт версии, на пессимистичном — долгое ожидание блокировки
+     */
+    public void record(UUID walletId, boolean contended) {
+        State state = states.get(walletId, id -> new State());
+        long now = ticker.read();
+        synchronized (state) {
+            state.rate += settings.getSmoothing() * ((contended ? 1.0 : 0.0) - state.rate);
+            if (state.rate >= settings.getConflictThreshold()) {
+                // Пока конфликты продолжаются, отсчёт удержания начинается заново
+                state.since = now;
+                if (!state.pessimistic) {
+                    state.pessimistic = true;
+                    pessimisticWallets.incrementAndGet();
+                    toPessimistic.increment();
+                    log.debug("Wallet {} switched to pessimistic locking (conflict rate {})", walletId, state.rate);
+                }
+            } else if (state.pessimistic && state.rate < settings.getRecoveryThreshold()
+                    && now - state.since >= settings.getPessimisticHold().toNanos()) {
+                state.pessimistic = false;
+                pessimisticWallets.decrementAndGet();
+                toOptimistic.increment();
+                log.debug("Wallet {} switched back to optimistic locking", walletId);
+            }
+        }
+    }
+
+    private static final class State {
+
+        private double rate;
+        private volatile boolean pessimistic;
+        private long since;
+    }
+}
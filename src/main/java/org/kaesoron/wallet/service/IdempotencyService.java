@@ -0,0 +1,111 @@
+package org.kaesoron.wallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.cache.BloomFilter;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.exceptions.IdempotencyKeyConflictException;
+import org.kaesoron.wallet.repository.IdempotencyKeyRepository;
+import org.kaesoron.wallet.repository.IdempotencyKeyRepository.StoredResult;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Идемпотентные операции. Источник истины — уникальный ключ в {@code idempotency_keys}: ключ вставляется
+ * в той же транзакции, что и операция, поэтому повтор (в том числе параллельный или после рестарта)
+ * упирается в нарушение уникальности, откатывается и возвращает сохранённый результат первой попытки.
+ * <p>
+ * Перед базой стоят два слоя в памяти: LRU последних ключей с результатами отвечает на повторы без запроса,
+ * а bloom-фильтр отсекает поиск для ключей, которые этот инстанс точно не видел — то есть для почти всех
+ * первых попыток. Сохраняются только успешные результаты: повтор неудачной операции выполняется заново.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletProperties.Idempotency settings;
+    private final Cache<String, StoredResult> recent;
+    private final AtomicInteger filtered = new AtomicInteger();
+    private volatile BloomFilter seen;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              PlatformTransactionManager transactionManager,
+                              WalletProperties properties) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = properties.getIdempotency();
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(settings.getRecentKeys())
+                .expireAfterWrite(settings.getRetention())
+                .build();
+        this.seen = newFilter();
+    }
+
+    public long execute(WalletOperationRequest request, LongSupplier operation) {
+        String key = request.getIdempotencyKey();
+
+        StoredResult known = recent.getIfPresent(key);
+        if (known == null && seen.mightContain(key)) {
+            known = idempotencyKeyRepository.find(key).orElse(null);
+        }
+        if (known != null) {
+            return replay(key, known, request);
+        }
+
+        try {
+            long balance = transactionTemplate.execute(status -> {
+                long result = operation.getAsLong();
+                idempotencyKeyRepository.insert(key, request, result);
+                return result;
+            });
+            remember(key, new StoredResult(request.getWalletId(), request.getOperationType(), request.getAmount(),
+                    balance, request.getTargetWalletId()));
+            return balance;
+        } catch (DuplicateKeyException e) {
+            // Ключ уже записан другим инстансом, параллельным запросом или до рестарта; наша операция откатилась вместе со вставкой.
+            StoredResult stored = idempotencyKeyRepository.find(key).orElseThrow(() -> e);
+            remember(key, stored);
+            return replay(key, stored, request);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.idempotency.cleanup-interval:10m}")
+    public void purgeExpired() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(Instant.now().minus(settings.getRetention()));
+        if (deleted > 0) {
+            log.debug("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private long replay(String key, StoredResult stored, WalletOperationRequest request) {
+        if (!stored.matches(request)) {
+            throw new IdempotencyKeyConflictException("Idempotency key " + key + " was already used for another operation");
+        }
+        return stored.balance();
+    }
+
+    private void remember(String key, StoredResult result) {
+        recent.put(key, result);
+        // Переполненный фильтр начинаем заново: забытые ключи всё равно поймает уникальный индекс
+        if (filtered.incrementAndGet() > settings.getExpectedKeys()) {
+            seen = newFilter();
+            filtered.set(0);
+        }
+        seen.put(key);
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(settings.getExpectedKeys(), settings.getFalsePositiveRate());
+    }
+}
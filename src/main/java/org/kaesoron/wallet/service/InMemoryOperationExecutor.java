@@ -0,0 +1,39 @@
+package org.kaesoron.wallet.service;
+
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.engine.BalanceEngine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Режим IN_MEMORY: операция применяется движком {@link BalanceEngine} без обращения к базе.
+ */
+@Service
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "IN_MEMORY")
+@RequiredArgsConstructor
+public class InMemoryOperationExecutor implements WalletOperationExecutor {
+
+    private final BalanceEngine balanceEngine;
+
+    @Override
+    public long execute(WalletOperationRequest request) {
+        // Движок не откатывается вместе с транзакцией, поэтому ключ идемпотентности не может быть атомарен с операцией
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalArgumentException("Idempotency keys are not supported in IN_MEMORY mode");
+        }
+        return switch (request.getOperationType()) {
+            case DEPOSIT, WITHDRAW -> balanceEngine.apply(request.getWalletId(), request.getOperationType(), request.getAmount());
+            default -> throw new IllegalArgumentException("Unsupported operation: " + request.getOperationType());
+        };
+    }
+
+    @Override
+    public OptionalLong currentBalance(UUID walletId) {
+        return balanceEngine.balance(walletId);
+    }
+}
@@ -0,0 +1,63 @@
+package org.kaesoron.wallet.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.repository.WalletLedgerRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Фоновая компактизация журнала: хвост операций кошелька переносится в снимок {@code wallets.balance}.
+ * Каждый кошелёк — отдельная короткая транзакция. Свёрнутые операции хранятся {@code wallet.ledger.retention}
+ * и удаляются пачками, поэтому журнал не растёт, а строки не переписываются по одной.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "LEDGER")
+public class LedgerCompactor {
+
+    private final WalletLedgerRepository walletLedgerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletProperties.Ledger settings;
+
+    public LedgerCompactor(WalletLedgerRepository walletLedgerRepository,
+                           PlatformTransactionManager transactionManager,
+                           WalletProperties properties) {
+        this.walletLedgerRepository = walletLedgerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = properties.getLedger();
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.ledger.compaction-interval:1s}")
+    public void compact() {
+        Instant now = Instant.now();
+        List<UUID> walletIds = walletLedgerRepository.findCompactionCandidates(settings.getCompactionThreshold(),
+                now.minus(settings.getCompactionMaxAge()), settings.getCompactionBatchSize());
+        for (UUID walletId : walletIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> walletLedgerRepository.compact(walletId));
+            } catch (RuntimeException e) {
+                log.warn("Ledger compaction failed for wallet {}: {}", walletId, e.getMessage());
+            }
+        }
+        purge(now.minus(settings.getRetention()));
+    }
+
+    private void purge(Instant before) {
+        try {
+            int deleted;
+            do {
+                deleted = walletLedgerRepository.purgeCompacted(before, settings.getPurgeBatchSize());
+            } while (deleted == settings.getPurgeBatchSize());
+        } catch (RuntimeException e) {
+            log.warn("Ledger purge failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.kaesoron.wallet.service;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.metrics.OperationTrace;
+import org.kaesoron.wallet.repository.WalletLedgerRepository;
+import org.kaesoron.wallet.repository.WalletLedgerRepository.ConditionalAppend;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Режим LEDGER: операции только дописываются в журнал, строка кошелька не переписывается на каждую операцию.
+ * Пополнение — один INSERT без блокировок. Списание берёт блокировку строки кошелька (без создания новой
+ * версии строки), поэтому списания одного кошелька строго последовательны и баланс не уходит в минус.
+ */
+@Service
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "LEDGER")
+@RequiredArgsConstructor
+public class LedgerOperationExecutor implements WalletOperationExecutor {
+
+    private final WalletLedgerRepository walletLedgerRepository;
+
+    @Override
+    @Transactional
+    public long execute(WalletOperationRequest request) {
+        OperationTrace.timeCommit();
+        UUID walletId = request.getWalletId();
+        long amount = request.getAmount();
+
+        return switch (request.getOperationType()) {
+            case DEPOSIT -> {
+                Long balance = walletLedgerRepository.append(walletId, request.getOperationType(), amount);
+                if (balance == null) {
+                    throw new WalletNotFoundException(walletId);
+                }
+                yield balance;
+            }
+            case WITHDRAW -> {
+                if (!walletLedgerRepository.lock(walletId)) {
+                    throw new WalletNotFoundException(walletId);
+                }
+                ConditionalAppend result = walletLedgerRepository.appendIfCovered(walletId, request.getOperationType(), -amount);
+                if (!result.appended()) {
+                    throw new InsufficientFundsException(amount, result.balance());
+                }
+                yield result.balance() - amount;
+            }
+            default -> throw new IllegalArgumentException("Unsupported operation: " + request.getOperationType());
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package org.kaesoron.wallet.service;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.metrics.OperationTrace;
+import org.kaesoron.wallet.metrics.OperationTrace.Stage;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+@Service
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "PESSIMISTIC", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PessimisticOperationExecutor implements WalletOperationExecutor {
+
+    private final WalletRepository walletRepository;
+
+    @Override
+    @Transactional
+    public long execute(WalletOperationRequest request) {
+        OperationTrace.timeCommit();
+        Wallet wallet = OperationTrace.time(Stage.LOCK, () -> walletRepository.findByIdForUpdate(request.getWalletId()))
+                .orElseThrow(() -> new WalletNotFoundException(request.getWalletId()));
+
+        wallet.apply(request.getOperationType(), request.getAmount());
+
+        walletRepository.save(wallet); // Не обязателен, Hibernate dirty-checking обновит, но пусть будет явно.
+        // Явный flush, чтобы отделить время UPDATE от времени коммита в метриках
+        OperationTrace.time(Stage.FLUSH, walletRepository::flush);
+        return wallet.getBalance();
+    }
+}
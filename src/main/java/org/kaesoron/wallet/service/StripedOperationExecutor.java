@@ -0,0 +1,109 @@
+package org.kaesoron.wallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.transaction.Transactional;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.metrics.OperationTrace;
+import org.kaesoron.wallet.repository.WalletSlotRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Режим STRIPED: баланс горячего кошелька разложен по N слотам, и операции над разными слотами
+ * не ждут друг друга. Пополнение идёт в случайный слот, списание — сначала в «свой» слот потока,
+ * а если там не хватает средств, под блокировкой всех слотов с последующей перебалансировкой.
+ * Кошельки без слотов работают как в ATOMIC_UPDATE.
+ */
+@Service
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "STRIPED")
+public class StripedOperationExecutor implements WalletOperationExecutor {
+
+    private static final int DEPOSIT_ATTEMPTS = 3;
+
+    private final WalletSlotRepository walletSlotRepository;
+    // Число слотов может устареть после конвертации; на корректность суммы это не влияет, см. WalletSlotRepository
+    private final Cache<UUID, Integer> slotCounts;
+
+    public StripedOperationExecutor(WalletSlotRepository walletSlotRepository, WalletProperties properties) {
+        this.walletSlotRepository = walletSlotRepository;
+        this.slotCounts = Caffeine.newBuilder()
+                .maximumSize(properties.getStriping().getSlotCountCacheSize())
+                .expireAfterWrite(properties.getStriping().getSlotCountTtl())
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public long execute(WalletOperationRequest request) {
+        OperationTrace.timeCommit();
+        UUID walletId = request.getWalletId();
+        long amount = request.getAmount();
+
+        return switch (request.getOperationType()) {
+            case DEPOSIT -> deposit(walletId, amount);
+            case WITHDRAW -> withdraw(walletId, amount);
+            default -> throw new IllegalArgumentException("Unsupported operation: " + request.getOperationType());
+        };
+    }
+
+    public void evictSlotCount(UUID walletId) {
+        slotCounts.invalidate(walletId);
+    }
+
+    private long deposit(UUID walletId, long amount) {
+        for (int attempt = 0; attempt < DEPOSIT_ATTEMPTS; attempt++) {
+            int slots = slotCount(walletId);
+            Long balance = slots == 0
+                    ? walletSlotRepository.applyToWallet(walletId, amount, Long.MIN_VALUE)
+                    : walletSlotRepository.applyToSlot(walletId, ThreadLocalRandom.current().nextInt(slots), amount,
+                    Long.MIN_VALUE);
+            if (balance != null) {
+                return balance;
+            }
+            // Слот исчез (кошелёк переконвертировали) или кошелька нет — перечитываем число слотов.
+            slotCounts.invalidate(walletId);
+        }
+        Long balance = walletSlotRepository.applyToWallet(walletId, amount, Long.MIN_VALUE);
+        if (balance == null) {
+            throw new WalletNotFoundException(walletId);
+        }
+        return balance;
+    }
+
+    private long withdraw(UUID walletId, long amount) {
+        int slots = slotCount(walletId);
+        Long balance = slots == 0
+                ? walletSlotRepository.applyToWallet(walletId, -amount, amount)
+                : walletSlotRepository.applyToSlot(walletId, localSlot(slots), -amount, amount);
+        if (balance != null) {
+            return balance;
+        }
+
+        long total = walletSlotRepository.lockTotal(walletId)
+                .orElseThrow(() -> new WalletNotFoundException(walletId));
+        if (total < amount) {
+            throw new InsufficientFundsException(amount, total);
+        }
+        int currentSlots = walletSlotRepository.findSlotCount(walletId).orElse(0);
+        slotCounts.put(walletId, currentSlots);
+        walletSlotRepository.redistribute(walletId, total - amount, currentSlots);
+        return total - amount;
+    }
+
+    private int slotCount(UUID walletId) {
+        return slotCounts.get(walletId, id -> walletSlotRepository.findSlotCount(id)
+                .orElseThrow(() -> new WalletNotFoundException(id)));
+    }
+
+    // Один и тот же поток приходит в один и тот же слот: меньше пересечений между потоками одного инстанса.
+    private int localSlot(int slots) {
+        return (int) (Thread.currentThread().threadId() % slots);
+    }
+}
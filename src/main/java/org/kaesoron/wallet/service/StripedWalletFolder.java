@@ -0,0 +1,75 @@
+package org.kaesoron.wallet.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.enums.ExecutionMode;
+import org.kaesoron.wallet.repository.WalletSlotRepository;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Кошельки, разложенные по слотам в режиме STRIPED, при старте в любом другом режиме сворачиваются обратно
+ * в строку {@code wallets}: остальные режимы проверяют списание по строке и отказывали бы при достаточном
+ * балансе, а эндпоинтов конвертации вне STRIPED нет. Каждый кошелёк — своя транзакция под теми же блокировками,
+ * что и у {@link WalletStripingService}, поэтому свёртка безопасна и рядом с ещё работающими инстансами STRIPED.
+ */
+@Slf4j
+@Component
+public class StripedWalletFolder implements SmartLifecycle {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final WalletSlotRepository walletSlotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean striped;
+    private volatile boolean running;
+
+    public StripedWalletFolder(WalletSlotRepository walletSlotRepository, PlatformTransactionManager transactionManager,
+                               WalletProperties properties) {
+        this.walletSlotRepository = walletSlotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.striped = properties.getExecution().getMode() == ExecutionMode.STRIPED;
+    }
+
+    @Override
+    public void start() {
+        if (!striped) {
+            long folded = 0;
+            for (List<UUID> walletIds = walletSlotRepository.findStripedWalletIds(BATCH_SIZE); !walletIds.isEmpty();
+                 walletIds = walletSlotRepository.findStripedWalletIds(BATCH_SIZE)) {
+                walletIds.forEach(this::fold);
+                folded += walletIds.size();
+            }
+            if (folded > 0) {
+                log.info("Folded {} striped wallets back into their rows", folded);
+            }
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Раньше движка IN_MEMORY и веб-сервера: первая операция уже видит весь баланс в строке
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 3;
+    }
+
+    private void fold(UUID walletId) {
+        transactionTemplate.executeWithoutResult(status -> walletSlotRepository.lockTotal(walletId)
+                .ifPresent(total -> walletSlotRepository.redistribute(walletId, total, 0)));
+    }
+}
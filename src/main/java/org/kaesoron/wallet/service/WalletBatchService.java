@@ -0,0 +1,248 @@
+package org.kaesoron.wallet.service;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.cache.BalanceCache;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletBalanceItem;
+import org.kaesoron.wallet.dto.WalletBalancesResponse;
+import org.kaesoron.wallet.dto.WalletBatchItemResult;
+import org.kaesoron.wallet.dto.WalletBatchRequest;
+import org.kaesoron.wallet.dto.WalletBatchResponse;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.BatchItemStatus;
+import org.kaesoron.wallet.enums.BatchMode;
+import org.kaesoron.wallet.enums.ExecutionMode;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.IdempotencyKeyConflictException;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.IdempotencyKeyRepository;
+import org.kaesoron.wallet.repository.IdempotencyKeyRepository.StoredResult;
+import org.kaesoron.wallet.repository.WalletBatchRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class WalletBatchService {
+
+    private final WalletBatchRepository walletBatchRepository;
+    private final WalletProperties properties;
+    private final BalanceCache balanceCache;
+    private final WalletOperationExecutor operationExecutor;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    /**
+     * Применяет пачку операций в одной транзакции: все кошельки блокируются одним запросом в порядке id,
+     * операции считаются в памяти по порядку, итоговые приращения пишутся одним JDBC-батчем.
+     * Операция с уже записанным idempotencyKey не применяется повторно, а возвращает сохранённый баланс;
+     * ключи новых операций пишутся в той же транзакции.
+     */
+    @Transactional
+    public WalletBatchResponse processBatch(WalletBatchRequest request) {
+        requireDatabaseBalances();
+        List<WalletOperationRequest> operations = request.getOperations();
+        int maxSize = properties.getBatch().getMaxSize();
+        if (operations.size() > maxSize) {
+            throw new IllegalArgumentException("Batch size " + operations.size() + " exceeds limit " + maxSize);
+        }
+
+        Set<UUID> walletIds = new LinkedHashSet<>();
+        operations.forEach(operation -> {
+            walletIds.add(operation.getWalletId());
+            if (operation.getTargetWalletId() != null) {
+                walletIds.add(operation.getTargetWalletId());
+            }
+        });
+
+        Map<UUID, Long> initial = walletBatchRepository.lockBalances(walletIds);
+        Map<UUID, Wallet> wallets = new HashMap<>();
+        initial.forEach((id, balance) -> wallets.put(id, new Wallet(id, balance)));
+
+        List<WalletBatchItemResult> results = new ArrayList<>(operations.size());
+        Map<UUID, Long> changed = new LinkedHashMap<>();
+        // Ключи операций, применённых этой пачкой, и индексы повторов уже закоммиченных операций
+        Map<String, StoredResult> recorded = new LinkedHashMap<>();
+        Set<Integer> replayed = new HashSet<>();
+        int rejected = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            WalletOperationRequest operation = operations.get(i);
+            UUID walletId = operation.getWalletId();
+            UUID targetId = operation.getTargetWalletId();
+            String key = operation.getIdempotencyKey();
+            if (key != null) {
+                StoredResult stored = recorded.containsKey(key)
+                        ? recorded.get(key)
+                        : idempotencyKeyRepository.find(key).orElse(null);
+                if (stored != null) {
+                    if (!stored.matches(operation)) {
+                        results.add(rejected(i, walletId, "Idempotency Key Conflict",
+                                "Idempotency key " + key + " was already used for another operation"));
+                        rejected++;
+                    } else {
+                        if (!recorded.containsKey(key)) {
+                            replayed.add(i);
+                        }
+                        results.add(new WalletBatchItemResult(i, walletId, BatchItemStatus.APPLIED, stored.balance(),
+                                null, null));
+                    }
+                    continue;
+                }
+            }
+            Wallet wallet = wallets.get(walletId);
+            Wallet target = targetId == null ? null : wallets.get(targetId);
+            if (wallet == null || (targetId != null && target == null)) {
+                UUID missingId = wallet == null ? walletId : targetId;
+                results.add(rejected(i, walletId, "Wallet Not Found", "Wallet not found: " + missingId));
+                rejected++;
+                continue;
+            }
+            try {
+                if (operation.getOperationType() == OperationType.TRANSFER) {
+                    wallet.transferTo(target, operation.getAmount());
+                    changed.put(targetId, target.getBalance());
+                } else {
+                    wallet.apply(operation.getOperationType(), operation.getAmount());
+                }
+            } catch (InsufficientFundsException e) {
+                results.add(rejected(i, walletId, "Insufficient Funds", e.getMessage()));
+                rejected++;
+                continue;
+            }
+            changed.put(walletId, wallet.getBalance());
+            if (key != null) {
+                recorded.put(key, new StoredResult(walletId, operation.getOperationType(), operation.getAmount(),
+                        wallet.getBalance(), targetId));
+            }
+            results.add(new WalletBatchItemResult(i, walletId, BatchItemStatus.APPLIED, wallet.getBalance(), null, null));
+        }
+
+        if (rejected > 0 && request.getMode() == BatchMode.ALL_OR_NOTHING) {
+            // Ничего не записано, откатывать в базе нечего: помечаем применённые в памяти операции как отменённые.
+            // Повторы уже закоммиченных операций остаются применёнными.
+            List<WalletBatchItemResult> rolledBack = results.stream()
+                    .map(result -> result.status() == BatchItemStatus.APPLIED && !replayed.contains(result.index())
+                            ? new WalletBatchItemResult(result.index(), result.walletId(), BatchItemStatus.ROLLED_BACK,
+                            null, null, null)
+                            : result)
+                    .toList();
+            return new WalletBatchResponse(request.getMode(), replayed.size(), rejected, rolledBack);
+        }
+
+        Map<UUID, Long> deltas = new LinkedHashMap<>();
+        changed.forEach((id, balance) -> deltas.put(id, balance - initial.get(id)));
+        walletBatchRepository.applyDeltas(deltas);
+        recordKeys(recorded);
+        balanceCache.invalidateAll(changed.keySet());
+        return new WalletBatchResponse(request.getMode(), operations.size() - rejected, rejected, results);
+    }
+
+    /**
+     * Перевод между кошельками одной транзакцией. Обе строки блокируются одним запросом в порядке id,
+     * как в пачке, поэтому встречные переводы и пересекающиеся пачки не дают дедлоков.
+     * Возвращает баланс кошелька-источника после списания.
+     */
+    @Transactional
+    public long transfer(WalletOperationRequest request) {
+        requireDatabaseBalances();
+        UUID sourceId = request.getWalletId();
+        UUID targetId = request.getTargetWalletId();
+        if (targetId == null || targetId.equals(sourceId)) {
+            throw new IllegalArgumentException("Transfer requires a target wallet different from the source");
+        }
+        long amount = request.getAmount();
+
+        Map<UUID, Long> balances = walletBatchRepository.lockBalances(List.of(sourceId, targetId));
+        Wallet source = wallet(balances, sourceId);
+        Wallet target = wallet(balances, targetId);
+        source.transferTo(target, amount);
+
+        walletBatchRepository.applyDeltas(Map.of(sourceId, -amount, targetId, amount));
+        balanceCache.invalidateAll(List.of(sourceId, targetId));
+        return source.getBalance();
+    }
+
+    /**
+     * Балансы многих кошельков: сначала из памяти исполнителя (IN_MEMORY), затем из кэша, остальные id
+     * читаются одним запросом.
+     * Отсутствующие кошельки помечаются в ответе, а не валят весь запрос. Порядок и повторы id сохраняются.
+     */
+    public WalletBalancesResponse getBalances(List<UUID> walletIds) {
+        int maxSize = properties.getBatch().getMaxBalanceLookup();
+        if (walletIds.size() > maxSize) {
+            throw new IllegalArgumentException("Lookup size " + walletIds.size() + " exceeds limit " + maxSize);
+        }
+
+        Set<UUID> unique = new LinkedHashSet<>(walletIds);
+        Map<UUID, Long> balances = new HashMap<>();
+        // Как в WalletService.getBalance: баланс в памяти движка новее и кэша, и базы
+        unique.removeIf(walletId -> {
+            OptionalLong current = operationExecutor.currentBalance(walletId);
+            current.ifPresent(balance -> balances.put(walletId, balance));
+            return current.isPresent();
+        });
+        Map<UUID, Long> cached = balanceCache.getAllPresent(unique);
+        balances.putAll(cached);
+        unique.removeAll(cached.keySet());
+        if (!unique.isEmpty()) {
+            // Промахи читаются с реплики и в кэш не кладутся
+            balances.putAll(walletBatchRepository.findBalances(unique));
+        }
+
+        List<WalletBalanceItem> results = new ArrayList<>(walletIds.size());
+        int missing = 0;
+        for (UUID walletId : walletIds) {
+            Long balance = balances.get(walletId);
+            if (balance == null) {
+                missing++;
+            }
+            results.add(new WalletBalanceItem(walletId, balance, balance == null ? "Wallet Not Found" : null));
+        }
+        return new WalletBalancesResponse(walletIds.size() - missing, missing, results);
+    }
+
+    private Wallet wallet(Map<UUID, Long> balances, UUID walletId) {
+        Long balance = balances.get(walletId);
+        if (balance == null) {
+            throw new WalletNotFoundException(walletId);
+        }
+        return new Wallet(walletId, balance);
+    }
+
+    private void recordKeys(Map<String, StoredResult> recorded) {
+        recorded.forEach((key, stored) -> {
+            try {
+                idempotencyKeyRepository.insert(key, new WalletOperationRequest(stored.walletId(),
+                        stored.operationType(), stored.amount(), key, stored.targetWalletId()), stored.balance());
+            } catch (DuplicateKeyException e) {
+                // Ключ записал параллельный запрос; пачка откатывается, повтор вернёт его результат
+                throw new IdempotencyKeyConflictException("Idempotency key " + key
+                        + " is being used by a concurrent request, retry the batch");
+            }
+        });
+    }
+
+    private WalletBatchItemResult rejected(int index, UUID walletId, String error, String message) {
+        return new WalletBatchItemResult(index, walletId, BatchItemStatus.REJECTED, null, error, message);
+    }
+
+    // В режиме IN_MEMORY балансы живут в движке: запись мимо него затёрла бы ближайшая контрольная точка
+    private void requireDatabaseBalances() {
+        if (properties.getExecution().getMode() == ExecutionMode.IN_MEMORY) {
+            throw new IllegalArgumentException("Batch operations and transfers are not available in IN_MEMORY mode");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.kaesoron.wallet.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.repository.WalletExportRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+/**
+ * Выгрузка всех балансов в NDJSON для сверки. Строки пишутся в ответ по мере чтения курсора,
+ * в памяти держится не больше одной порции {@code wallet.export.fetch-size}.
+ */
+@Service
+public class WalletExportService {
+
+    private final WalletExportRepository walletExportRepository;
+    private final WalletOperationExecutor operationExecutor;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int fetchSize;
+
+    public WalletExportService(WalletExportRepository walletExportRepository, WalletOperationExecutor operationExecutor,
+                               ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                               WalletProperties properties) {
+        this.walletExportRepository = walletExportRepository;
+        this.operationExecutor = operationExecutor;
+        this.objectMapper = objectMapper;
+        // REPEATABLE READ в Postgres — один снимок на всю выгрузку; читатели MVCC не блокируют писателей
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transactionTemplate.setReadOnly(true);
+        this.fetchSize = properties.getExport().getFetchSize();
+    }
+
+    /**
+     * Пишет по строке {@code {"walletId":...,"balance":...}} на кошелёк в порядке id. Прерванную выгрузку можно
+     * продолжить с {@code after} = последний полученный walletId; продолжение читает уже новый снимок.
+     * В режиме IN_MEMORY баланс загруженного в движок кошелька берётся из памяти: в базе он отстаёт
+     * до контрольной точки, поэтому такая выгрузка — не один снимок, а текущие балансы на момент строки.
+     */
+    public void exportBalances(UUID after, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            transactionTemplate.executeWithoutResult(status ->
+                    walletExportRepository.streamBalances(after, fetchSize, (walletId, balance) -> {
+                        generator.writeStartObject();
+                        generator.writeStringField("walletId", walletId.toString());
+                        generator.writeNumberField("balance", operationExecutor.currentBalance(walletId).orElse(balance));
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
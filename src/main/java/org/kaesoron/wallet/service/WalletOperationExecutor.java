@@ -0,0 +1,21 @@
+package org.kaesoron.wallet.service;
+
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+
+import java.util.OptionalLong;
+import java.util.UUID;
+
+public interface WalletOperationExecutor {
+
+    /**
+     * Применяет операцию к кошельку и возвращает баланс после её фиксации.
+     */
+    long execute(WalletOperationRequest request);
+
+    /**
+     * Баланс, который исполнитель держит сам и который новее базы; пусто — баланс читается из базы.
+     */
+    default OptionalLong currentBalance(UUID walletId) {
+        return OptionalLong.empty();
+    }
+}
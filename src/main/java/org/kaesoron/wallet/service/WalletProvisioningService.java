@@ -0,0 +1,69 @@
+package org.kaesoron.wallet.service;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletBalanceResponse;
+import org.kaesoron.wallet.dto.WalletBulkCreateResponse;
+import org.kaesoron.wallet.dto.WalletCreateRequest;
+import org.kaesoron.wallet.exceptions.WalletAlreadyExistsException;
+import org.kaesoron.wallet.model.UuidV7;
+import org.kaesoron.wallet.repository.WalletProvisioningRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class WalletProvisioningService {
+
+    private final WalletProvisioningRepository walletProvisioningRepository;
+    private final WalletProperties properties;
+
+    public WalletBalanceResponse create(WalletCreateRequest request) {
+        UUID walletId = idOf(request);
+        insert(Map.of(walletId, request.getInitialBalance()));
+        return new WalletBalanceResponse(walletId, request.getInitialBalance());
+    }
+
+    /**
+     * Создаёт пачку кошельков целиком или никак. Кошельки без id получают UUIDv7 по порядку элементов,
+     * поэтому большие пачки ложатся в индекс первичного ключа последовательно.
+     */
+    @Transactional
+    public WalletBulkCreateResponse createAll(List<WalletCreateRequest> requests) {
+        int maxSize = properties.getBatch().getMaxCreate();
+        if (requests.size() > maxSize) {
+            throw new IllegalArgumentException("Bulk size " + requests.size() + " exceeds limit " + maxSize);
+        }
+
+        Map<UUID, Long> balances = new LinkedHashMap<>(requests.size() * 2);
+        List<UUID> walletIds = new ArrayList<>(requests.size());
+        for (WalletCreateRequest request : requests) {
+            UUID walletId = idOf(request);
+            if (balances.put(walletId, request.getInitialBalance()) != null) {
+                throw new IllegalArgumentException("Duplicate walletId in request: " + walletId);
+            }
+            walletIds.add(walletId);
+        }
+        insert(balances);
+        return new WalletBulkCreateResponse(walletIds.size(), walletIds);
+    }
+
+    private void insert(Map<UUID, Long> balances) {
+        try {
+            walletProvisioningRepository.insert(balances);
+        } catch (DuplicateKeyException e) {
+            throw new WalletAlreadyExistsException(e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private static UUID idOf(WalletCreateRequest request) {
+        return request.getWalletId() != null ? request.getWalletId() : UuidV7.next();
+    }
+}
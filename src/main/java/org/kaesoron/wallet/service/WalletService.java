@@ -1,13 +1,17 @@
 package org.kaesoron.wallet.service;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.cache.BalanceCache;
 import org.kaesoron.wallet.exceptions.WalletNotFoundException;
 import org.kaesoron.wallet.dto.WalletOperationRequest;
-import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.metrics.OperationTrace;
+import org.kaesoron.wallet.metrics.OperationTrace.Stage;
+import org.kaesoron.wallet.metrics.WalletMetrics;
 import org.kaesoron.wallet.repository.WalletRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.OptionalLong;
 import java.util.UUID;
 
 @Service
@@ -15,30 +19,49 @@ import java.util.UUID;
 public class WalletService {
 
     private final WalletRepository walletRepository;
+    private final WalletOperationExecutor operationExecutor;
+    private final WalletBatchService walletBatchService;
+    private final BalanceCache balanceCache;
+    private final IdempotencyService idempotencyService;
+    private final WalletMetrics walletMetrics;
 
-    @Transactional
+    // Транзакцию открывает исполнитель: в режиме WRITE_COMBINING вызывающий поток не должен держать соединение, пока ждёт свой батч.
     public void processOperation(WalletOperationRequest request) {
-        Wallet wallet = walletRepository.findByIdForUpdate(request.getWalletId())
-                .orElseThrow(() -> new WalletNotFoundException("Wallet not found: " + request.getWalletId()));
-
         if (request.getOperationType() == null) {
             throw new IllegalArgumentException("Operation type must be provided");
         }
 
-        switch (request.getOperationType()) {
-            case DEPOSIT -> wallet.deposit(request.getAmount());
-            case WITHDRAW -> wallet.withdraw(request.getAmount());
-            default -> throw new IllegalArgumentException("Unsupported operation: " + request.getOperationType());
-        }
+        walletMetrics.record(request.getOperationType().name(), request.getWalletId(), () ->
+                request.getIdempotencyKey() == null
+                        ? execute(request)
+                        : idempotencyService.execute(request, () -> execute(request)));
+    }
 
-        walletRepository.save(wallet); // Не обязателен, Hibernate dirty-checking обновит, но пусть будет явно.
+    // Ключ кэша удаляется после коммита (в том числе внешней транзакции ключа идемпотентности), следующее чтение загрузит баланс заново.
+    private long execute(WalletOperationRequest request) {
+        // Перевод затрагивает два кошелька и во всех режимах идёт через упорядоченную блокировку пачки
+        long balance = OperationTrace.time(Stage.EXECUTE, () -> request.getOperationType() == OperationType.TRANSFER
+                ? walletBatchService.transfer(request)
+                : operationExecutor.execute(request));
+        balanceCache.invalidate(request.getWalletId());
+        return balance;
     }
 
-    @Transactional
+    // Без собственной транзакции: при попадании в кэш соединение с базой не берётся вовсе.
+    // Без кэша чтение идёт на реплику, в кэш же попадает только баланс с primary.
+    // Баланс, который исполнитель держит в памяти (IN_MEMORY), важнее и кэша, и базы.
     public long getBalance(UUID walletId) {
-        Wallet wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new WalletNotFoundException("Wallet not found: " + walletId));
-
-        return wallet.getBalance();
+        return walletMetrics.record("BALANCE", null, () -> {
+            OptionalLong current = operationExecutor.currentBalance(walletId);
+            if (current.isPresent()) {
+                return current.getAsLong();
+            }
+            if (!balanceCache.isEnabled()) {
+                return OperationTrace.time(Stage.QUERY, () -> walletRepository.findBalanceById(walletId))
+                        .orElseThrow(() -> new WalletNotFoundException(walletId));
+            }
+            return balanceCache.get(walletId, id -> OperationTrace.time(Stage.QUERY, () -> walletRepository.findPrimaryBalanceById(id))
+                    .orElseThrow(() -> new WalletNotFoundException(id)));
+        });
     }
-}
\ No newline at end of file
+}
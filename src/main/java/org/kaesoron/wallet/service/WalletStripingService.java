@@ -0,0 +1,48 @@
+package org.kaesoron.wallet.service;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.repository.WalletSlotRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Перевод кошелька в полосатый вид и обратно. Конвертация — одна короткая транзакция под
+ * блокировкой строки кошелька и его слотов, сумма баланса при этом не меняется, поэтому
+ * чтение и операции продолжают работать во время конвертации.
+ */
+@Service
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "STRIPED")
+@RequiredArgsConstructor
+public class WalletStripingService {
+
+    private final WalletSlotRepository walletSlotRepository;
+    private final StripedOperationExecutor stripedOperationExecutor;
+    private final WalletProperties properties;
+
+    @Transactional
+    public long stripe(UUID walletId, int slots) {
+        int maxSlots = properties.getStriping().getMaxSlots();
+        if (slots < 2 || slots > maxSlots) {
+            throw new IllegalArgumentException("Slot count must be between 2 and " + maxSlots);
+        }
+        return convert(walletId, slots);
+    }
+
+    @Transactional
+    public long unstripe(UUID walletId) {
+        return convert(walletId, 0);
+    }
+
+    private long convert(UUID walletId, int slots) {
+        long total = walletSlotRepository.lockTotal(walletId)
+                .orElseThrow(() -> new WalletNotFoundException(walletId));
+        walletSlotRepository.redistribute(walletId, total, slots);
+        stripedOperationExecutor.evictSlotCount(walletId);
+        return total;
+    }
+}
@@ -0,0 +1,160 @@
+package org.kaesoron.wallet.service;
+
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.metrics.OperationTrace;
+import org.kaesoron.wallet.metrics.OperationTrace.Stage;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group commit для горячих кошельков: операции одного кошелька копятся в очереди, и поток,
+ * захвативший блокировку комбайнера, применяет их пачкой в одной транзакции под одной
+ * блокировкой строки и одним UPDATE. Каждый вызывающий получает свой результат.
+ */
+@Service
+@ConditionalOnProperty(name = "wallet.execution.mode", havingValue = "WRITE_COMBINING")
+public class WriteCombiningOperationExecutor implements WalletOperationExecutor {
+
+    private final WalletRepository walletRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final ConcurrentMap<UUID, WalletQueue> queues = new ConcurrentHashMap<>();
+
+    public WriteCombiningOperationExecutor(WalletRepository walletRepository,
+                                           PlatformTransactionManager transactionManager,
+                                           WalletProperties properties) {
+        this.walletRepository = walletRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = properties.getExecution().getMaxBatchSize();
+    }
+
+    @Override
+    public long execute(WalletOperationRequest request) {
+        UUID walletId = request.getWalletId();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Вызывающий держит свою транзакцию (например, ради ключа идемпотентности): чужие операции в неё не подмешиваем.
+            return applyInCurrentTransaction(walletId, request);
+        }
+
+        PendingOperation operation = new PendingOperation(request.getOperationType(), request.getAmount());
+
+        WalletQueue queue = queues.computeIfAbsent(walletId, id -> new WalletQueue());
+        queue.pending.add(operation);
+
+        while (!operation.done) {
+            queue.combiner.lock();
+            try {
+                if (!operation.done) {
+                    combine(walletId, queue);
+                }
+            } finally {
+                queue.combiner.unlock();
+            }
+        }
+
+        // Очередь могла опустеть; если кто-то успел добавить операцию в удалённую очередь, он сам её и применит.
+        if (queue.pending.isEmpty()) {
+            queues.remove(walletId, queue);
+        }
+
+        if (operation.failure != null) {
+            throw operation.failure;
+        }
+        return operation.balance;
+    }
+
+    private long applyInCurrentTransaction(UUID walletId, WalletOperationRequest request) {
+        OperationTrace.timeCommit();
+        Wallet wallet = OperationTrace.time(Stage.LOCK, () -> walletRepository.findByIdForUpdate(walletId))
+                .orElseThrow(() -> new WalletNotFoundException(walletId));
+        wallet.apply(request.getOperationType(), request.getAmount());
+        walletRepository.save(wallet);
+        return wallet.getBalance();
+    }
+
+    private void combine(UUID walletId, WalletQueue queue) {
+        List<PendingOperation> batch = new ArrayList<>();
+        PendingOperation next;
+        while (batch.size() < maxBatchSize && (next = queue.pending.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long[] balances = new long[batch.size()];
+        RuntimeException[] failures = new RuntimeException[batch.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Стадии пишутся в операцию потока-комбайнера: он ждёт блокировку за всю пачку
+                OperationTrace.timeCommit();
+                Wallet wallet = OperationTrace.time(Stage.LOCK, () -> walletRepository.findByIdForUpdate(walletId))
+                        .orElseThrow(() -> new WalletNotFoundException(walletId));
+
+                for (int i = 0; i < batch.size(); i++) {
+                    PendingOperation operation = batch.get(i);
+                    try {
+                        wallet.apply(operation.operationType, operation.amount);
+                        balances[i] = wallet.getBalance();
+                    } catch (InsufficientFundsException | IllegalArgumentException e) {
+                        failures[i] = e;
+                    }
+                }
+
+                walletRepository.save(wallet);
+            });
+        } catch (RuntimeException e) {
+            for (PendingOperation operation : batch) {
+                operation.complete(0L, e);
+            }
+            return;
+        }
+
+        // Результаты отдаём только после коммита, чтобы никто не увидел откатившийся баланс.
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(balances[i], failures[i]);
+        }
+    }
+
+    private static final class WalletQueue {
+        private final ConcurrentLinkedQueue<PendingOperation> pending = new ConcurrentLinkedQueue<>();
+        private final ReentrantLock combiner = new ReentrantLock();
+    }
+
+    private static final class PendingOperation {
+        private final OperationType operationType;
+        private final long amount;
+        private long balance;
+        private RuntimeException failure;
+        // Публикуется под блокировкой комбайнера, но читается и вне её.
+        private volatile boolean done;
+
+        private PendingOperation(OperationType operationType, long amount) {
+            this.operationType = operationType;
+            this.amount = amount;
+        }
+
+        private void complete(long balance, RuntimeException failure) {
+            this.balance = balance;
+            this.failure = failure;
+            this.done = true;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import org.kaesoron.wallet.Application;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Поднимает контекст приложения для бенчмарков. База берётся из BENCH_DATASOURCE_URL
+ * (BENCH_DATASOURCE_USERNAME / BENCH_DATASOURCE_PASSWORD), иначе запускается контейнер Postgres.
+ */
+final class BenchmarkEnvironment {
+
+    private static PostgreSQLContainer<?> postgres;
+
+    private BenchmarkEnvironment() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return start(WebApplicationType.NONE, properties);
+    }
+
+    // С HTTP-сервером на случайном порту: порт — local.server.port
+    static ConfigurableApplicationContext startWeb(String... properties) {
+        List<String> all = new ArrayList<>(List.of("server.port=0"));
+        all.addAll(List.of(properties));
+        return start(WebApplicationType.SERVLET, all.toArray(String[]::new));
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, String... properties) {
+        List<String> all = new ArrayList<>(datasourceProperties());
+        all.addAll(List.of(properties));
+        // Аргументами командной строки, а не default properties: иначе их перекрывают плейсхолдеры из application.yaml
+        return new SpringApplicationBuilder(Application.class)
+                .web(type)
+                .run(all.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    private static synchronized List<String> datasourceProperties() {
+        String url = System.getenv("BENCH_DATASOURCE_URL");
+        if (url != null) {
+            return List.of(
+                    "spring.datasource.url=" + url,
+                    "spring.datasource.username=" + System.getenv("BENCH_DATASOURCE_USERNAME"),
+                    "spring.datasource.password=" + System.getenv("BENCH_DATASOURCE_PASSWORD"));
+        }
+        if (postgres == null) {
+            postgres = new PostgreSQLContainer<>("postgres:15")
+                    .withDatabaseName("walletdb")
+                    .withUsername("wallet")
+                    .withPassword("wallet");
+            postgres.start();
+        }
+        return List.of(
+                "spring.datasource.url=" + postgres.getJdbcUrl(),
+                "spring.datasource.username=" + postgres.getUsername(),
+                "spring.datasource.password=" + postgres.getPassword());
+    }
+}
@@ -0,0 +1,108 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.kaesoron.wallet.controller.WalletController;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.handler.GlobalExceptionHandler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пути ошибок: создание исключения и сборка тела ответа в {@link GlobalExceptionHandler}.
+ * Отказы (нехватка средств, неизвестный кошелёк) под нагрузкой так же часты, как успешные операции.
+ * {@code legacy*} воспроизводят прежний путь (исключение со стеком, тело в {@code HashMap}) для сравнения;
+ * {@code *Serialized} включают запись тела в JSON. Аллокации на операцию — в колонке {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final UUID walletId = UUID.randomUUID();
+    private MethodParameter operateParameter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        operateParameter = new MethodParameter(
+                WalletController.class.getMethod("operate", WalletOperationRequest.class), 0);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> walletNotFound() {
+        return handler.handleWalletNotFound(new WalletNotFoundException(walletId));
+    }
+
+    @Benchmark
+    public ResponseEntity<?> insufficientFunds() {
+        return handler.handleInsufficientFunds(new InsufficientFundsException(1_000L, 10L));
+    }
+
+    @Benchmark
+    public byte[] insufficientFundsSerialized() throws Exception {
+        return objectMapper.writeValueAsBytes(insufficientFunds().getBody());
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyWalletNotFound() {
+        return legacyBody("Wallet Not Found", new LegacyException("Wallet not found: " + walletId).getMessage());
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyInsufficientFunds() {
+        return legacyBody("Insufficient Funds",
+                new LegacyException("Insufficient funds: requested " + 1_000L + ", available " + 10L).getMessage());
+    }
+
+    @Benchmark
+    public byte[] legacyInsufficientFundsSerialized() throws Exception {
+        return objectMapper.writeValueAsBytes(legacyInsufficientFunds());
+    }
+
+    @Benchmark
+    public ResponseEntity<?> validationFailed() {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new WalletOperationRequest(), "request");
+        bindingResult.rejectValue("walletId", "NotNull", "must not be null");
+        bindingResult.rejectValue("amount", "Positive", "must be greater than 0");
+        return handler.handleValidation(new MethodArgumentNotValidException(operateParameter, bindingResult));
+    }
+
+    @Benchmark
+    public ResponseEntity<?> illegalArgument() {
+        return handler.handleIllegalArgument(new IllegalArgumentException("Operation type must be provided"));
+    }
+
+    private Map<String, Object> legacyBody(String error, String message) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", Instant.now());
+        body.put("status", 422);
+        body.put("error", error);
+        body.put("message", message);
+        return body;
+    }
+
+    private static class LegacyException extends RuntimeException {
+        LegacyException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.kaesoron.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение режимов исполнения processOperation: один горячий кошелёк и операции, размазанные по многим кошелькам.
+ * PESSIMISTIC — путь через JPA, IN_MEMORY — движок в памяти с журналом (каталог журнала временный).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+public class ExecutionModeBenchmark {
+
+    @Param({"PESSIMISTIC", "ATOMIC_UPDATE", "WRITE_COMBINING", "IN_MEMORY"})
+    public String mode;
+
+    @Param({"1", "1000"})
+    public int wallets;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private UUID[] walletIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkEnvironment.start("wallet.execution.mode=" + mode,
+                "wallet.engine.journal-dir=" + Files.createTempDirectory("wallet-journal"));
+        walletService = context.getBean(WalletService.class);
+        WalletRepository walletRepository = context.getBean(WalletRepository.class);
+
+        walletIds = new UUID[wallets];
+        for (int i = 0; i < wallets; i++) {
+            walletIds[i] = UUID.randomUUID();
+            walletRepository.save(new Wallet(walletIds[i], 1_000_000L));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void depositThenWithdraw() {
+        UUID walletId = walletIds[ThreadLocalRandom.current().nextInt(walletIds.length)];
+        walletService.processOperation(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 10L));
+        walletService.processOperation(new WalletOperationRequest(walletId, OperationType.WITHDRAW, 10L));
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.dto.WalletBalanceResponse;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson на горячем пути API: разбор тела операции и запись ответа с балансом в каждом из форматов,
+ * которые отдаёт {@code CodecConfig}. {@code JSON_INDENTED} — прежний {@code INDENT_OUTPUT}.
+ * Размеры тел печатаются в начале прогона.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    public enum Format { JSON_INDENTED, JSON, CBOR, SMILE }
+
+    @Param({"JSON_INDENTED", "JSON", "CBOR", "SMILE"})
+    public Format format;
+
+    private ObjectReader requestReader;
+    private ObjectWriter responseWriter;
+    private byte[] requestBody;
+    private WalletBalanceResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Тот же построитель, которым Spring Boot собирает ObjectMapper для MVC
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        switch (format) {
+            case JSON_INDENTED -> builder.featuresToEnable(SerializationFeature.INDENT_OUTPUT);
+            case CBOR -> builder.factory(new CBORFactory());
+            case SMILE -> builder.factory(new SmileFactory());
+            default -> { }
+        }
+        ObjectMapper objectMapper = builder.build();
+        requestReader = objectMapper.readerFor(WalletOperationRequest.class);
+        responseWriter = objectMapper.writerFor(WalletBalanceResponse.class);
+
+        UUID walletId = UUID.randomUUID();
+        requestBody = objectMapper.writeValueAsBytes(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 1000L));
+        response = new WalletBalanceResponse(walletId, 123_456_789L);
+        log.info("{}: request {} B, response {} B", format, requestBody.length,
+                responseWriter.writeValueAsBytes(response).length);
+    }
+
+    @Benchmark
+    public WalletOperationRequest readOperationRequest() throws IOException {
+        return requestReader.readValue(requestBody);
+    }
+
+    @Benchmark
+    public byte[] writeBalanceResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.kaesoron.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись на месте (PESSIMISTIC) против журнала (LEDGER): пропускная способность записи и распухание таблиц.
+ * После каждого прогона в лог выводятся n_dead_tup и размер таблиц wallets / wallet_operations.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(16)
+public class LedgerBloatBenchmark {
+
+    private static final String TABLE_STATS_SQL = """
+            SELECT relname, n_live_tup, n_dead_tup, pg_total_relation_size(relid) AS total_bytes
+            FROM pg_stat_user_tables WHERE relname IN ('wallets', 'wallet_operations') ORDER BY relname
+            """;
+
+    @Param({"PESSIMISTIC", "LEDGER"})
+    public String mode;
+
+    @Param({"1", "100"})
+    public int wallets;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private JdbcTemplate jdbcTemplate;
+    private UUID[] walletIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkEnvironment.start("wallet.execution.mode=" + mode);
+        walletService = context.getBean(WalletService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        WalletRepository walletRepository = context.getBean(WalletRepository.class);
+
+        walletIds = new UUID[wallets];
+        for (int i = 0; i < wallets; i++) {
+            walletIds[i] = UUID.randomUUID();
+            walletRepository.save(new Wallet(walletIds[i], 1_000_000L));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportBloat() {
+        // Статистика сбрасывается в pg_stat_* асинхронно; PG 15+ позволяет форсировать сброс
+        jdbcTemplate.execute("SELECT pg_stat_force_next_flush()");
+        for (Map<String, Object> row : jdbcTemplate.queryForList(TABLE_STATS_SQL)) {
+            log.info("[{}] {}: live={} dead={} bytes={}", mode,
+                    row.get("relname"), row.get("n_live_tup"), row.get("n_dead_tup"), row.get("total_bytes"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void write() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UUID walletId = walletIds[random.nextInt(walletIds.length)];
+        OperationType type = random.nextBoolean() ? OperationType.DEPOSIT : OperationType.WITHDRAW;
+        walletService.processOperation(new WalletOperationRequest(walletId, type, 1L));
+    }
+}
@@ -0,0 +1,370 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный прогон по HTTP: поднимает приложение (база — как у бенчмарков, см. {@link BenchmarkEnvironment}),
+ * создаёт кошельки и гоняет смесь пополнений, списаний и чтений баланса из множества клиентов.
+ * Задержки пишутся в HdrHistogram по каждому типу операции, в конце проверяется, что сумма балансов
+ * равна начальной плюс пополнения минус списания.
+ * <p>
+ * Сценарии: {@code HOT} — все клиенты на одном кошельке, {@code UNIFORM} — равномерно по многим кошелькам.
+ * Нагрузка открытая: клиенты шлют запросы по расписанию с общей частотой {@code loadtest.rate}, задержка считается
+ * от запланированного момента отправки, а не от фактического. Если приложение не успевает, запросы копят опоздание
+ * и оно попадает в хвосты распределения — иначе замкнутые клиенты просто реже спрашивали бы в самые медленные
+ * моменты (coordinated omission). Созданные кошельки удаляются в конце прогона.
+ * Отчёт — {@code target/loadtest/*.json} и распределения {@code *.hgrm} для HdrHistogram plotter.
+ * <pre>
+ * mvn -Ploadtest test -Dloadtest.scenario=HOT -Dloadtest.clients=1000 -Dloadtest.rate=5000 -Dloadtest.app=wallet.execution.mode=ATOMIC_UPDATE
+ * </pre>
+ */
+public final class LoadHarness {
+
+    private static final int SEED_CHUNK = 10_000;
+    private static final String TOTAL_SQL = "SELECT COALESCE(SUM(balance), 0) FROM wallet_balances WHERE id = ANY(?)";
+    private static final List<String> CLEANUP_SQL = List.of(
+            "DELETE FROM wallet_operations WHERE wallet_id = ANY(?)",
+            "DELETE FROM wallet_slots WHERE wallet_id = ANY(?)",
+            "DELETE FROM wallets WHERE id = ANY(?)");
+
+    enum Scenario { HOT, UNIFORM }
+
+    enum Operation { DEPOSIT, WITHDRAW, BALANCE }
+
+    private final Settings settings;
+    private final JdbcTemplate jdbcTemplate;
+    private final String baseUrl;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final LongAdder deposited = new LongAdder();
+    private final LongAdder withdrawn = new LongAdder();
+    private final LongAdder insufficientFunds = new LongAdder();
+    private final LongAdder withdrawals = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    // Запросы с неизвестным исходом (обрыв, 5xx): с ними проверка суммы может разойтись без ошибки в приложении
+    private final LongAdder uncertain = new LongAdder();
+
+    private UUID[] walletIds;
+
+    private LoadHarness(Settings settings, ConfigurableApplicationContext context) {
+        this.settings = settings;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1";
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Recorder(3));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        int exitCode;
+        try (ConfigurableApplicationContext context = BenchmarkEnvironment.startWeb(settings.appProperties())) {
+            Map<String, Object> report = new LoadHarness(settings, context).run();
+            exitCode = Boolean.TRUE.equals(report.get("conserved")) ? 0 : 1;
+        }
+        System.exit(exitCode);
+    }
+
+    private Map<String, Object> run() throws Exception {
+        try {
+            seed();
+            long initialTotal = total();
+
+            long start = System.nanoTime();
+            long measureFrom = start + settings.warmup().toNanos();
+            long end = measureFrom + settings.duration().toNanos();
+            // Каждый клиент шлёт раз в interval, клиенты сдвинуты друг относительно друга на равные доли
+            long interval = Math.round(settings.clients() * 1e9 / settings.rate());
+
+            ExecutorService clients = Executors.newFixedThreadPool(settings.clients());
+            for (int i = 0; i < settings.clients(); i++) {
+                long first = start + interval * i / settings.clients();
+                clients.execute(() -> drive(first, interval, measureFrom, end));
+            }
+            clients.shutdown();
+            if (!clients.awaitTermination(settings.duration().plus(settings.warmup()).toSeconds() + 60, TimeUnit.SECONDS)) {
+                clients.shutdownNow();
+            }
+
+            long expectedTotal = initialTotal + deposited.sum() - withdrawn.sum();
+            long actualTotal = total();
+            return report(expectedTotal, actualTotal);
+        } finally {
+            cleanup();
+        }
+    }
+
+    private void seed() {
+        int wallets = settings.wallets();
+        walletIds = new UUID[wallets];
+        for (int from = 0; from < wallets; from += SEED_CHUNK) {
+            List<Object[]> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(from + SEED_CHUNK, wallets); i++) {
+                walletIds[i] = UUID.randomUUID();
+                batch.add(new Object[]{walletIds[i], settings.initialBalance()});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO wallets (id, balance) VALUES (?, ?)", batch);
+        }
+    }
+
+    private long total() {
+        long total = 0;
+        for (int from = 0; from < walletIds.length; from += SEED_CHUNK) {
+            UUID[] chunk = Arrays.copyOfRange(walletIds, from, Math.min(from + SEED_CHUNK, walletIds.length));
+            Long sum = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                Array ids = connection.createArrayOf("uuid", chunk);
+                try (PreparedStatement statement = connection.prepareStatement(TOTAL_SQL)) {
+                    statement.setArray(1, ids);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        resultSet.next();
+                        return resultSet.getLong(1);
+                    }
+                } finally {
+                    ids.free();
+                }
+            });
+            total += sum;
+        }
+        return total;
+    }
+
+    // База общая с другими прогонами и бенчмарками: после себя оставляем только историю idempotency_keys
+    private void cleanup() {
+        for (int from = 0; from < walletIds.length; from += SEED_CHUNK) {
+            UUID[] chunk = Arrays.copyOfRange(walletIds, from, Math.min(from + SEED_CHUNK, walletIds.length));
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                Array ids = connection.createArrayOf("uuid", chunk);
+                try {
+                    for (String sql : CLEANUP_SQL) {
+                        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                            statement.setArray(1, ids);
+                            statement.executeUpdate();
+                        }
+                    }
+                    return null;
+                } finally {
+                    ids.free();
+                }
+            });
+        }
+    }
+
+    private void drive(long first, long interval, long measureFrom, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long intended = first; intended < end; intended += interval) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = settings.pick(random.nextInt(100));
+            UUID walletId = walletIds[random.nextInt(walletIds.length)];
+            long amount = 1 + random.nextInt(settings.maxAmount());
+
+            int status;
+            try {
+                status = send(operation, walletId, amount);
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long latencyMicros = (System.nanoTime() - intended) / 1_000;
+            boolean measured = intended >= measureFrom;
+
+            if (status == 200) {
+                if (operation == Operation.DEPOSIT) {
+                    deposited.add(amount);
+                } else if (operation == Operation.WITHDRAW) {
+                    withdrawn.add(amount);
+                }
+            } else if (status == 422) {
+                if (measured) {
+                    insufficientFunds.increment();
+                }
+            } else {
+                if (operation != Operation.BALANCE && (status < 0 || status >= 500)) {
+                    uncertain.increment();
+                }
+                if (measured) {
+                    errors.increment();
+                }
+            }
+            if (measured) {
+                latencies.get(operation).recordValue(latencyMicros);
+                if (operation == Operation.WITHDRAW) {
+                    withdrawals.increment();
+                }
+            }
+        }
+    }
+
+    private int send(Operation operation, UUID walletId, long amount) throws IOException, InterruptedException {
+        HttpRequest request = switch (operation) {
+            case BALANCE -> HttpRequest.newBuilder(URI.create(baseUrl + "/wallets/" + walletId)).GET().build();
+            case DEPOSIT, WITHDRAW -> HttpRequest.newBuilder(URI.create(baseUrl + "/wallet"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"walletId\":\"" + walletId + "\",\"operationType\":\""
+                            + operation + "\",\"amount\":" + amount + "}"))
+                    .build();
+        };
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private Map<String, Object> report(long expectedTotal, long actualTotal) throws IOException {
+        Path directory = Path.of("target", "loadtest");
+        Files.createDirectories(directory);
+        String name = settings.scenario().name().toLowerCase() + "-" + settings.clients() + "c-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+
+        double seconds = settings.duration().toNanos() / 1e9;
+        long totalOperations = 0;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation).getIntervalHistogram();
+            totalOperations += histogram.getTotalCount();
+            operations.put(operation.name(), summary(histogram, seconds));
+            try (PrintStream out = new PrintStream(directory.resolve(name + "-" + operation.name().toLowerCase() + ".hgrm")
+                    .toFile())) {
+                // Значения в микросекундах, распределение — в миллисекундах, как ждёт plotter
+                histogram.outputPercentileDistribution(out, 1_000.0);
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("scenario", settings.scenario().name());
+        report.put("clients", settings.clients());
+        report.put("wallets", settings.wallets());
+        report.put("durationSeconds", settings.duration().toSeconds());
+        report.put("warmupSeconds", settings.warmup().toSeconds());
+        report.put("targetRate", settings.rate());
+        report.put("mix", settings.mixDescription());
+        report.put("app", Arrays.asList(settings.appProperties()));
+        report.put("throughput", Math.round(totalOperations / seconds));
+        report.put("operations", operations);
+        long withdrawCount = withdrawals.sum();
+        report.put("insufficientFundsRate", withdrawCount == 0 ? 0.0 : (double) insufficientFunds.sum() / withdrawCount);
+        report.put("errors", errors.sum());
+        report.put("uncertain", uncertain.sum());
+        report.put("expectedTotal", expectedTotal);
+        report.put("actualTotal", actualTotal);
+        report.put("conserved", expectedTotal == actualTotal);
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String json = objectMapper.writeValueAsString(report);
+        Files.writeString(directory.resolve(name + ".json"), json);
+        System.out.println(json);
+        return report;
+    }
+
+    private static Map<String, Object> summary(Histogram histogram, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("throughput", Math.round(histogram.getTotalCount() / seconds));
+        summary.put("p50Micros", histogram.getValueAtPercentile(50));
+        summary.put("p90Micros", histogram.getValueAtPercentile(90));
+        summary.put("p99Micros", histogram.getValueAtPercentile(99));
+        summary.put("p999Micros", histogram.getValueAtPercentile(99.9));
+        summary.put("maxMicros", histogram.getMaxValue());
+        return summary;
+    }
+
+    /**
+     * @param rate запросов в секунду от всех клиентов вместе
+     * @param mix  доли DEPOSIT, WITHDRAW и BALANCE в процентах, в сумме 100
+     */
+    record Settings(Scenario scenario, int clients, int rate, int wallets, Duration duration, Duration warmup, int[] mix,
+                    int maxAmount, long initialBalance, String[] appProperties) {
+
+        static Settings fromSystemProperties() {
+            Scenario scenario = Scenario.valueOf(System.getProperty("loadtest.scenario", "HOT").toUpperCase());
+            int wallets = Integer.getInteger("loadtest.wallets", 0);
+            if (wallets <= 0) {
+                wallets = scenario == Scenario.HOT ? 1 : 1_000_000;
+            }
+            int[] mix = parseMix(System.getProperty("loadtest.mix", "DEPOSIT=45,WITHDRAW=45,BALANCE=10"));
+            String app = System.getProperty("loadtest.app", "");
+            String[] appProperties = app.isBlank() ? new String[0] : app.split(";");
+            return new Settings(scenario,
+                    Integer.getInteger("loadtest.clients", 1000),
+                    Integer.getInteger("loadtest.rate", 5000),
+                    wallets,
+                    DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "60s")),
+                    DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "10s")),
+                    mix,
+                    Integer.getInteger("loadtest.max-amount", 100),
+                    Long.getLong("loadtest.initial-balance", 10_000L),
+                    appProperties);
+        }
+
+        private static int[] parseMix(String value) {
+            int[] mix = new int[Operation.values().length];
+            for (String part : value.split(",")) {
+                String[] pair = part.split("=");
+                mix[Operation.valueOf(pair[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(pair[1].trim());
+            }
+            if (Arrays.stream(mix).sum() != 100) {
+                throw new IllegalArgumentException("loadtest.mix must add up to 100: " + value);
+            }
+            return mix;
+        }
+
+        Operation pick(int percent) {
+            int bound = 0;
+            for (Operation operation : Operation.values()) {
+                bound += mix[operation.ordinal()];
+                if (percent < bound) {
+                    return operation;
+                }
+            }
+            return Operation.BALANCE;
+        }
+
+        String mixDescription() {
+            StringBuilder description = new StringBuilder();
+            for (Operation operation : Operation.values()) {
+                if (!description.isEmpty()) {
+                    description.append(',');
+                }
+                description.append(operation).append('=').append(mix[operation.ordinal()]);
+            }
+            return description.toString();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.model.Wallet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Доменная модель без базы: стоимость deposit / withdraw и пути отказа с исключением.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalletDomainBenchmark {
+
+    private Wallet wallet;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        wallet = new Wallet(UUID.randomUUID(), Long.MAX_VALUE / 2);
+    }
+
+    @Benchmark
+    public long deposit() {
+        wallet.deposit(10L);
+        return wallet.getBalance();
+    }
+
+    @Benchmark
+    public long withdraw() {
+        wallet.withdraw(10L);
+        return wallet.getBalance();
+    }
+
+    @Benchmark
+    public long applyDeposit() {
+        wallet.apply(OperationType.DEPOSIT, 10L);
+        return wallet.getBalance();
+    }
+
+    @Benchmark
+    public Object withdrawInsufficientFunds() {
+        try {
+            wallet.withdraw(Long.MAX_VALUE);
+            return null;
+        } catch (InsufficientFundsException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kaesoron.wallet.dto.WalletCreateRequest;
+import org.kaesoron.wallet.model.UuidV7;
+import org.kaesoron.wallet.service.WalletProvisioningService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Создание кошельков со случайными (v4) и упорядоченными по времени (v7) id: пропускная способность вставки
+ * и рост индекса первичного ключа. Одна операция — пачка из {@code batchSize} кошельков (от
+ * {@code wallet.batch.copy-threshold} строк — COPY), строк в секунду = ops/s × batchSize.
+ * После каждого прогона в лог выводятся прирост {@code wallets_pkey} на строку и чтения его страниц с диска:
+ * v4 раскидывает вставки по всему дереву, v7 дописывает правый край.
+ * Размеры считаются как разница до и после прогона, поэтому бенчмарк не чистит таблицу и безопасен для общей базы.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(4)
+public class WalletIdBenchmark {
+
+    private static final String INDEX_STATS_SQL = """
+            SELECT pg_relation_size('wallets_pkey') AS index_bytes,
+                   (SELECT idx_blks_read FROM pg_statio_user_indexes WHERE indexrelname = 'wallets_pkey') AS blocks_read
+            """;
+
+    public enum IdVersion {
+        V4(UUID::randomUUID),
+        V7(UuidV7::next);
+
+        private final Supplier<UUID> generator;
+
+        IdVersion(Supplier<UUID> generator) {
+            this.generator = generator;
+        }
+    }
+
+    @Param({"V4", "V7"})
+    public IdVersion idVersion;
+
+    @Param({"1", "10000"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private WalletProvisioningService walletProvisioningService;
+    private JdbcTemplate jdbcTemplate;
+    private final LongAdder inserted = new LongAdder();
+    private long indexBytesBefore;
+    private long blocksReadBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkEnvironment.start();
+        walletProvisioningService = context.getBean(WalletProvisioningService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Map<String, Object> stats = jdbcTemplate.queryForMap(INDEX_STATS_SQL);
+        indexBytesBefore = number(stats.get("index_bytes"));
+        blocksReadBefore = number(stats.get("blocks_read"));
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportIndex() {
+        jdbcTemplate.execute("SELECT pg_stat_force_next_flush()");
+        Map<String, Object> stats = jdbcTemplate.queryForMap(INDEX_STATS_SQL);
+        long rows = Math.max(1, inserted.sum());
+        long indexBytes = number(stats.get("index_bytes")) - indexBytesBefore;
+        long blocksRead = number(stats.get("blocks_read")) - blocksReadBefore;
+        log.info("[{}, batch {}] rows={} wallets_pkey +{} bytes ({} B/row), blocks read from disk {}",
+                idVersion, batchSize, rows, indexBytes, String.format("%.1f", (double) indexBytes / rows), blocksRead);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void create() {
+        List<WalletCreateRequest> wallets = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            wallets.add(new WalletCreateRequest(idVersion.generator.get(), 0L));
+        }
+        walletProvisioningService.createAll(wallets);
+        inserted.add(batchSize);
+    }
+
+    // Статистика индекса появляется не сразу после создания таблицы
+    private static long number(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+}
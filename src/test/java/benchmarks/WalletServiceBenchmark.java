@@ -0,0 +1,61 @@
+package benchmarks;
+
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.kaesoron.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка одной операции WalletService с настройками по умолчанию, без конкуренции.
+ * Для работы без сети задайте BENCH_DATASOURCE_URL на локальный Postgres.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WalletServiceBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private UUID walletId;
+    private WalletOperationRequest deposit;
+    private WalletOperationRequest withdraw;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkEnvironment.start();
+        walletService = context.getBean(WalletService.class);
+        walletId = UUID.randomUUID();
+        context.getBean(WalletRepository.class).save(new Wallet(walletId, 1_000_000_000L));
+        deposit = new WalletOperationRequest(walletId, OperationType.DEPOSIT, 10L);
+        withdraw = new WalletOperationRequest(walletId, OperationType.WITHDRAW, 10L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void processDeposit() {
+        walletService.processOperation(deposit);
+    }
+
+    @Benchmark
+    public void processWithdraw() {
+        walletService.processOperation(withdraw);
+    }
+
+    @Benchmark
+    public long getBalance() {
+        return walletService.getBalance(walletId);
+    }
+}
@@ -0,0 +1,64 @@
+package integrationTests;
+
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.Application;
+import org.kaesoron.wallet.metrics.StartupReport;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Старт в профиле {@code fast-start}: схема только сверяется с changelog, JPA поднимается в фоне.
+ * Бюджет на время готовности задаётся {@code -Dstartup.budget} (по умолчанию 15s) — на медленных агентах его поднимают.
+ */
+@Testcontainers
+public class StartupBudgetTest {
+
+    private static final Duration BUDGET = Duration.parse("PT" + System.getProperty("startup.budget", "15s"));
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("walletdb")
+            .withUsername("wallet")
+            .withPassword("wallet");
+
+    @Test
+    void shouldStartWithinBudget_whenSchemaIsCurrent() {
+        assertThatThrownBy(() -> start("fast-start").close())
+                .hasStackTraceContaining("Database schema is behind the changelog");
+
+        // Миграции применяет отдельный запуск, как job перед выкладкой
+        start("default").close();
+
+        try (ConfigurableApplicationContext context = start("fast-start")) {
+            Map<String, Duration> phases = context.getBean(StartupReport.class).phases();
+            Duration ready = phases.values().stream().reduce(Duration.ZERO, Duration::plus);
+
+            assertThat(phases).containsKeys("datasource", "liquibase", "jpa", "web", "beans", "context", "other");
+            assertThat(ready).isLessThan(BUDGET);
+            assertThat(context.getBean(WalletRepository.class).findById(UUID.randomUUID())).isEmpty();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String profile) {
+        return new SpringApplicationBuilder(Application.class)
+                .applicationStartup(new BufferingApplicationStartup(10_000))
+                .profiles(profile)
+                // Аргументами, а не properties(): свойства по умолчанию перекрыл бы ${SPRING_DATASOURCE_URL} из application.yaml
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "--spring.datasource.username=" + postgres.getUsername(),
+                        "--spring.datasource.password=" + postgres.getPassword(),
+                        "--server.port=0");
+    }
+}
@@ -0,0 +1,129 @@
+package integrationTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.Application;
+import org.kaesoron.wallet.dto.AsyncOperationResponse;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.AsyncOperationStatus;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.kaesoron.wallet.service.AsyncOperationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Поток асинхронных начислений на один горячий кошелёк: приём не ждёт блокировки кошелька,
+ * а обработчики применяют пачку одним приращением.
+ */
+@SpringBootTest(classes = Application.class)
+@Testcontainers
+public class WalletAsyncIntakeTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 250;
+    private static final long AMOUNT = 10L;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("walletdb")
+            .withUsername("wallet")
+            .withPassword("wallet");
+    @Autowired
+    private AsyncOperationService asyncOperationService;
+    @Autowired
+    private WalletRepository walletRepository;
+    private UUID walletId;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("wallet.intake.enabled", () -> "true");
+    }
+
+    @BeforeEach
+    void setup() {
+        walletId = UUID.randomUUID();
+        walletRepository.save(new Wallet(walletId, 0L));
+    }
+
+    @Test
+    void hotWalletDepositsAreAllApplied() throws Exception {
+        Queue<UUID> operationIds = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    operationIds.add(asyncOperationService.submit(
+                            new WalletOperationRequest(walletId, OperationType.DEPOSIT, AMOUNT)).operationId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        assertThat(operationIds).hasSize(THREADS * OPERATIONS_PER_THREAD);
+
+        for (UUID operationId : operationIds) {
+            assertThat(awaitProcessed(operationId).status()).isEqualTo(AsyncOperationStatus.APPLIED);
+        }
+        assertThat(walletRepository.findById(walletId).orElseThrow().getBalance())
+                .isEqualTo(THREADS * OPERATIONS_PER_THREAD * AMOUNT);
+    }
+
+    @Test
+    void rejectedOperationReportsReason() throws Exception {
+        AsyncOperationResponse accepted = asyncOperationService.submit(
+                new WalletOperationRequest(walletId, OperationType.WITHDRAW, 500L));
+
+        AsyncOperationResponse processed = awaitProcessed(accepted.operationId());
+
+        assertThat(processed.status()).isEqualTo(AsyncOperationStatus.REJECTED);
+        assertThat(processed.error()).isEqualTo("Insufficient Funds");
+        assertThat(processed.processedAt()).isNotNull();
+    }
+
+    @Test
+    void retryWithSameKeyIsQueuedOnce() {
+        WalletOperationRequest request = new WalletOperationRequest(walletId, OperationType.DEPOSIT, 100L, "async-retry");
+
+        AsyncOperationResponse first = asyncOperationService.submit(request);
+        AsyncOperationResponse retry = asyncOperationService.submit(request);
+
+        assertThat(retry.operationId()).isEqualTo(first.operationId());
+        assertThat(awaitProcessed(first.operationId()).status()).isEqualTo(AsyncOperationStatus.APPLIED);
+        assertThat(walletRepository.findById(walletId).orElseThrow().getBalance()).isEqualTo(100L);
+    }
+
+    private AsyncOperationResponse awaitProcessed(UUID operationId) {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (true) {
+            AsyncOperationResponse response = asyncOperationService.status(operationId);
+            if (response.status() != AsyncOperationStatus.PENDING || System.currentTimeMillis() > deadline) {
+                return response;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return response;
+            }
+        }
+    }
+}
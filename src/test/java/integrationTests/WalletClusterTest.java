@@ -0,0 +1,178 @@
+package integrationTests;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kaesoron.wallet.Application;
+import org.kaesoron.wallet.cluster.ClusterForwarder;
+import org.kaesoron.wallet.cluster.ClusterMembership;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Два инстанса приложения в одной JVM на разных портах поверх одной базы: запросы приходят на любой,
+ * а применяет их владелец кошелька.
+ */
+@Testcontainers
+public class WalletClusterTest {
+
+    private static final int WALLETS = 20;
+    private static final int OPERATIONS = 400;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("walletdb")
+            .withUsername("wallet")
+            .withPassword("wallet");
+
+    @TempDir
+    Path dir;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private final List<String> urls = new ArrayList<>();
+    private final List<UUID> walletIds = new ArrayList<>();
+    private Path membersFile;
+
+    @BeforeEach
+    void setup() throws IOException {
+        urls.add("http://localhost:" + freePort());
+        urls.add("http://localhost:" + freePort());
+        membersFile = dir.resolve("members");
+        Files.write(membersFile, urls);
+        for (String url : urls) {
+            nodes.add(start(url));
+        }
+
+        WalletRepository walletRepository = nodes.get(0).getBean(WalletRepository.class);
+        for (int i = 0; i < WALLETS; i++) {
+            UUID walletId = UUID.randomUUID();
+            walletRepository.save(new Wallet(walletId, 0L));
+            walletIds.add(walletId);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void operationsSentToAnyNode_shouldBeAppliedByOwner() throws Exception {
+        long[] expected = new long[WALLETS];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int wallet = random.nextInt(WALLETS);
+            assertThat(deposit(urls.get(random.nextInt(urls.size())), walletIds.get(wallet), 5)).isEqualTo(200);
+            expected[wallet] += 5;
+        }
+
+        WalletRepository walletRepository = nodes.get(1).getBean(WalletRepository.class);
+        for (int i = 0; i < WALLETS; i++) {
+            assertThat(walletRepository.findBalanceById(walletIds.get(i))).contains(expected[i]);
+        }
+        // Около половины запросов пришло не к владельцу, и каждый узел переслал свою часть
+        assertThat(nodes).allSatisfy(node -> assertThat(forwarded(node)).isPositive());
+        assertThat(nodes.stream().mapToDouble(this::forwarded).sum()).isLessThan(OPERATIONS);
+    }
+
+    @Test
+    void forwardHeaderFromClient_shouldNotBypassOwner() throws Exception {
+        ClusterMembership membership = nodes.get(0).getBean(ClusterMembership.class);
+        UUID walletId = walletIds.stream().filter(id -> urls.get(1).equals(membership.owner(id))).findFirst().orElseThrow();
+        double before = forwarded(nodes.get(0));
+
+        String body = "{\"walletId\":\"" + walletId + "\",\"operationType\":\"DEPOSIT\",\"amount\":1}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(urls.get(0) + "/api/v1/wallet"))
+                .header("Content-Type", "application/json")
+                .header(ClusterForwarder.FORWARDED_HEADER, urls.get(1))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        assertThat(httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(200);
+
+        assertThat(forwarded(nodes.get(0))).isEqualTo(before + 1);
+    }
+
+    @Test
+    void shouldAnswerUnavailable_whenOwnerIsDown() throws Exception {
+        ClusterMembership membership = nodes.get(0).getBean(ClusterMembership.class);
+        UUID walletId = walletIds.stream().filter(id -> urls.get(1).equals(membership.owner(id))).findFirst().orElseThrow();
+        nodes.get(1).close();
+
+        assertThat(deposit(urls.get(0), walletId, 1)).isEqualTo(503);
+        assertThat(nodes.get(0).getBean(WalletRepository.class).findBalanceById(walletId)).contains(0L);
+    }
+
+    @Test
+    void shouldRebalance_whenMemberLeaves() throws Exception {
+        Files.write(membersFile, List.of(urls.get(0)));
+        ClusterMembership membership = nodes.get(0).getBean(ClusterMembership.class);
+        for (int i = 0; i < 100 && membership.members().size() != 1; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(membership.members()).containsExactly(urls.get(0));
+
+        double before = forwarded(nodes.get(0));
+        for (UUID walletId : walletIds) {
+            assertThat(deposit(urls.get(0), walletId, 1)).isEqualTo(200);
+        }
+
+        assertThat(forwarded(nodes.get(0))).isEqualTo(before);
+        assertThat(walletIds).allSatisfy(id -> assertThat(
+                nodes.get(0).getBean(WalletRepository.class).findBalanceById(id)).contains(1L));
+    }
+
+    private ConfigurableApplicationContext start(String url) {
+        return new SpringApplicationBuilder(Application.class).run(
+                "--server.port=" + URI.create(url).getPort(),
+                "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                "--spring.datasource.username=" + postgres.getUsername(),
+                "--spring.datasource.password=" + postgres.getPassword(),
+                "--wallet.cluster.enabled=true",
+                "--wallet.cluster.self=" + url,
+                "--wallet.cluster.secret=cluster-test",
+                "--wallet.cluster.members-file=" + membersFile,
+                "--wallet.cluster.refresh-interval=100ms");
+    }
+
+    private int deposit(String url, UUID walletId, long amount) throws Exception {
+        String body = "{\"walletId\":\"" + walletId + "\",\"operationType\":\"DEPOSIT\",\"amount\":" + amount + "}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/v1/wallet"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private double forwarded(ConfigurableApplicationContext node) {
+        return node.getBean(MeterRegistry.class).get("wallet.cluster.forward").tag("outcome", "applied").timer().count();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package integrationTests;
+
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.Application;
+import org.kaesoron.wallet.dto.AsyncOperationResponse;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.AsyncOperationStatus;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.model.UuidV7;
+import org.kaesoron.wallet.repository.WalletIntakeRepository;
+import org.kaesoron.wallet.repository.WalletIntakeRepository.ClaimedOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Разбор очереди по кошелькам и учёт неудачных попыток на настоящем PostgreSQL, без фоновых обработчиков.
+ */
+@SpringBootTest(classes = Application.class)
+@Testcontainers
+public class WalletIntakeClaimTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("walletdb")
+            .withUsername("wallet")
+            .withPassword("wallet");
+    @Autowired
+    private WalletIntakeRepository walletIntakeRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("wallet.intake.enabled", () -> "true");
+        registry.add("wallet.intake.workers", () -> "0");
+    }
+
+    @Test
+    void concurrentClaimsShouldTakeDisjointWallets() throws Exception {
+        UUID hot = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        List<UUID> hotOperations = List.of(submit(hot), submit(hot), submit(hot));
+        List<UUID> otherOperations = List.of(submit(other), submit(other));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Первая транзакция забирает только голову очереди — две операции горячего кошелька — и держит его
+        CompletableFuture<List<ClaimedOperation>> first = CompletableFuture.supplyAsync(() ->
+                transactionTemplate.execute(status -> {
+                    List<ClaimedOperation> operations = walletIntakeRepository.claim(2);
+                    claimed.countDown();
+                    await(release);
+                    return operations;
+                }));
+        assertThat(claimed.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            // Третья операция горячего кошелька не достаётся второй транзакции, и та не ждёт первую
+            List<ClaimedOperation> second = CompletableFuture.supplyAsync(() ->
+                    transactionTemplate.execute(status -> walletIntakeRepository.claim(10))).get(5, TimeUnit.SECONDS);
+            assertThat(second).extracting(ClaimedOperation::id).containsExactlyElementsOf(otherOperations);
+        } finally {
+            release.countDown();
+        }
+        assertThat(first.get(10, TimeUnit.SECONDS)).extracting(ClaimedOperation::id)
+                .containsExactlyElementsOf(hotOperations.subList(0, 2));
+    }
+
+    @Test
+    void operationShouldFailAfterMaxAttempts() {
+        UUID operationId = submit(UUID.randomUUID());
+
+        assertThat(recordFailure(operationId)).contains(AsyncOperationStatus.PENDING);
+        assertThat(recordFailure(operationId)).contains(AsyncOperationStatus.PENDING);
+        assertThat(recordFailure(operationId)).contains(AsyncOperationStatus.FAILED);
+
+        AsyncOperationResponse operation = walletIntakeRepository.find(operationId).orElseThrow();
+        assertThat(operation.status()).isEqualTo(AsyncOperationStatus.FAILED);
+        assertThat(operation.message()).isEqualTo("boom");
+        assertThat(operation.processedAt()).isNotNull();
+        List<ClaimedOperation> pending = new TransactionTemplate(transactionManager)
+                .execute(status -> walletIntakeRepository.claim(10));
+        assertThat(pending).extracting(ClaimedOperation::id).doesNotContain(operationId);
+    }
+
+    private Optional<AsyncOperationStatus> recordFailure(UUID operationId) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                walletIntakeRepository.recordFailure(operationId, "Processing Failed", "boom", 3, Instant.now()));
+    }
+
+    private UUID submit(UUID walletId) {
+        UUID operationId = UuidV7.next();
+        walletIntakeRepository.insert(operationId, new WalletOperationRequest(walletId, OperationType.DEPOSIT, 1L));
+        return operationId;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
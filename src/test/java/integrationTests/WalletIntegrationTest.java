@@ -5,7 +5,12 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.kaesoron.wallet.Application;
+import org.kaesoron.wallet.dto.WalletBatchRequest;
+import org.kaesoron.wallet.dto.WalletBulkCreateRequest;
+import org.kaesoron.wallet.dto.WalletBulkCreateResponse;
+import org.kaesoron.wallet.dto.WalletCreateRequest;
 import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.BatchMode;
 import org.kaesoron.wallet.enums.OperationType;
 import org.kaesoron.wallet.model.Wallet;
 import org.kaesoron.wallet.repository.WalletRepository;
@@ -20,8 +25,11 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -142,7 +150,7 @@ public class WalletIntegrationTest {
         String invalidOperationJson = """
                 {
                   "walletId": "%s",
-                  "operationType": "TRANSFER",
+                  "operationType": "EXCHANGE",
                   "amount": 100
                 }
                 """.formatted(walletId);
@@ -168,4 +176,128 @@ public class WalletIntegrationTest {
                 .andExpect(jsonPath("$.timestamp").exists())
                 .andExpect(jsonPath("$.status").value(422));
     }
+
+    @Test
+    void testBatchBestEffortReportsPerItemResults() throws Exception {
+        var request = new WalletBatchRequest(BatchMode.BEST_EFFORT, List.of(
+                new WalletOperationRequest(walletId, OperationType.DEPOSIT, 500L),
+                new WalletOperationRequest(UUID.randomUUID(), OperationType.DEPOSIT, 100L),
+                new WalletOperationRequest(walletId, OperationType.WITHDRAW, 5000L)));
+
+        mockMvc.perform(post("/api/v1/wallet/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("APPLIED"))
+                .andExpect(jsonPath("$.results[1].error").value("Wallet Not Found"))
+                .andExpect(jsonPath("$.results[2].error").value("Insufficient Funds"));
+
+        mockMvc.perform(get("/api/v1/wallets/" + walletId))
+                .andExpect(jsonPath("$.balance").value(1500));
+    }
+
+    @Test
+    void testBatchAllOrNothingRollsBack() throws Exception {
+        var request = new WalletBatchRequest(BatchMode.ALL_OR_NOTHING, List.of(
+                new WalletOperationRequest(walletId, OperationType.DEPOSIT, 500L),
+                new WalletOperationRequest(walletId, OperationType.WITHDRAW, 5000L)));
+
+        mockMvc.perform(post("/api/v1/wallet/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(0))
+                .andExpect(jsonPath("$.results[0].status").value("ROLLED_BACK"));
+
+        mockMvc.perform(get("/api/v1/wallets/" + walletId))
+                .andExpect(jsonPath("$.balance").value(1000));
+    }
+
+    @Test
+    void testTransferMovesFundsAtomically() throws Exception {
+        UUID targetId = UUID.randomUUID();
+        walletRepository.save(new Wallet(targetId, 0L));
+        var request = new WalletOperationRequest(walletId, OperationType.TRANSFER, 400L, null, targetId);
+
+        mockMvc.perform(post("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/wallets/" + walletId))
+                .andExpect(jsonPath("$.balance").value(600));
+        mockMvc.perform(get("/api/v1/wallets/" + targetId))
+                .andExpect(jsonPath("$.balance").value(400));
+    }
+
+    @Test
+    void testTransferToMissingWalletChangesNothing() throws Exception {
+        var request = new WalletOperationRequest(walletId, OperationType.TRANSFER, 400L, null, UUID.randomUUID());
+
+        mockMvc.perform(post("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Wallet Not Found"));
+
+        mockMvc.perform(get("/api/v1/wallets/" + walletId))
+                .andExpect(jsonPath("$.balance").value(1000));
+    }
+
+    @Test
+    void testValidation_TransferWithoutTarget() throws Exception {
+        var request = new WalletOperationRequest(walletId, OperationType.TRANSFER, 100L);
+
+        mockMvc.perform(post("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation Failed"))
+                .andExpect(jsonPath("$.messages[0].field").value("targetWalletValid"));
+    }
+
+    @Test
+    void testCreateWallet() throws Exception {
+        String location = mockMvc.perform(post("/api/v1/wallets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"initialBalance\":250}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.balance").value(250))
+                .andReturn().getResponse().getHeader("Location");
+
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(250));
+    }
+
+    @Test
+    void testBulkCreateViaCopy() throws Exception {
+        int count = 2_500;
+        var wallets = new ArrayList<WalletCreateRequest>();
+        for (int i = 0; i < count; i++) {
+            wallets.add(new WalletCreateRequest(null, (long) i));
+        }
+
+        String body = mockMvc.perform(post("/api/v1/wallets/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WalletBulkCreateRequest(wallets))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(count))
+                .andReturn().getResponse().getContentAsString();
+
+        List<UUID> ids = objectMapper.readValue(body, WalletBulkCreateResponse.class).walletIds();
+        assertThat(walletRepository.findBalanceById(ids.get(count - 1))).contains(count - 1L);
+
+        // Повтор с существующим id откатывает всю пачку
+        wallets.set(0, new WalletCreateRequest(ids.get(0), 0L));
+        UUID fresh = UUID.randomUUID();
+        wallets.set(1, new WalletCreateRequest(fresh, 0L));
+        mockMvc.perform(post("/api/v1/wallets/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WalletBulkCreateRequest(wallets))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Wallet Already Exists"));
+        assertThat(walletRepository.existsById(fresh)).isFalse();
+    }
 }
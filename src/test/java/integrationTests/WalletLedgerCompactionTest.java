@@ -0,0 +1,106 @@
+package integrationTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.Application;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.kaesoron.wallet.service.WalletService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Режим LEDGER с компактизацией на каждые несколько операций: водяной знак не должен обогнать операции,
+ * которые ещё не закоммичены, а свёрнутые строки журнала удаляются, а не переписываются.
+ */
+@SpringBootTest(classes = Application.class)
+@Testcontainers
+public class WalletLedgerCompactionTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 200;
+    private static final long INITIAL_BALANCE = 1_000L;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("walletdb")
+            .withUsername("wallet")
+            .withPassword("wallet");
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private UUID walletId;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("wallet.execution.mode", () -> "LEDGER");
+        registry.add("wallet.ledger.compaction-threshold", () -> "3");
+        registry.add("wallet.ledger.compaction-interval", () -> "10ms");
+        registry.add("wallet.ledger.compaction-max-age", () -> "1s");
+    }
+
+    @BeforeEach
+    void setup() {
+        walletId = UUID.randomUUID();
+        walletRepository.save(new Wallet(walletId, INITIAL_BALANCE));
+    }
+
+    @Test
+    void concurrentOperationsSurviveCompaction() throws Exception {
+        AtomicLong expected = new AtomicLong(INITIAL_BALANCE);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    boolean deposit = i % 3 != 0;
+                    try {
+                        walletService.processOperation(new WalletOperationRequest(walletId,
+                                deposit ? OperationType.DEPOSIT : OperationType.WITHDRAW, deposit ? 7L : 11L));
+                        expected.addAndGet(deposit ? 7L : -11L);
+                    } catch (InsufficientFundsException e) {
+                        // Списание не прошло — баланс не изменился
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(walletService.getBalance(walletId)).isEqualTo(expected.get());
+        // Хвост сворачивается по возрасту, свёрнутые операции удаляются
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (operations() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(operations()).isZero();
+        assertThat(walletRepository.findById(walletId).orElseThrow().getBalance()).isEqualTo(expected.get());
+    }
+
+    private long operations() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM wallet_operations WHERE wallet_id = ?", Long.class, walletId);
+    }
+}
@@ -0,0 +1,128 @@
+package integrationTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.Application;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.kaesoron.wallet.service.WalletService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Встречные переводы между небольшим набором кошельков вперемешку с пополнениями и списаниями.
+ * Дедлок Postgres обнаруживает сам и обрывает одну из транзакций — такая ошибка попадёт в {@code failures}.
+ */
+@SpringBootTest(classes = Application.class)
+@Testcontainers
+public class WalletTransferStressTest {
+
+    private static final int WALLETS = 8;
+    private static final int THREADS = 32;
+    private static final int OPERATIONS_PER_THREAD = 300;
+    private static final long INITIAL_BALANCE = 10_000L;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("walletdb")
+            .withUsername("wallet")
+            .withPassword("wallet");
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletRepository walletRepository;
+    private final List<UUID> walletIds = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS);
+    }
+
+    @BeforeEach
+    void setup() {
+        walletIds.clear();
+        for (int i = 0; i < WALLETS; i++) {
+            UUID walletId = UUID.randomUUID();
+            walletRepository.save(new Wallet(walletId, INITIAL_BALANCE));
+            walletIds.add(walletId);
+        }
+    }
+
+    @Test
+    void concurrentOppositeTransfers_shouldNotDeadlockAndShouldConserveBalance() throws Exception {
+        AtomicLong external = new AtomicLong();
+        AtomicLong transfers = new AtomicLong();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    UUID source = walletIds.get(random.nextInt(WALLETS));
+                    long amount = 1 + random.nextInt(500);
+                    try {
+                        int dice = random.nextInt(10);
+                        if (dice < 8) {
+                            UUID target = walletIds.get(random.nextInt(WALLETS));
+                            if (target.equals(source)) {
+                                continue;
+                            }
+                            walletService.processOperation(
+                                    new WalletOperationRequest(source, OperationType.TRANSFER, amount, null, target));
+                            transfers.incrementAndGet();
+                        } else if (dice == 8) {
+                            walletService.processOperation(new WalletOperationRequest(source, OperationType.DEPOSIT, amount));
+                            external.addAndGet(amount);
+                        } else {
+                            walletService.processOperation(new WalletOperationRequest(source, OperationType.WITHDRAW, amount));
+                            external.addAndGet(-amount);
+                        }
+                    } catch (InsufficientFundsException expected) {
+                        // ожидаемый отказ, баланс не меняется
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).as("all workers finished").isTrue();
+        assertThat(failures).isEmpty();
+        assertThat(transfers.get()).isPositive();
+
+        long total = walletIds.stream().mapToLong(walletService::getBalance).sum();
+        assertThat(total).isEqualTo(WALLETS * INITIAL_BALANCE + external.get());
+        assertThat(walletIds).allSatisfy(id -> assertThat(walletService.getBalance(id)).isNotNegative());
+    }
+}
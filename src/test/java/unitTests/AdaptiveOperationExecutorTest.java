@@ -0,0 +1,84 @@
+package unitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.kaesoron.wallet.service.AdaptiveOperationExecutor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class AdaptiveOperationExecutorTest {
+
+    private final UUID walletId = UUID.randomUUID();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WalletRepository walletRepository;
+    private AdaptiveOperationExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        walletRepository = mock(WalletRepository.class);
+        executor = new AdaptiveOperationExecutor(walletRepository, mock(PlatformTransactionManager.class),
+                new WalletProperties(), meterRegistry);
+    }
+
+    @Test
+    void shouldApplyWithoutLock_whenNoConflict() {
+        when(walletRepository.findById(walletId)).thenReturn(Optional.of(new Wallet(walletId, 1000L)));
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.WITHDRAW, 400L));
+
+        assertThat(balance).isEqualTo(600L);
+        verify(walletRepository, never()).findByIdForUpdate(any());
+        assertThat(meterRegistry.get("wallet.adaptive.attempts").summary().max()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldRetryOnVersionConflict_andRereadWallet() {
+        when(walletRepository.findById(walletId))
+                .thenReturn(Optional.of(new Wallet(walletId, 1000L)))
+                .thenReturn(Optional.of(new Wallet(walletId, 1100L)));
+        doThrow(new ObjectOptimisticLockingFailureException(Wallet.class, walletId))
+                .doNothing()
+                .when(walletRepository).flush();
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 50L));
+
+        assertThat(balance).isEqualTo(1150L);
+        assertThat(meterRegistry.get("wallet.adaptive.conflicts").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("wallet.adaptive.attempts").summary().max()).isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldFallBackToLock_andStayPessimistic_underPersistentConflicts() {
+        when(walletRepository.findById(walletId)).thenAnswer(invocation -> Optional.of(new Wallet(walletId, 1000L)));
+        when(walletRepository.findByIdForUpdate(walletId)).thenAnswer(invocation -> Optional.of(new Wallet(walletId, 1000L)));
+        doThrow(new ObjectOptimisticLockingFailureException(Wallet.class, walletId))
+                .doThrow(new ObjectOptimisticLockingFailureException(Wallet.class, walletId))
+                .doThrow(new ObjectOptimisticLockingFailureException(Wallet.class, walletId))
+                .doNothing()
+                .when(walletRepository).flush();
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 10L));
+
+        assertThat(balance).isEqualTo(1010L);
+        assertThat(meterRegistry.get("wallet.adaptive.fallbacks").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("wallet.adaptive.switches").tag("to", "pessimistic").counter().count())
+                .isEqualTo(1.0);
+
+        executor.execute(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 10L));
+
+        verify(walletRepository, times(3)).findById(walletId);
+        verify(walletRepository, times(2)).findByIdForUpdate(walletId);
+    }
+}
@@ -0,0 +1,83 @@
+package unitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.AdmissionDataSource;
+import org.kaesoron.wallet.exceptions.AdmissionRejectedException;
+import org.kaesoron.wallet.service.AdmissionLimiter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class AdmissionDataSourceTest {
+
+    private final AdmissionLimiter admissionLimiter =
+            new AdmissionLimiter(1, Duration.ofMillis(20), new SimpleMeterRegistry());
+    private final Connection connection = mock(Connection.class);
+    private DataSource pool;
+    private AdmissionDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = mock(DataSource.class);
+        when(pool.getConnection()).thenReturn(connection);
+        dataSource = new AdmissionDataSource(pool, () -> admissionLimiter);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void shouldHoldPermitUntilConnectionIsClosed() throws Exception {
+        Connection first = dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(AdmissionRejectedException.class);
+
+        first.close();
+        first.close();
+        verify(connection, times(2)).close();
+        assertThat(admissionLimiter.tryAcquire()).isTrue();
+        assertThat(admissionLimiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void shouldReleasePermit_whenPoolFails() throws Exception {
+        when(pool.getConnection()).thenThrow(new SQLTransientConnectionException("timeout"));
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLException.class);
+        assertThat(admissionLimiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldNotLimitConnectionsOutsideHttpRequests() throws Exception {
+        RequestContextHolder.resetRequestAttributes();
+        assertThat(admissionLimiter.tryAcquire()).isTrue();
+
+        assertThat(dataSource.getConnection()).isSameAs(connection);
+    }
+
+    @Test
+    void shouldNotLimitAsyncPartOfRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncStarted(true);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        assertThat(admissionLimiter.tryAcquire()).isTrue();
+
+        assertThat(dataSource.getConnection()).isSameAs(connection);
+    }
+}
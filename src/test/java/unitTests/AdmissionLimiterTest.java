@@ -0,0 +1,34 @@
+package unitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.service.AdmissionLimiter;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdmissionLimiter admissionLimiter = new AdmissionLimiter(1, Duration.ofMillis(20), meterRegistry);
+
+    @Test
+    void shouldRejectAfterTimeout_whenNoPermitsLeft() {
+        assertThat(admissionLimiter.tryAcquire()).isTrue();
+        assertThat(admissionLimiter.tryAcquire()).isFalse();
+
+        assertThat(meterRegistry.get("wallet.admission.rejected").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("wallet.admission.wait").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("wallet.admission.available").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldAdmitAgain_afterRelease() {
+        assertThat(admissionLimiter.tryAcquire()).isTrue();
+        admissionLimiter.release();
+
+        assertThat(admissionLimiter.tryAcquire()).isTrue();
+        assertThat(meterRegistry.get("wallet.admission.waiting").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,68 @@
+package unitTests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.controller.AsyncOperationController;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.ExecutionMode;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.handler.GlobalExceptionHandler;
+import org.kaesoron.wallet.repository.WalletIntakeRepository;
+import org.kaesoron.wallet.service.AsyncOperationService;
+import org.kaesoron.wallet.service.WalletBatchService;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AsyncOperationControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WalletIntakeRepository walletIntakeRepository = mock(WalletIntakeRepository.class);
+
+    @Test
+    void submit_shouldAnswer202() throws Exception {
+        mockMvc(ExecutionMode.PESSIMISTIC).perform(post("/api/v1/wallet/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body()))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"));
+
+        verify(walletIntakeRepository).insert(any(), any());
+    }
+
+    // Движок IN_MEMORY владеет балансами, обработчик очереди не смог бы применить операцию
+    @Test
+    void submit_shouldAnswer400_inMemoryMode() throws Exception {
+        mockMvc(ExecutionMode.IN_MEMORY).perform(post("/api/v1/wallet/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid Request"));
+
+        verifyNoInteractions(walletIntakeRepository);
+    }
+
+    private MockMvc mockMvc(ExecutionMode mode) {
+        WalletProperties properties = new WalletProperties();
+        properties.getExecution().setMode(mode);
+        AsyncOperationService service = new AsyncOperationService(walletIntakeRepository,
+                mock(WalletBatchService.class), mock(PlatformTransactionManager.class), properties,
+                new SimpleMeterRegistry());
+        return MockMvcBuilders.standaloneSetup(new AsyncOperationController(service))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private byte[] body() throws Exception {
+        return objectMapper.writeValueAsBytes(new WalletOperationRequest(UUID.randomUUID(), OperationType.DEPOSIT, 10L));
+    }
+}
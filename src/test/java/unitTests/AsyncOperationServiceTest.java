@@ -0,0 +1,181 @@
+package unitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.AsyncOperationResponse;
+import org.kaesoron.wallet.dto.WalletBatchItemResult;
+import org.kaesoron.wallet.dto.WalletBatchRequest;
+import org.kaesoron.wallet.dto.WalletBatchResponse;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.AsyncOperationStatus;
+import org.kaesoron.wallet.enums.BatchItemStatus;
+import org.kaesoron.wallet.enums.BatchMode;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.IdempotencyKeyConflictException;
+import org.kaesoron.wallet.exceptions.OperationNotFoundException;
+import org.kaesoron.wallet.model.UuidV7;
+import org.kaesoron.wallet.repository.WalletIntakeRepository;
+import org.kaesoron.wallet.repository.WalletIntakeRepository.ClaimedOperation;
+import org.kaesoron.wallet.service.AsyncOperationService;
+import org.kaesoron.wallet.service.WalletBatchService;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AsyncOperationServiceTest {
+
+    private WalletIntakeRepository walletIntakeRepository;
+    private WalletBatchService walletBatchService;
+    private SimpleMeterRegistry meterRegistry;
+    private AsyncOperationService asyncOperationService;
+
+    @BeforeEach
+    void setUp() {
+        walletIntakeRepository = mock(WalletIntakeRepository.class);
+        walletBatchService = mock(WalletBatchService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        asyncOperationService = new AsyncOperationService(walletIntakeRepository, walletBatchService,
+                mock(PlatformTransactionManager.class), new WalletProperties(), meterRegistry);
+    }
+
+    @Test
+    void submit_shouldQueueWithTimeOrderedId() {
+        WalletOperationRequest request = new WalletOperationRequest(UUID.randomUUID(), OperationType.DEPOSIT, 100L);
+
+        AsyncOperationResponse accepted = asyncOperationService.submit(request);
+
+        assertThat(accepted.status()).isEqualTo(AsyncOperationStatus.PENDING);
+        assertThat(accepted.operationId().version()).isEqualTo(7);
+        verify(walletIntakeRepository).insert(accepted.operationId(), request);
+        assertThat(meterRegistry.get("wallet.intake.submitted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void submit_shouldReturnAcceptedOperationOnRetry() {
+        UUID walletId = UUID.randomUUID();
+        WalletOperationRequest request = new WalletOperationRequest(walletId, OperationType.DEPOSIT, 100L, "key-1");
+        AsyncOperationResponse existing = response(UuidV7.next(), walletId, AsyncOperationStatus.APPLIED);
+        doThrow(new DuplicateKeyException("duplicate")).when(walletIntakeRepository).insert(any(), eq(request));
+        when(walletIntakeRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.of(existing));
+
+        assertThat(asyncOperationService.submit(request)).isEqualTo(existing);
+        assertThat(meterRegistry.get("wallet.intake.submitted").counter().count()).isZero();
+    }
+
+    @Test
+    void submit_shouldRejectReusedKeyForAnotherOperation() {
+        WalletOperationRequest request =
+                new WalletOperationRequest(UUID.randomUUID(), OperationType.DEPOSIT, 100L, "key-1");
+        doThrow(new DuplicateKeyException("duplicate")).when(walletIntakeRepository).insert(any(), eq(request));
+        when(walletIntakeRepository.findByIdempotencyKey("key-1"))
+                .thenReturn(Optional.of(response(UuidV7.next(), UUID.randomUUID(), AsyncOperationStatus.PENDING)));
+
+        assertThatThrownBy(() -> asyncOperationService.submit(request))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+    }
+
+    @Test
+    void status_shouldThrowForUnknownOperation() {
+        when(walletIntakeRepository.find(any())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> asyncOperationService.status(UUID.randomUUID()))
+                .isInstanceOf(OperationNotFoundException.class);
+    }
+
+    @Test
+    void drain_shouldProcessClaimedOperationsAsBestEffortBatch() {
+        UUID walletId = UUID.randomUUID();
+        List<ClaimedOperation> claimed = List.of(
+                new ClaimedOperation(UuidV7.next(), new WalletOperationRequest(walletId, OperationType.DEPOSIT, 100L)),
+                new ClaimedOperation(UuidV7.next(), new WalletOperationRequest(walletId, OperationType.WITHDRAW, 500L)));
+        List<WalletBatchItemResult> results = List.of(
+                new WalletBatchItemResult(0, walletId, BatchItemStatus.APPLIED, 100L, null, null),
+                new WalletBatchItemResult(1, walletId, BatchItemStatus.REJECTED, null, "Insufficient Funds", "Недостаточно средств"));
+        when(walletIntakeRepository.claim(anyInt())).thenReturn(claimed);
+        when(walletBatchService.processBatch(any())).thenReturn(new WalletBatchResponse(BatchMode.BEST_EFFORT, 1, 1, results));
+
+        assertThat(asyncOperationService.drain()).isEqualTo(2);
+
+        ArgumentCaptor<WalletBatchRequest> captor = ArgumentCaptor.forClass(WalletBatchRequest.class);
+        verify(walletBatchService).processBatch(captor.capture());
+        assertThat(captor.getValue().getMode()).isEqualTo(BatchMode.BEST_EFFORT);
+        assertThat(captor.getValue().getOperations()).containsExactly(claimed.get(0).request(), claimed.get(1).request());
+        verify(walletIntakeRepository).complete(eq(claimed), eq(results), any());
+        assertThat(meterRegistry.get("wallet.intake.processed").tag("status", "applied").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.intake.processed").tag("status", "rejected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.intake.lag").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void drain_shouldProcessOneByOneAndFailPoisonOperation_whenBatchFails() {
+        UUID poisoned = UUID.randomUUID();
+        UUID healthy = UUID.randomUUID();
+        List<ClaimedOperation> claimed = List.of(
+                new ClaimedOperation(UuidV7.next(), new WalletOperationRequest(poisoned, OperationType.DEPOSIT, 1L)),
+                new ClaimedOperation(UuidV7.next(), new WalletOperationRequest(poisoned, OperationType.DEPOSIT, 2L)),
+                new ClaimedOperation(UuidV7.next(), new WalletOperationRequest(healthy, OperationType.DEPOSIT, 3L)));
+        List<WalletBatchItemResult> applied = List.of(
+                new WalletBatchItemResult(0, healthy, BatchItemStatus.APPLIED, 3L, null, null));
+        when(walletIntakeRepository.claim(anyInt())).thenReturn(claimed);
+        when(walletIntakeRepository.lockPending(any())).thenReturn(true);
+        when(walletBatchService.processBatch(any())).thenAnswer(invocation -> {
+            WalletBatchRequest request = invocation.getArgument(0);
+            if (request.getOperations().stream().anyMatch(operation -> operation.getWalletId().equals(poisoned))) {
+                throw new IllegalStateException("boom");
+            }
+            return new WalletBatchResponse(BatchMode.BEST_EFFORT, 1, 0, applied);
+        });
+        when(walletIntakeRepository.recordFailure(eq(claimed.get(0).id()), any(), eq("boom"), eq(3), any()))
+                .thenReturn(Optional.of(AsyncOperationStatus.FAILED));
+
+        assertThat(asyncOperationService.drain()).isEqualTo(2);
+
+        verify(walletIntakeRepository).complete(eq(List.of(claimed.get(2))), eq(applied), any());
+        // Следующая операция того же кошелька не обгоняет упавшую
+        verify(walletIntakeRepository, never()).lockPending(claimed.get(1));
+        verify(walletIntakeRepository, never()).recordFailure(eq(claimed.get(1).id()), any(), any(), anyInt(), any());
+        assertThat(meterRegistry.get("wallet.intake.processed").tag("status", "failed").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.intake.processed").tag("status", "applied").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void drain_shouldNotClaimMoreThanBatchLimit() {
+        WalletProperties properties = new WalletProperties();
+        properties.getBatch().setMaxSize(10);
+        asyncOperationService = new AsyncOperationService(walletIntakeRepository, walletBatchService,
+                mock(PlatformTransactionManager.class), properties, meterRegistry);
+        when(walletIntakeRepository.claim(anyInt())).thenReturn(List.of());
+
+        asyncOperationService.drain();
+
+        verify(walletIntakeRepository).claim(10);
+    }
+
+    @Test
+    void drain_shouldSkipBatchWhenQueueIsEmpty() {
+        when(walletIntakeRepository.claim(anyInt())).thenReturn(List.of());
+
+        assertThat(asyncOperationService.drain()).isZero();
+        verifyNoInteractions(walletBatchService);
+        verify(walletIntakeRepository, never()).complete(any(), any(), any());
+    }
+
+    private static AsyncOperationResponse response(UUID operationId, UUID walletId, AsyncOperationStatus status) {
+        return new AsyncOperationResponse(operationId, walletId, OperationType.DEPOSIT, 100L, null, status,
+                status == AsyncOperationStatus.APPLIED ? 100L : null, null, null, Instant.now(), null);
+    }
+}
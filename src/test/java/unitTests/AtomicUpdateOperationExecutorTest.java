@@ -0,0 +1,72 @@
+package unitTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.kaesoron.wallet.service.AtomicUpdateOperationExecutor;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class AtomicUpdateOperationExecutorTest {
+
+    private WalletRepository walletRepository;
+    private AtomicUpdateOperationExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        walletRepository = mock(WalletRepository.class);
+        executor = new AtomicUpdateOperationExecutor(walletRepository);
+    }
+
+    @Test
+    void deposit_shouldUseSingleStatement() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.applyDelta(walletId, 500L, Long.MIN_VALUE)).thenReturn(Optional.of(1500L));
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 500L));
+
+        assertThat(balance).isEqualTo(1500L);
+        verify(walletRepository, never()).findBalanceById(walletId);
+    }
+
+    @Test
+    void withdraw_shouldRequireAmountOnBalance() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.applyDelta(walletId, -400L, 400L)).thenReturn(Optional.of(600L));
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.WITHDRAW, 400L));
+
+        assertThat(balance).isEqualTo(600L);
+        verify(walletRepository, never()).findBalanceById(walletId);
+    }
+
+    @Test
+    void withdraw_shouldThrowException_whenInsufficientFunds() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.applyDelta(walletId, -200L, 200L)).thenReturn(Optional.empty());
+        when(walletRepository.findBalanceById(walletId)).thenReturn(Optional.of(100L));
+
+        assertThatThrownBy(() -> executor.execute(new WalletOperationRequest(walletId, OperationType.WITHDRAW, 200L)))
+                .isInstanceOf(InsufficientFundsException.class)
+                .hasMessage("Insufficient funds: requested 200, available 100");
+    }
+
+    @Test
+    void shouldThrowException_whenWalletNotFound() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.applyDelta(walletId, 100L, Long.MIN_VALUE)).thenReturn(Optional.empty());
+        when(walletRepository.findBalanceById(walletId)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> executor.execute(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 100L)))
+                .isInstanceOf(WalletNotFoundException.class);
+    }
+}
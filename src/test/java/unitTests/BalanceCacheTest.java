@@ -0,0 +1,125 @@
+package unitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.cache.BalanceCache;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BalanceCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BalanceCache balanceCache;
+    private final UUID walletId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        WalletProperties properties = new WalletProperties();
+        properties.getCache().setEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+        balanceCache = new BalanceCache(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldLoadOnceAndCountHitsAndMisses() {
+        AtomicInteger loads = new AtomicInteger();
+
+        balanceCache.get(walletId, id -> 100L + loads.incrementAndGet());
+        long balance = balanceCache.get(walletId, id -> 100L + loads.incrementAndGet());
+
+        assertThat(balance).isEqualTo(101L);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void invalidate_shouldDropValueOnlyAfterCompletion() {
+        balanceCache.get(walletId, id -> 100L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        balanceCache.invalidate(walletId);
+        assertThat(balanceCache.get(walletId, id -> 0L)).isEqualTo(100L);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertThat(balanceCache.get(walletId, id -> 500L)).isEqualTo(500L);
+    }
+
+    @Test
+    void invalidate_shouldDropValue_onRollback() {
+        balanceCache.get(walletId, id -> 100L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        balanceCache.invalidate(walletId);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(balanceCache.get(walletId, id -> 42L)).isEqualTo(42L);
+    }
+
+    @Test
+    void invalidate_shouldDiscardLoadStartedBeforeCommit() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            // Читатель успел прочитать старый баланс, писатель коммитит и удаляет ключ, пока загрузка не закончилась
+            Future<Long> stale = reader.submit(() -> balanceCache.get(walletId, id -> {
+                loading.countDown();
+                await(committed);
+                return 100L;
+            }));
+            loading.await();
+            Thread invalidation = new Thread(() -> balanceCache.invalidate(walletId));
+            invalidation.start();
+            committed.countDown();
+            invalidation.join(TimeUnit.SECONDS.toMillis(5));
+
+            assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo(100L);
+            assertThat(balanceCache.get(walletId, id -> 150L)).isEqualTo(150L);
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    void disabledCache_shouldAlwaysLoad() {
+        BalanceCache disabled = new BalanceCache(new WalletProperties(), new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        disabled.invalidate(walletId);
+        disabled.get(walletId, id -> (long) loads.incrementAndGet());
+        disabled.get(walletId, id -> (long) loads.incrementAndGet());
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package unitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.engine.BalanceEngine;
+import org.kaesoron.wallet.engine.EngineLock;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.AdmissionRejectedException;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.repository.WalletCheckpointRepository;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class BalanceEngineTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final Map<UUID, Long> database = new ConcurrentHashMap<>();
+    private WalletCheckpointRepository repository;
+    private EngineLock engineLock;
+    private WalletProperties properties;
+    private BalanceEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(WalletCheckpointRepository.class);
+        when(repository.findBalance(any())).thenAnswer(invocation ->
+                Optional.ofNullable(database.get(invocation.<UUID>getArgument(0))));
+        doAnswer(invocation -> {
+            database.putAll(invocation.getArgument(0));
+            return null;
+        }).when(repository).writeBalances(any());
+        engineLock = mock(EngineLock.class);
+        when(engineLock.isHeld()).thenReturn(true);
+        properties = new WalletProperties();
+        properties.getEngine().setJournalDir(journalDir.toString());
+        properties.getEngine().setPartitions(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null && engine.isRunning()) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void apply_shouldLoadWalletAndKeepBalanceInMemory() {
+        UUID walletId = wallet(100L);
+        engine = start();
+
+        assertThat(engine.balance(walletId)).isEmpty();
+        assertThat(engine.apply(walletId, OperationType.DEPOSIT, 50L)).isEqualTo(150L);
+        assertThat(engine.apply(walletId, OperationType.WITHDRAW, 30L)).isEqualTo(120L);
+
+        assertThat(engine.balance(walletId)).isEqualTo(OptionalLong.of(120L));
+        assertThat(database.get(walletId)).isEqualTo(100L);
+        verify(repository, times(1)).findBalance(walletId);
+    }
+
+    @Test
+    void apply_shouldRejectOverdraftAndUnknownWallet() {
+        UUID walletId = wallet(100L);
+        engine = start();
+
+        assertThatThrownBy(() -> engine.apply(walletId, OperationType.WITHDRAW, 101L))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThatThrownBy(() -> engine.apply(UUID.randomUUID(), OperationType.DEPOSIT, 1L))
+                .isInstanceOf(WalletNotFoundException.class);
+        assertThat(engine.balance(walletId)).isEqualTo(OptionalLong.of(100L));
+    }
+
+    @Test
+    void checkpoint_shouldWriteOnlyChangedWallets() {
+        UUID changed = wallet(100L);
+        UUID untouched = wallet(100L);
+        engine = start();
+        engine.apply(changed, OperationType.DEPOSIT, 1L);
+        engine.apply(untouched, OperationType.DEPOSIT, 0L);
+        engine.apply(untouched, OperationType.WITHDRAW, 0L);
+        clearInvocations(repository);
+
+        engine.checkpoint();
+        engine.checkpoint();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<UUID, Long>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(repository, atLeastOnce()).writeBalances(captor.capture());
+        Map<UUID, Long> written = new HashMap<>();
+        captor.getAllValues().forEach(written::putAll);
+        assertThat(written).containsEntry(changed, 101L).containsEntry(untouched, 100L).hasSize(2);
+        assertThat(captor.getAllValues().get(captor.getAllValues().size() - 1)).isEmpty();
+    }
+
+    @Test
+    void start_shouldReplayJournalWhenCheckpointWasLost() {
+        UUID walletId = wallet(100L);
+        engine = start();
+        engine.apply(walletId, OperationType.DEPOSIT, 25L);
+        engine.apply(walletId, OperationType.WITHDRAW, 5L);
+        // Последняя контрольная точка не дошла до базы — как при падении процесса
+        doThrow(new DataAccessResourceFailureException("database is down")).when(repository).writeBalances(any());
+        engine.stop();
+        assertThat(database.get(walletId)).isEqualTo(100L);
+
+        doAnswer(invocation -> {
+            database.putAll(invocation.getArgument(0));
+            return null;
+        }).when(repository).writeBalances(any());
+        engine = start();
+
+        assertThat(database.get(walletId)).isEqualTo(120L);
+        assertThat(engine.apply(walletId, OperationType.DEPOSIT, 1L)).isEqualTo(121L);
+    }
+
+    @Test
+    void apply_shouldCheckpointWhenJournalIsFull() {
+        properties.getEngine().setJournalSize(DataSize.ofBytes(64 + 40 * 16));
+        properties.getEngine().setPartitions(1);
+        UUID walletId = wallet(0L);
+        engine = start();
+
+        for (int i = 0; i < 100; i++) {
+            engine.apply(walletId, OperationType.DEPOSIT, 1L);
+        }
+
+        assertThat(engine.balance(walletId)).isEqualTo(OptionalLong.of(100L));
+        assertThat(database.get(walletId)).isGreaterThanOrEqualTo(85L);
+    }
+
+    // Кошельков больше, чем помещается в начальную таблицу партиции: проверяется и её перестройка
+    @Test
+    void apply_shouldKeepBalancesUnderConcurrency() throws Exception {
+        List<UUID> walletIds = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            walletIds.add(wallet(1_000L));
+        }
+        engine = start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> walletIds.forEach(walletId -> {
+                engine.apply(walletId, OperationType.DEPOSIT, 3L);
+                engine.apply(walletId, OperationType.WITHDRAW, 1L);
+            }));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        engine.stop();
+
+        assertThat(walletIds).allSatisfy(walletId -> assertThat(database.get(walletId)).isEqualTo(1_016L));
+    }
+
+    @Test
+    void start_shouldFail_whenAnotherInstanceOwnsEngine() {
+        doThrow(new IllegalStateException("Another instance owns the IN_MEMORY balance engine of this database"))
+                .when(engineLock).acquire();
+
+        assertThatThrownBy(this::start).isInstanceOf(IllegalStateException.class);
+        verify(repository, never()).writeBalances(any());
+    }
+
+    @Test
+    void lostLock_shouldStopEngineWithoutCheckpoint() {
+        UUID walletId = wallet(100L);
+        engine = start();
+        engine.apply(walletId, OperationType.DEPOSIT, 1L);
+        when(engineLock.isHeld()).thenReturn(false);
+
+        engine.checkpoint();
+
+        assertThat(database.get(walletId)).isEqualTo(100L);
+        assertThatThrownBy(() -> engine.apply(walletId, OperationType.DEPOSIT, 1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("has failed");
+        engine.stop();
+        verify(repository, never()).writeBalances(any());
+        verify(engineLock).release();
+    }
+
+    @Test
+    void lostLockDuringBatch_shouldNotAcknowledgeOperation() throws Exception {
+        UUID walletId = wallet(100L);
+        engine = start();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch lost = new CountDownLatch(1);
+        // Писатель посреди пачки: кошелёк подгружается, когда проверка владения теряет блокировку
+        when(repository.findBalance(walletId)).thenAnswer(invocation -> {
+            loading.countDown();
+            lost.await(5, TimeUnit.SECONDS);
+            return Optional.of(100L);
+        });
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        Future<Long> operation = caller.submit(() -> engine.apply(walletId, OperationType.DEPOSIT, 1L));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        when(engineLock.isHeld()).thenReturn(false);
+        engine.checkpoint();
+        lost.countDown();
+
+        assertThatThrownBy(() -> operation.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("has failed");
+        assertThat(engine.balance(walletId)).isEqualTo(OptionalLong.of(100L));
+        engine.stop();
+        caller.shutdown();
+        verify(repository, never()).writeBalances(any());
+    }
+
+    @Test
+    void fsyncFailure_shouldUndoBatchInMemoryAndJournal() {
+        UUID walletId = wallet(100L);
+        engine = start();
+        engine.apply(walletId, OperationType.DEPOSIT, 10L);
+        failJournalFlushes();
+
+        assertThatThrownBy(() -> engine.apply(walletId, OperationType.DEPOSIT, 5L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("disk failure");
+
+        assertThat(engine.balance(walletId)).isEqualTo(OptionalLong.of(110L));
+        engine.checkpoint();
+        engine.stop();
+        assertThat(database.get(walletId)).isEqualTo(100L);
+        verify(repository, never()).writeBalances(argThat(balances -> balances.containsKey(walletId)));
+
+        // Повтор журнала доносит подтверждённую операцию, но не ту, что получила ошибку
+        engine = start();
+        assertThat(database.get(walletId)).isEqualTo(110L);
+    }
+
+    @Test
+    void stop_shouldAnswerEveryOperationInFlight() throws Exception {
+        List<UUID> walletIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            walletIds.add(wallet(0L));
+        }
+        engine = start();
+        AtomicLong applied = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; ; i++) {
+                    try {
+                        engine.apply(walletIds.get(i % walletIds.size()), OperationType.DEPOSIT, 1L);
+                        applied.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                        return;
+                    }
+                }
+            });
+        }
+        Thread.sleep(200);
+
+        engine.stop();
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(rejected.get()).isEqualTo(8);
+        assertThat(walletIds.stream().mapToLong(database::get).sum()).isEqualTo(applied.get());
+    }
+
+    @Test
+    void writerFailure_shouldAnswerQueuedOperations() throws Exception {
+        properties.getEngine().setPartitions(1);
+        UUID walletId = wallet(0L);
+        when(repository.findBalance(walletId)).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            throw new AssertionError("writer died");
+        });
+        engine = start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            calls.add(executor.submit(() -> engine.apply(walletId, OperationType.DEPOSIT, 1L)));
+        }
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(calls).allSatisfy(call -> assertThatThrownBy(call::get)
+                .hasCauseInstanceOf(IllegalStateException.class));
+        assertThatThrownBy(() -> engine.apply(wallet(0L), OperationType.DEPOSIT, 1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("has failed");
+    }
+
+    @Test
+    void apply_shouldCancelOperationNotTakenWithinTimeout() throws Exception {
+        properties.getEngine().setPartitions(1);
+        properties.getEngine().setOperationTimeout(Duration.ofMillis(50));
+        UUID slow = wallet(0L);
+        UUID waiting = wallet(0L);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findBalance(slow)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.of(0L);
+        });
+        engine = start();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Long> first = executor.submit(() -> engine.apply(slow, OperationType.DEPOSIT, 5L));
+        assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> engine.apply(waiting, OperationType.DEPOSIT, 7L))
+                .isInstanceOf(AdmissionRejectedException.class);
+
+        release.countDown();
+        executor.shutdown();
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(5L);
+        assertThat(engine.balance(waiting)).isEmpty();
+    }
+
+    private UUID wallet(long balance) {
+        UUID walletId = UUID.randomUUID();
+        database.put(walletId, balance);
+        return walletId;
+    }
+
+    // Journal закрыт в пакете движка: fsync ломается через шпиона, подменённого в партициях
+    private void failJournalFlushes() {
+        Object[] partitions = (Object[]) ReflectionTestUtils.getField(engine, "partitions");
+        for (Object partition : partitions) {
+            Object journal = spy(ReflectionTestUtils.getField(partition, "journal"));
+            ReflectionTestUtils.invokeMethod(doThrow(new UncheckedIOException(new IOException("disk failure"))).when(journal),
+                    "force");
+            ReflectionTestUtils.setField(partition, "journal", journal);
+        }
+    }
+
+    private BalanceEngine start() {
+        BalanceEngine started = new BalanceEngine(repository, engineLock, properties, new SimpleMeterRegistry());
+        started.start();
+        return started;
+    }
+}
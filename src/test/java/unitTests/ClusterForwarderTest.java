@@ -0,0 +1,160 @@
+package unitTests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.cluster.ClusterForwarder;
+import org.kaesoron.wallet.cluster.ClusterMembership;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.ErrorResponse;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.ForwardedRejectionException;
+import org.kaesoron.wallet.exceptions.OwnerUnavailableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClusterForwarderTest {
+
+    private static final String SELF = "http://localhost:1";
+    private static final String SECRET = "s3cret";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Queue<String> received = new ConcurrentLinkedQueue<>();
+    private volatile int status = 200;
+    private volatile byte[] responseBody = new byte[0];
+    private HttpServer owner;
+    private String ownerUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        owner = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        owner.createContext("/api/v1/wallet", exchange -> {
+            received.add(exchange.getRequestHeaders().getFirst(ClusterForwarder.FORWARDED_HEADER) + " "
+                    + exchange.getRequestHeaders().getFirst(ClusterForwarder.SECRET_HEADER) + " "
+                    + new String(exchange.getRequestBody().readAllBytes()));
+            exchange.sendResponseHeaders(status, responseBody.length == 0 ? -1 : responseBody.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(responseBody);
+            }
+        });
+        owner.start();
+        ownerUrl = "http://localhost:" + owner.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        owner.stop(0);
+    }
+
+    @Test
+    void shouldNotForwardOwnWallets() {
+        ClusterMembership membership = membership(ownerUrl);
+        UUID walletId = wallet(membership, SELF::equals);
+
+        assertThat(forwarder(membership).forwardIfRemote(deposit(walletId))).isFalse();
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void shouldForwardToOwnerWithMarker() {
+        ClusterMembership membership = membership(ownerUrl);
+        UUID walletId = wallet(membership, ownerUrl::equals);
+
+        assertThat(forwarder(membership).forwardIfRemote(deposit(walletId))).isTrue();
+
+        assertThat(received).singleElement().asString()
+                .startsWith(SELF + " " + SECRET + " ")
+                .contains(walletId.toString(), "DEPOSIT");
+        assertThat(meterRegistry.get("wallet.cluster.forward").tag("outcome", "applied").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRelayOwnerRejection() throws IOException {
+        status = 422;
+        responseBody = objectMapper.writeValueAsBytes(
+                new ErrorResponse(Instant.now(), 422, "Insufficient Funds", "requested 10, available 0"));
+        ClusterMembership membership = membership(ownerUrl);
+        UUID walletId = wallet(membership, ownerUrl::equals);
+
+        assertThatThrownBy(() -> forwarder(membership).forwardIfRemote(deposit(walletId)))
+                .isInstanceOfSatisfying(ForwardedRejectionException.class, ex -> {
+                    assertThat(ex.getStatus()).isEqualTo(422);
+                    assertThat(ex.getError()).isEqualTo("Insufficient Funds");
+                    assertThat(ex.getMessage()).isEqualTo("requested 10, available 0");
+                });
+    }
+
+    @Test
+    void shouldAnswerUnavailable_whenOwnerRefusesConnection() throws IOException {
+        String deadUrl;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            deadUrl = "http://localhost:" + socket.getLocalPort();
+        }
+        ClusterMembership membership = membership(deadUrl);
+        UUID walletId = wallet(membership, deadUrl::equals);
+
+        assertThatThrownBy(() -> forwarder(membership).forwardIfRemote(deposit(walletId)))
+                .isInstanceOf(OwnerUnavailableException.class);
+        assertThat(meterRegistry.get("wallet.cluster.forward").tag("outcome", "unreachable").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldTrustForwardOnlyFromMemberWithSecret() {
+        ClusterForwarder forwarder = forwarder(membership(ownerUrl));
+
+        assertThat(forwarder.isTrustedForward(ownerUrl, SECRET)).isTrue();
+        assertThat(forwarder.isTrustedForward(ownerUrl, null)).isFalse();
+        assertThat(forwarder.isTrustedForward(ownerUrl, "guess")).isFalse();
+        assertThat(forwarder.isTrustedForward("http://attacker:8080", SECRET)).isFalse();
+        assertThat(forwarder.isTrustedForward(null, SECRET)).isFalse();
+    }
+
+    @Test
+    void shouldRequireSecret() {
+        assertThatThrownBy(() -> new ClusterForwarder(membership(ownerUrl), objectMapper, new WalletProperties(),
+                meterRegistry)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private ClusterMembership membership(String other) {
+        WalletProperties properties = new WalletProperties();
+        properties.getCluster().setSelf(SELF);
+        properties.getCluster().setMembers(List.of(SELF, other));
+        return new ClusterMembership(properties, meterRegistry);
+    }
+
+    private ClusterForwarder forwarder(ClusterMembership membership) {
+        WalletProperties properties = new WalletProperties();
+        properties.getCluster().setSecret(SECRET);
+        return new ClusterForwarder(membership, objectMapper, properties, meterRegistry);
+    }
+
+    private static UUID wallet(ClusterMembership membership, Predicate<String> owner) {
+        UUID walletId;
+        do {
+            walletId = UUID.randomUUID();
+        } while (!owner.test(membership.owner(walletId)));
+        return walletId;
+    }
+
+    private static WalletOperationRequest deposit(UUID walletId) {
+        return new WalletOperationRequest(walletId, OperationType.DEPOSIT, 10L);
+    }
+}
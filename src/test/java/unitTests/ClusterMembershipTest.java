@@ -0,0 +1,71 @@
+package unitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kaesoron.wallet.cluster.ClusterMembership;
+import org.kaesoron.wallet.config.WalletProperties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterMembershipTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldRebalance_whenMembersFileChanges() throws IOException {
+        Path file = dir.resolve("members");
+        Files.writeString(file, """
+                # node list
+                http://localhost:8081/
+                http://localhost:8082
+                """);
+        WalletProperties properties = new WalletProperties();
+        properties.getCluster().setSelf("http://localhost:8081");
+        properties.getCluster().setMembersFile(file.toString());
+        ClusterMembership membership = new ClusterMembership(properties, meterRegistry);
+        List<UUID> wallets = IntStream.range(0, 1_000).mapToObj(i -> UUID.randomUUID()).toList();
+
+        assertThat(membership.members()).containsExactly("http://localhost:8081", "http://localhost:8082");
+        assertThat(wallets).anyMatch(membership::isLocal).anyMatch(id -> !membership.isLocal(id));
+
+        membership.refresh();
+        assertThat(meterRegistry.get("wallet.cluster.rebalances").counter().count()).isZero();
+
+        Files.writeString(file, "http://localhost:8081\n");
+        membership.refresh();
+
+        assertThat(membership.members()).containsExactly("http://localhost:8081");
+        assertThat(wallets).allMatch(membership::isLocal);
+        assertThat(meterRegistry.get("wallet.cluster.rebalances").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.cluster.members").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldServeLocally_whenMembersFileEmptied() throws IOException {
+        Path file = dir.resolve("members");
+        Files.writeString(file, "http://localhost:8082\n");
+        WalletProperties properties = new WalletProperties();
+        properties.getCluster().setSelf("http://localhost:8081");
+        properties.getCluster().setMembersFile(file.toString());
+        ClusterMembership membership = new ClusterMembership(properties, meterRegistry);
+        UUID walletId = UUID.randomUUID();
+        assertThat(membership.isLocal(walletId)).isFalse();
+
+        Files.writeString(file, "");
+        membership.refresh();
+
+        assertThat(membership.owner(walletId)).isNull();
+        assertThat(membership.isLocal(walletId)).isTrue();
+    }
+}
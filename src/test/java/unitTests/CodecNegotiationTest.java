@@ -0,0 +1,100 @@
+package unitTests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.CodecConfig;
+import org.kaesoron.wallet.controller.WalletController;
+import org.kaesoron.wallet.dto.WalletBalanceResponse;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.handler.GlobalExceptionHandler;
+import org.kaesoron.wallet.metrics.TimedBinaryJacksonHttpMessageConverter;
+import org.kaesoron.wallet.metrics.TimedJacksonHttpMessageConverter;
+import org.kaesoron.wallet.service.WalletBatchService;
+import org.kaesoron.wallet.service.WalletService;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class CodecNegotiationTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+    private final UUID walletId = UUID.randomUUID();
+
+    private WalletService walletService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        walletService = mock(WalletService.class);
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new WalletController(walletService, mock(WalletBatchService.class), Optional.empty()))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .setMessageConverters(
+                        new TimedJacksonHttpMessageConverter(Jackson2ObjectMapperBuilder.json().build(), meterRegistry),
+                        new TimedBinaryJacksonHttpMessageConverter(cborMapper, MediaType.APPLICATION_CBOR, "cbor",
+                                meterRegistry),
+                        new TimedBinaryJacksonHttpMessageConverter(smileMapper, CodecConfig.APPLICATION_SMILE, "smile",
+                                meterRegistry))
+                .build();
+    }
+
+    @Test
+    void shouldAcceptCborOperation() throws Exception {
+        WalletOperationRequest request = new WalletOperationRequest(walletId, OperationType.DEPOSIT, 500L);
+
+        mockMvc.perform(post("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(request)))
+                .andExpect(status().isOk());
+
+        verify(walletService).processOperation(argThat(actual -> walletId.equals(actual.getWalletId())
+                && actual.getOperationType() == OperationType.DEPOSIT && actual.getAmount() == 500L));
+        assertThat(meterRegistry.find("wallet.json").tag("format", "cbor").tag("direction", "read").timer())
+                .isNotNull();
+    }
+
+    @Test
+    void shouldReturnSmileBalance_whenRequested() throws Exception {
+        when(walletService.getBalance(walletId)).thenReturn(700L);
+
+        byte[] body = mockMvc.perform(get("/api/v1/wallets/{walletId}", walletId)
+                        .accept(CodecConfig.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CodecConfig.APPLICATION_SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(smileMapper.readValue(body, WalletBalanceResponse.class))
+                .isEqualTo(new WalletBalanceResponse(walletId, 700L));
+    }
+
+    @Test
+    void shouldReturnCompactJson_byDefault() throws Exception {
+        when(walletService.getBalance(any())).thenReturn(1L);
+
+        String body = mockMvc.perform(get("/api/v1/wallets/{walletId}", walletId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body).isEqualTo("{\"walletId\":\"" + walletId + "\",\"balance\":1}");
+    }
+}
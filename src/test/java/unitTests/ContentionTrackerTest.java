@@ -0,0 +1,70 @@
+package unitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.service.ContentionTracker;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentionTrackerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID walletId = UUID.randomUUID();
+    private ContentionTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        WalletProperties.Adaptive settings = new WalletProperties.Adaptive();
+        settings.setSmoothing(0.5);
+        settings.setPessimisticHold(Duration.ofSeconds(30));
+        tracker = new ContentionTracker(settings, meterRegistry, now::get);
+    }
+
+    @Test
+    void shouldSwitchToPessimistic_whenConflictsCrossThreshold() {
+        tracker.record(walletId, false);
+        assertThat(tracker.isPessimistic(walletId)).isFalse();
+
+        tracker.record(walletId, true);
+
+        assertThat(tracker.isPessimistic(walletId)).isTrue();
+        assertThat(meterRegistry.get("wallet.adaptive.switches").tag("to", "pessimistic").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("wallet.adaptive.pessimistic.wallets").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldSwitchBack_onlyAfterHoldAndWhenContentionDrops() {
+        tracker.record(walletId, true);
+
+        for (int i = 0; i < 10; i++) {
+            tracker.record(walletId, false);
+        }
+        assertThat(tracker.isPessimistic(walletId)).as("still within hold").isTrue();
+
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        tracker.record(walletId, false);
+
+        assertThat(tracker.isPessimistic(walletId)).isFalse();
+        assertThat(meterRegistry.get("wallet.adaptive.switches").tag("to", "optimistic").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("wallet.adaptive.pessimistic.wallets").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldStayPessimistic_whileContentionPersists() {
+        tracker.record(walletId, true);
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        tracker.record(walletId, true);
+
+        assertThat(tracker.isPessimistic(walletId)).isTrue();
+    }
+}
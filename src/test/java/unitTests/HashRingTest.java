@@ -0,0 +1,63 @@
+package unitTests;
+
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.cluster.HashRing;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HashRingTest {
+
+    private static final List<String> THREE = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+    private final List<UUID> wallets = IntStream.range(0, 30_000).mapToObj(i -> UUID.randomUUID()).toList();
+
+    @Test
+    void shouldSpreadWalletsEvenly() {
+        HashRing ring = new HashRing(THREE, 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        wallets.forEach(id -> counts.merge(ring.owner(id), 1, Integer::sum));
+
+        assertThat(counts).containsOnlyKeys(THREE);
+        // Ожидаем по 10 000 на участника; 128 точек дают разброс в пределах десятков процентов, а не кратный
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(7_000, 13_000));
+    }
+
+    @Test
+    void shouldBeIndependentOfMemberOrder() {
+        HashRing ring = new HashRing(THREE, 64);
+        HashRing reordered = new HashRing(List.of(THREE.get(2), THREE.get(0), THREE.get(1), THREE.get(0)), 64);
+
+        assertThat(wallets).allSatisfy(id -> assertThat(reordered.owner(id)).isEqualTo(ring.owner(id)));
+    }
+
+    @Test
+    void shouldMoveOnlyWalletsOfJoiningMember() {
+        HashRing before = new HashRing(THREE, 128);
+        HashRing after = new HashRing(List.of(THREE.get(0), THREE.get(1), THREE.get(2), "http://d:8080"), 128);
+
+        long moved = 0;
+        for (UUID id : wallets) {
+            String owner = after.owner(id);
+            if (!owner.equals(before.owner(id))) {
+                assertThat(owner).as("moved wallets go to the new member only").isEqualTo("http://d:8080");
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(wallets.size() / 8L, wallets.size() * 3 / 8L);
+    }
+
+    @Test
+    void shouldFail_whenEmpty() {
+        HashRing ring = new HashRing(List.of(), 16);
+
+        assertThat(ring.isEmpty()).isTrue();
+        assertThatThrownBy(() -> ring.owner(UUID.randomUUID())).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,100 @@
+package unitTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.IdempotencyKeyConflictException;
+import org.kaesoron.wallet.repository.IdempotencyKeyRepository;
+import org.kaesoron.wallet.repository.IdempotencyKeyRepository.StoredResult;
+import org.kaesoron.wallet.service.IdempotencyService;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    private PlatformTransactionManager transactionManager;
+    private IdempotencyService idempotencyService;
+
+    private final UUID walletId = UUID.randomUUID();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        idempotencyKeyRepository = mock(IdempotencyKeyRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        idempotencyService = new IdempotencyService(idempotencyKeyRepository, transactionManager, new WalletProperties());
+    }
+
+    @Test
+    void firstAttempt_shouldSkipLookupAndStoreResult() {
+        WalletOperationRequest request = request("key-1", 100L);
+
+        long balance = idempotencyService.execute(request, this::apply);
+
+        assertThat(balance).isEqualTo(1100L);
+        verify(idempotencyKeyRepository, never()).find(anyString());
+        verify(idempotencyKeyRepository).insert("key-1", request, 1100L);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void replay_shouldReturnFirstResultWithoutExecuting() {
+        WalletOperationRequest request = request("key-1", 100L);
+        idempotencyService.execute(request, this::apply);
+
+        long balance = idempotencyService.execute(request("key-1", 100L), this::apply);
+
+        assertThat(balance).isEqualTo(1100L);
+        assertThat(executions).hasValue(1);
+        verify(idempotencyKeyRepository, never()).find(anyString());
+    }
+
+    @Test
+    void keyStoredElsewhere_shouldRollBackAndReplayStoredResult() {
+        WalletOperationRequest request = request("key-2", 100L);
+        doThrow(new DuplicateKeyException("duplicate"))
+                .when(idempotencyKeyRepository).insert(eq("key-2"), any(), anyLong());
+        when(idempotencyKeyRepository.find("key-2"))
+                .thenReturn(Optional.of(new StoredResult(walletId, OperationType.DEPOSIT, 100L, 500L)));
+
+        long balance = idempotencyService.execute(request, this::apply);
+
+        assertThat(balance).isEqualTo(500L);
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void reusedKeyForAnotherOperation_shouldConflict() {
+        idempotencyService.execute(request("key-3", 100L), this::apply);
+
+        assertThatThrownBy(() -> idempotencyService.execute(request("key-3", 200L), this::apply))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+        assertThat(executions).hasValue(1);
+    }
+
+    private long apply() {
+        executions.incrementAndGet();
+        return 1100L;
+    }
+
+    private WalletOperationRequest request(String key, long amount) {
+        return new WalletOperationRequest(walletId, OperationType.DEPOSIT, amount, key);
+    }
+}
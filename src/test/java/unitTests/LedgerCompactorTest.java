@@ -0,0 +1,72 @@
+package unitTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.repository.WalletLedgerRepository;
+import org.kaesoron.wallet.service.LedgerCompactor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LedgerCompactorTest {
+
+    private WalletLedgerRepository walletLedgerRepository;
+    private WalletProperties properties;
+    private LedgerCompactor compactor;
+
+    @BeforeEach
+    void setUp() {
+        walletLedgerRepository = mock(WalletLedgerRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        properties = new WalletProperties();
+        properties.getLedger().setPurgeBatchSize(2);
+        compactor = new LedgerCompactor(walletLedgerRepository, transactionManager, properties);
+    }
+
+    @Test
+    void shouldCompactLongAndOldTails_andContinueAfterFailure() {
+        UUID failing = UUID.randomUUID();
+        UUID healthy = UUID.randomUUID();
+        when(walletLedgerRepository.findCompactionCandidates(anyInt(), any(), anyInt())).thenReturn(List.of(failing, healthy));
+        doThrow(new IllegalStateException("deadlock")).when(walletLedgerRepository).compact(failing);
+        Instant started = Instant.now();
+
+        compactor.compact();
+
+        verify(walletLedgerRepository).findCompactionCandidates(eq(100),
+                argThat(before -> !before.isAfter(started.minus(Duration.ofMinutes(1)).plusSeconds(1))), eq(500));
+        verify(walletLedgerRepository).compact(healthy);
+    }
+
+    @Test
+    void shouldPurgeInBatches_untilShortBatch() {
+        when(walletLedgerRepository.findCompactionCandidates(anyInt(), any(), anyInt())).thenReturn(List.of());
+        when(walletLedgerRepository.purgeCompacted(any(), eq(2))).thenReturn(2, 2, 1);
+
+        compactor.compact();
+
+        verify(walletLedgerRepository, times(3)).purgeCompacted(any(), eq(2));
+    }
+
+    @Test
+    void shouldKeepCompactedOperations_forRetention() {
+        properties.getLedger().setRetention(Duration.ofHours(1));
+        when(walletLedgerRepository.findCompactionCandidates(anyInt(), any(), anyInt())).thenReturn(List.of());
+
+        compactor.compact();
+
+        verify(walletLedgerRepository).purgeCompacted(
+                argThat(before -> before.isBefore(Instant.now().minus(Duration.ofMinutes(59)))), eq(2));
+    }
+}
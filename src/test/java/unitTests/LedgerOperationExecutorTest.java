@@ -0,0 +1,75 @@
+package unitTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.repository.WalletLedgerRepository;
+import org.kaesoron.wallet.repository.WalletLedgerRepository.ConditionalAppend;
+import org.kaesoron.wallet.service.LedgerOperationExecutor;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class LedgerOperationExecutorTest {
+
+    private WalletLedgerRepository walletLedgerRepository;
+    private LedgerOperationExecutor executor;
+    private final UUID walletId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        walletLedgerRepository = mock(WalletLedgerRepository.class);
+        executor = new LedgerOperationExecutor(walletLedgerRepository);
+    }
+
+    @Test
+    void deposit_shouldAppendWithoutLocking() {
+        when(walletLedgerRepository.append(walletId, OperationType.DEPOSIT, 500L)).thenReturn(1500L);
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 500L));
+
+        assertThat(balance).isEqualTo(1500L);
+        verify(walletLedgerRepository, never()).lock(walletId);
+    }
+
+    @Test
+    void withdraw_shouldLockThenAppendNegativeAmount() {
+        when(walletLedgerRepository.lock(walletId)).thenReturn(true);
+        when(walletLedgerRepository.appendIfCovered(walletId, OperationType.WITHDRAW, -400L))
+                .thenReturn(new ConditionalAppend(1000L, true));
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.WITHDRAW, 400L));
+
+        assertThat(balance).isEqualTo(600L);
+        var order = inOrder(walletLedgerRepository);
+        order.verify(walletLedgerRepository).lock(walletId);
+        order.verify(walletLedgerRepository).appendIfCovered(walletId, OperationType.WITHDRAW, -400L);
+    }
+
+    @Test
+    void withdraw_shouldThrowException_whenInsufficientFunds() {
+        when(walletLedgerRepository.lock(walletId)).thenReturn(true);
+        when(walletLedgerRepository.appendIfCovered(walletId, OperationType.WITHDRAW, -200L))
+                .thenReturn(new ConditionalAppend(100L, false));
+
+        assertThatThrownBy(() -> executor.execute(new WalletOperationRequest(walletId, OperationType.WITHDRAW, 200L)))
+                .isInstanceOf(InsufficientFundsException.class)
+                .hasMessage("Insufficient funds: requested 200, available 100");
+    }
+
+    @Test
+    void shouldThrowException_whenWalletNotFound() {
+        when(walletLedgerRepository.lock(walletId)).thenReturn(false);
+
+        assertThatThrownBy(() -> executor.execute(new WalletOperationRequest(walletId, OperationType.WITHDRAW, 200L)))
+                .isInstanceOf(WalletNotFoundException.class);
+        verify(walletLedgerRepository, never()).appendIfCovered(any(), any(), anyLong());
+    }
+}
@@ -0,0 +1,64 @@
+package unitTests;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.MigrationConfig;
+import org.kaesoron.wallet.config.VerifyingLiquibase;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class MigrationConfigTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+
+    @Test
+    void liquibase_shouldKeepSpringLiquibaseSettings() {
+        LiquibaseProperties properties = new LiquibaseProperties();
+        properties.setChangeLog("classpath:/db/changelog/db.changelog-master.yaml");
+        properties.setContexts(List.of("prod", "eu"));
+        properties.setLabelFilter(List.of("wallet"));
+        properties.setDefaultSchema("wallet");
+        properties.setLiquibaseSchema("migrations");
+        properties.setDatabaseChangeLogTable("wallet_changelog");
+        properties.setParameters(Map.of("owner", "wallet"));
+
+        SpringLiquibase liquibase = new MigrationConfig().liquibase(dataSource, new DataSourceProperties(), properties);
+
+        assertThat(liquibase).isInstanceOf(VerifyingLiquibase.class);
+        assertThat(liquibase.getDataSource()).isSameAs(dataSource);
+        assertThat(liquibase.getChangeLog()).isEqualTo("classpath:/db/changelog/db.changelog-master.yaml");
+        assertThat(liquibase.getContexts()).isEqualTo("prod,eu");
+        assertThat(liquibase.getLabelFilter()).isEqualTo("wallet");
+        assertThat(liquibase.getDefaultSchema()).isEqualTo("wallet");
+        assertThat(liquibase.getLiquibaseSchema()).isEqualTo("migrations");
+        assertThat(liquibase.getDatabaseChangeLogTable()).isEqualTo("wallet_changelog");
+        assertThat(liquibase).extracting("parameters").isEqualTo(Map.of("owner", "wallet"));
+    }
+
+    @Test
+    void liquibase_shouldUseOwnConnection_whenLiquibaseUrlIsSet() {
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl("jdbc:postgresql://db:5432/walletdb");
+        dataSourceProperties.setUsername("wallet");
+        dataSourceProperties.setPassword("wallet");
+        LiquibaseProperties properties = new LiquibaseProperties();
+        properties.setUser("migrator");
+        properties.setPassword("secret");
+
+        SpringLiquibase liquibase = new MigrationConfig().liquibase(dataSource, dataSourceProperties, properties);
+
+        assertThat(liquibase.getDataSource()).isInstanceOfSatisfying(SimpleDriverDataSource.class, migration -> {
+            assertThat(migration.getUrl()).isEqualTo("jdbc:postgresql://db:5432/walletdb");
+            assertThat(migration.getUsername()).isEqualTo("migrator");
+            assertThat(migration.getPassword()).isEqualTo("secret");
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package unitTests;
+
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.metrics.StartupReport;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupReportTest {
+
+    private static final long STEP_MILLIS = 30;
+
+    @Test
+    void shouldAttributeSelfTimeToNearestClassifiedStep() throws InterruptedException {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+        long started = System.nanoTime();
+
+        StartupStep liquibase = bean(startup, "liquibase");
+        pause();
+        StartupStep connect = startup.start(StartupReport.DATASOURCE_CONNECT_STEP);
+        pause();
+        connect.end();
+        liquibase.end();
+
+        StartupStep entityManager = bean(startup, "entityManagerFactory");
+        StartupStep nested = bean(startup, "persistenceManagedTypes");
+        pause();
+        nested.end();
+        entityManager.end();
+
+        StartupStep service = bean(startup, "walletService");
+        pause();
+        service.end();
+
+        StartupStep refresh = startup.start("spring.context.refresh");
+        pause();
+        refresh.end();
+
+        Duration total = Duration.ofNanos(System.nanoTime() - started).plusMillis(STEP_MILLIS);
+        Map<String, Duration> phases = StartupReport.phases(startup.getBufferedTimeline().getEvents(), total);
+
+        assertThat(phases).containsOnlyKeys("datasource", "liquibase", "jpa", "web", "beans", "context", "other");
+        // Подключение внутри liquibase не засчитывается liquibase
+        assertThat(phases.get("datasource")).isBetween(millis(STEP_MILLIS), millis(2 * STEP_MILLIS));
+        assertThat(phases.get("liquibase")).isBetween(millis(STEP_MILLIS), millis(2 * STEP_MILLIS));
+        // Нераспознанный бин внутри entityManagerFactory — время JPA
+        assertThat(phases.get("jpa")).isGreaterThanOrEqualTo(millis(STEP_MILLIS));
+        assertThat(phases.get("beans")).isBetween(millis(STEP_MILLIS), millis(2 * STEP_MILLIS));
+        assertThat(phases.get("context")).isGreaterThanOrEqualTo(millis(STEP_MILLIS));
+        assertThat(phases.get("web")).isZero();
+        assertThat(phases.get("other")).isGreaterThanOrEqualTo(millis(STEP_MILLIS));
+    }
+
+    @Test
+    void shouldNotReportNegativeRemainder() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+        bean(startup, "walletController").end();
+
+        Map<String, Duration> phases = StartupReport.phases(startup.getBufferedTimeline().getEvents(), Duration.ZERO);
+
+        assertThat(phases.get("other")).isZero();
+    }
+
+    private static StartupStep bean(BufferingApplicationStartup startup, String name) {
+        return startup.start("spring.beans.instantiate").tag("beanName", name);
+    }
+
+    private static void pause() throws InterruptedException {
+        Thread.sleep(STEP_MILLIS);
+    }
+
+    private static Duration millis(long value) {
+        return Duration.ofMillis(value);
+    }
+}
@@ -0,0 +1,101 @@
+package unitTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.repository.WalletSlotRepository;
+import org.kaesoron.wallet.service.StripedOperationExecutor;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StripedOperationExecutorTest {
+
+    private WalletSlotRepository walletSlotRepository;
+    private StripedOperationExecutor executor;
+    private final UUID walletId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        walletSlotRepository = mock(WalletSlotRepository.class);
+        executor = new StripedOperationExecutor(walletSlotRepository, new WalletProperties());
+    }
+
+    @Test
+    void deposit_shouldGoToWalletRow_whenNotStriped() {
+        when(walletSlotRepository.findSlotCount(walletId)).thenReturn(Optional.of(0));
+        when(walletSlotRepository.applyToWallet(walletId, 100L, Long.MIN_VALUE)).thenReturn(1100L);
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 100L));
+
+        assertThat(balance).isEqualTo(1100L);
+        verify(walletSlotRepository, never()).applyToSlot(any(), anyInt(), anyLong(), anyLong());
+    }
+
+    @Test
+    void deposit_shouldGoToOneOfTheSlots_whenStriped() {
+        when(walletSlotRepository.findSlotCount(walletId)).thenReturn(Optional.of(4));
+        when(walletSlotRepository.applyToSlot(eq(walletId), anyInt(), eq(100L), eq(Long.MIN_VALUE))).thenReturn(1100L);
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 100L));
+
+        assertThat(balance).isEqualTo(1100L);
+        verify(walletSlotRepository).applyToSlot(eq(walletId), intThat(slot -> slot >= 0 && slot < 4),
+                eq(100L), eq(Long.MIN_VALUE));
+    }
+
+    @Test
+    void deposit_shouldRereadSlotCount_whenSlotDisappeared() {
+        when(walletSlotRepository.findSlotCount(walletId)).thenReturn(Optional.of(4)).thenReturn(Optional.of(0));
+        when(walletSlotRepository.applyToSlot(eq(walletId), anyInt(), anyLong(), anyLong())).thenReturn(null);
+        when(walletSlotRepository.applyToWallet(walletId, 100L, Long.MIN_VALUE)).thenReturn(1100L);
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 100L));
+
+        assertThat(balance).isEqualTo(1100L);
+        verify(walletSlotRepository, times(2)).findSlotCount(walletId);
+    }
+
+    @Test
+    void withdraw_shouldRebalance_whenLocalSlotIsShort() {
+        when(walletSlotRepository.findSlotCount(walletId)).thenReturn(Optional.of(4));
+        when(walletSlotRepository.applyToSlot(eq(walletId), anyInt(), eq(-300L), eq(300L))).thenReturn(null);
+        when(walletSlotRepository.lockTotal(walletId)).thenReturn(Optional.of(1000L));
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.WITHDRAW, 300L));
+
+        assertThat(balance).isEqualTo(700L);
+        verify(walletSlotRepository).redistribute(walletId, 700L, 4);
+    }
+
+    @Test
+    void withdraw_shouldThrowException_whenTotalIsInsufficient() {
+        when(walletSlotRepository.findSlotCount(walletId)).thenReturn(Optional.of(4));
+        when(walletSlotRepository.applyToSlot(eq(walletId), anyInt(), anyLong(), anyLong())).thenReturn(null);
+        when(walletSlotRepository.lockTotal(walletId)).thenReturn(Optional.of(200L));
+
+        assertThatThrownBy(() -> executor.execute(new WalletOperationRequest(walletId, OperationType.WITHDRAW, 300L)))
+                .isInstanceOf(InsufficientFundsException.class)
+                .hasMessage("Insufficient funds: requested 300, available 200");
+        verify(walletSlotRepository, never()).redistribute(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void shouldThrowException_whenWalletNotFound() {
+        when(walletSlotRepository.findSlotCount(walletId)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> executor.execute(new WalletOperationRequest(walletId, OperationType.WITHDRAW, 300L)))
+                .isInstanceOf(WalletNotFoundException.class);
+    }
+}
@@ -0,0 +1,56 @@
+package unitTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.enums.ExecutionMode;
+import org.kaesoron.wallet.repository.WalletSlotRepository;
+import org.kaesoron.wallet.service.StripedWalletFolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StripedWalletFolderTest {
+
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+
+    private WalletSlotRepository walletSlotRepository;
+    private PlatformTransactionManager transactionManager;
+    private WalletProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        walletSlotRepository = mock(WalletSlotRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        properties = new WalletProperties();
+        when(walletSlotRepository.findStripedWalletIds(anyInt())).thenReturn(List.of(first, second)).thenReturn(List.of());
+        when(walletSlotRepository.lockTotal(first)).thenReturn(Optional.of(120L));
+        when(walletSlotRepository.lockTotal(second)).thenReturn(Optional.of(0L));
+    }
+
+    @Test
+    void start_shouldFoldSlotsIntoRow_whenModeIsNotStriped() {
+        properties.getExecution().setMode(ExecutionMode.PESSIMISTIC);
+
+        new StripedWalletFolder(walletSlotRepository, transactionManager, properties).start();
+
+        verify(walletSlotRepository).redistribute(first, 120L, 0);
+        verify(walletSlotRepository).redistribute(second, 0L, 0);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void start_shouldKeepSlots_inStripedMode() {
+        properties.getExecution().setMode(ExecutionMode.STRIPED);
+
+        new StripedWalletFolder(walletSlotRepository, transactionManager, properties).start();
+
+        verifyNoInteractions(walletSlotRepository);
+    }
+}
@@ -0,0 +1,254 @@
+package unitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.cache.BalanceCache;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletBalanceItem;
+import org.kaesoron.wallet.dto.WalletBalancesResponse;
+import org.kaesoron.wallet.dto.WalletBatchRequest;
+import org.kaesoron.wallet.dto.WalletBatchResponse;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.BatchItemStatus;
+import org.kaesoron.wallet.enums.BatchMode;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.IdempotencyKeyConflictException;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.repository.IdempotencyKeyRepository;
+import org.kaesoron.wallet.repository.IdempotencyKeyRepository.StoredResult;
+import org.kaesoron.wallet.repository.WalletBatchRepository;
+import org.kaesoron.wallet.service.WalletBatchService;
+import org.kaesoron.wallet.service.WalletOperationExecutor;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class WalletBatchServiceTest {
+
+    private WalletBatchRepository walletBatchRepository;
+    private WalletOperationExecutor operationExecutor;
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    private WalletProperties properties;
+    private WalletBatchService walletBatchService;
+
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+    private final UUID missing = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        walletBatchRepository = mock(WalletBatchRepository.class);
+        operationExecutor = mock(WalletOperationExecutor.class);
+        idempotencyKeyRepository = mock(IdempotencyKeyRepository.class);
+        properties = new WalletProperties();
+        walletBatchService = new WalletBatchService(walletBatchRepository, properties,
+                new BalanceCache(properties, new SimpleMeterRegistry()), operationExecutor, idempotencyKeyRepository);
+
+        when(walletBatchRepository.lockBalances(any())).thenReturn(Map.of(first, 100L, second, 50L));
+    }
+
+    @Test
+    void bestEffort_shouldApplyValidItemsAndReportRejected() {
+        WalletBatchRequest request = new WalletBatchRequest(BatchMode.BEST_EFFORT, List.of(
+                new WalletOperationRequest(first, OperationType.DEPOSIT, 20L),
+                new WalletOperationRequest(second, OperationType.WITHDRAW, 80L),
+                new WalletOperationRequest(missing, OperationType.DEPOSIT, 10L),
+                new WalletOperationRequest(first, OperationType.WITHDRAW, 120L)));
+
+        WalletBatchResponse response = walletBatchService.processBatch(request);
+
+        assertThat(response.applied()).isEqualTo(2);
+        assertThat(response.rejected()).isEqualTo(2);
+        assertThat(response.results()).extracting("status").containsExactly(
+                BatchItemStatus.APPLIED, BatchItemStatus.REJECTED, BatchItemStatus.REJECTED, BatchItemStatus.APPLIED);
+        assertThat(response.results().get(1).error()).isEqualTo("Insufficient Funds");
+        assertThat(response.results().get(2).error()).isEqualTo("Wallet Not Found");
+        assertThat(response.results().get(3).balance()).isEqualTo(0L);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<UUID, Long>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(walletBatchRepository).applyDeltas(captor.capture());
+        assertThat(captor.getValue()).containsExactly(Map.entry(first, -100L));
+    }
+
+    @Test
+    void allOrNothing_shouldWriteNothing_whenAnyItemRejected() {
+        WalletBatchRequest request = new WalletBatchRequest(BatchMode.ALL_OR_NOTHING, List.of(
+                new WalletOperationRequest(first, OperationType.DEPOSIT, 20L),
+                new WalletOperationRequest(second, OperationType.WITHDRAW, 80L)));
+
+        WalletBatchResponse response = walletBatchService.processBatch(request);
+
+        assertThat(response.applied()).isZero();
+        assertThat(response.results()).extracting("status")
+                .containsExactly(BatchItemStatus.ROLLED_BACK, BatchItemStatus.REJECTED);
+        verify(walletBatchRepository, never()).applyDeltas(anyMap());
+    }
+
+    @Test
+    void batch_shouldReplayStoredKeysAndRecordNewOnes() {
+        when(idempotencyKeyRepository.find("retry-1"))
+                .thenReturn(Optional.of(new StoredResult(first, OperationType.DEPOSIT, 20L, 120L)));
+        WalletBatchRequest request = new WalletBatchRequest(BatchMode.BEST_EFFORT, List.of(
+                new WalletOperationRequest(first, OperationType.DEPOSIT, 20L, "retry-1"),
+                new WalletOperationRequest(second, OperationType.WITHDRAW, 30L, "new-1"),
+                new WalletOperationRequest(second, OperationType.WITHDRAW, 30L, "new-1")));
+
+        WalletBatchResponse response = walletBatchService.processBatch(request);
+
+        assertThat(response.applied()).isEqualTo(3);
+        assertThat(response.results()).extracting("balance").containsExactly(120L, 20L, 20L);
+        verify(walletBatchRepository).applyDeltas(Map.of(second, -30L));
+        verify(idempotencyKeyRepository).insert(eq("new-1"), any(), eq(20L));
+        verify(idempotencyKeyRepository, never()).insert(eq("retry-1"), any(), anyLong());
+    }
+
+    @Test
+    void batch_shouldRejectItem_whenKeyWasUsedForAnotherOperation() {
+        when(idempotencyKeyRepository.find("used"))
+                .thenReturn(Optional.of(new StoredResult(first, OperationType.DEPOSIT, 20L, 120L)));
+        WalletBatchRequest request = new WalletBatchRequest(BatchMode.ALL_OR_NOTHING, List.of(
+                new WalletOperationRequest(first, OperationType.WITHDRAW, 20L, "used")));
+
+        WalletBatchResponse response = walletBatchService.processBatch(request);
+
+        assertThat(response.results()).extracting("error").containsExactly("Idempotency Key Conflict");
+        verify(walletBatchRepository, never()).applyDeltas(anyMap());
+        verify(idempotencyKeyRepository, never()).insert(anyString(), any(), anyLong());
+    }
+
+    @Test
+    void batch_shouldFail_whenKeyIsRecordedConcurrently() {
+        when(idempotencyKeyRepository.find(any())).thenReturn(Optional.empty());
+        doThrow(new DuplicateKeyException("duplicate")).when(idempotencyKeyRepository)
+                .insert(eq("race"), any(), anyLong());
+        WalletBatchRequest request = new WalletBatchRequest(BatchMode.BEST_EFFORT, List.of(
+                new WalletOperationRequest(first, OperationType.DEPOSIT, 20L, "race")));
+
+        assertThatThrownBy(() -> walletBatchService.processBatch(request))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+    }
+
+    @Test
+    void transfer_shouldMoveFundsBetweenLockedWallets() {
+        long balance = walletBatchService.transfer(
+                new WalletOperationRequest(first, OperationType.TRANSFER, 70L, null, second));
+
+        assertThat(balance).isEqualTo(30L);
+        verify(walletBatchRepository).lockBalances(List.of(first, second));
+        verify(walletBatchRepository).applyDeltas(Map.of(first, -70L, second, 70L));
+    }
+
+    @Test
+    void transfer_shouldWriteNothing_whenSourceHasInsufficientFunds() {
+        assertThatThrownBy(() -> walletBatchService.transfer(
+                new WalletOperationRequest(second, OperationType.TRANSFER, 80L, null, first)))
+                .isInstanceOf(InsufficientFundsException.class);
+        verify(walletBatchRepository, never()).applyDeltas(anyMap());
+    }
+
+    @Test
+    void transfer_shouldFail_whenTargetMissing() {
+        assertThatThrownBy(() -> walletBatchService.transfer(
+                new WalletOperationRequest(first, OperationType.TRANSFER, 10L, null, missing)))
+                .isInstanceOf(WalletNotFoundException.class)
+                .hasMessageContaining(missing.toString());
+        verify(walletBatchRepository, never()).applyDeltas(anyMap());
+    }
+
+    @Test
+    void batch_shouldApplyTransfersAndRejectMissingTarget() {
+        WalletBatchRequest request = new WalletBatchRequest(BatchMode.BEST_EFFORT, List.of(
+                new WalletOperationRequest(first, OperationType.TRANSFER, 60L, null, second),
+                new WalletOperationRequest(second, OperationType.TRANSFER, 10L, null, missing)));
+
+        WalletBatchResponse response = walletBatchService.processBatch(request);
+
+        assertThat(response.results()).extracting("status")
+                .containsExactly(BatchItemStatus.APPLIED, BatchItemStatus.REJECTED);
+        assertThat(response.results().get(1).message()).contains(missing.toString());
+        verify(walletBatchRepository).applyDeltas(Map.of(first, -60L, second, 60L));
+    }
+
+    @Test
+    void getBalances_shouldQueryOnceAndReportMissingPerItem() {
+        when(walletBatchRepository.findBalances(any())).thenReturn(Map.of(first, 100L, second, 50L));
+
+        WalletBalancesResponse response = walletBatchService.getBalances(List.of(first, missing, second, first));
+
+        assertThat(response.found()).isEqualTo(3);
+        assertThat(response.missing()).isEqualTo(1);
+        assertThat(response.results()).containsExactly(
+                new WalletBalanceItem(first, 100L, null),
+                new WalletBalanceItem(missing, null, "Wallet Not Found"),
+                new WalletBalanceItem(second, 50L, null),
+                new WalletBalanceItem(first, 100L, null));
+        verify(walletBatchRepository).findBalances(Set.of(first, second, missing));
+    }
+
+    @Test
+    void getBalances_shouldPreferExecutorBalances() {
+        when(operationExecutor.currentBalance(first)).thenReturn(OptionalLong.of(150L));
+        when(walletBatchRepository.findBalances(Set.of(second))).thenReturn(Map.of(second, 50L));
+
+        assertThat(walletBatchService.getBalances(List.of(first, second)).results()).containsExactly(
+                new WalletBalanceItem(first, 150L, null),
+                new WalletBalanceItem(second, 50L, null));
+        verify(walletBatchRepository).findBalances(Set.of(second));
+    }
+
+    @Test
+    void getBalances_shouldSkipQuery_whenAllCached() {
+        properties.getCache().setEnabled(true);
+        BalanceCache cache = new BalanceCache(properties, new SimpleMeterRegistry());
+        cache.get(first, id -> 100L);
+        walletBatchService = new WalletBatchService(walletBatchRepository, properties, cache, operationExecutor,
+                idempotencyKeyRepository);
+
+        assertThat(walletBatchService.getBalances(List.of(first)).results())
+                .containsExactly(new WalletBalanceItem(first, 100L, null));
+        verify(walletBatchRepository, never()).findBalances(any());
+    }
+
+    @Test
+    void getBalances_shouldNotCacheReplicaReads() {
+        properties.getCache().setEnabled(true);
+        BalanceCache cache = new BalanceCache(properties, new SimpleMeterRegistry());
+        walletBatchService = new WalletBatchService(walletBatchRepository, properties, cache, operationExecutor,
+                idempotencyKeyRepository);
+        when(walletBatchRepository.findBalances(any())).thenReturn(Map.of(first, 100L));
+
+        walletBatchService.getBalances(List.of(first));
+
+        assertThat(cache.getAllPresent(List.of(first))).isEmpty();
+    }
+
+    @Test
+    void shouldRejectBatch_whenLimitExceeded() {
+        properties.getBatch().setMaxSize(1);
+        WalletBatchRequest request = new WalletBatchRequest(BatchMode.BEST_EFFORT, List.of(
+                new WalletOperationRequest(first, OperationType.DEPOSIT, 1L),
+                new WalletOperationRequest(second, OperationType.DEPOSIT, 1L)));
+
+        assertThatThrownBy(() -> walletBatchService.processBatch(request))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(walletBatchRepository);
+    }
+}
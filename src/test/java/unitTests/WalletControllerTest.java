@@ -9,8 +9,10 @@ import org.kaesoron.wallet.dto.WalletOperationRequest;
 import org.kaesoron.wallet.enums.OperationType;
 import org.kaesoron.wallet.exceptions.InsufficientFundsException;
 import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.service.WalletBatchService;
 import org.kaesoron.wallet.service.WalletService;
 
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -25,7 +27,7 @@ class WalletControllerTest {
     @BeforeEach
     void setUp() {
         walletService = mock(WalletService.class);
-        walletController = new WalletController(walletService);
+        walletController = new WalletController(walletService, mock(WalletBatchService.class), Optional.empty());
     }
 
     @Test
@@ -68,7 +70,7 @@ class WalletControllerTest {
         doThrow(new InsufficientFundsException("Not enough funds"))
                 .when(walletService).processOperation(request);
 
-        Executable executable = () -> walletController.operate(request);
+        Executable executable = () -> walletController.operate(request, null, null);
 
         InsufficientFundsException ex = assertThrows(InsufficientFundsException.class, executable);
         assertThat(ex.getMessage()).isEqualTo("Not enough funds");
@@ -0,0 +1,91 @@
+package unitTests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.repository.WalletExportRepository;
+import org.kaesoron.wallet.repository.WalletExportRepository.BalanceConsumer;
+import org.kaesoron.wallet.service.WalletExportService;
+import org.kaesoron.wallet.service.WalletOperationExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WalletExportServiceTest {
+
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+
+    private WalletExportRepository walletExportRepository;
+    private WalletOperationExecutor operationExecutor;
+    private PlatformTransactionManager transactionManager;
+    private WalletExportService walletExportService;
+
+    @BeforeEach
+    void setUp() {
+        walletExportRepository = mock(WalletExportRepository.class);
+        operationExecutor = mock(WalletOperationExecutor.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        WalletProperties properties = new WalletProperties();
+        properties.getExport().setFetchSize(2);
+        walletExportService = new WalletExportService(walletExportRepository, operationExecutor, new ObjectMapper(),
+                transactionManager, properties);
+
+        doAnswer(invocation -> {
+            BalanceConsumer consumer = invocation.getArgument(2);
+            consumer.accept(first, 100L);
+            consumer.accept(second, 0L);
+            return null;
+        }).when(walletExportRepository).streamBalances(any(), anyInt(), any());
+    }
+
+    @Test
+    void shouldWriteOneJsonLinePerWallet_inSnapshotTransaction() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        walletExportService.exportBalances(first, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"walletId\":\"" + first + "\",\"balance\":100}\n"
+                        + "{\"walletId\":\"" + second + "\",\"balance\":0}\n");
+        verify(walletExportRepository).streamBalances(eq(first), eq(2), any());
+        verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()
+                && definition.getIsolationLevel() == TransactionDefinition.ISOLATION_REPEATABLE_READ));
+    }
+
+    @Test
+    void shouldExportExecutorBalance_whenWalletIsHeldInMemory() throws IOException {
+        when(operationExecutor.currentBalance(second)).thenReturn(OptionalLong.of(70L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        walletExportService.exportBalances(null, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"walletId\":\"" + first + "\",\"balance\":100}\n"
+                        + "{\"walletId\":\"" + second + "\",\"balance\":70}\n");
+    }
+
+    @Test
+    void shouldPropagateClientDisconnect() {
+        doThrow(new UncheckedIOException(new IOException("Broken pipe")))
+                .when(walletExportRepository).streamBalances(any(), anyInt(), any());
+
+        assertThatThrownBy(() -> walletExportService.exportBalances(null, OutputStream.nullOutputStream()))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Broken pipe");
+        verify(transactionManager).rollback(any());
+    }
+}
@@ -0,0 +1,82 @@
+package unitTests;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.metrics.OperationTrace;
+import org.kaesoron.wallet.metrics.OperationTrace.Stage;
+import org.kaesoron.wallet.metrics.SpaceSaving;
+import org.kaesoron.wallet.metrics.WalletMetrics;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WalletMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WalletMetrics walletMetrics = new WalletMetrics(meterRegistry, new WalletProperties());
+
+    @Test
+    void shouldRecordOperationAndStages_withOutcome() {
+        UUID walletId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> walletMetrics.record("WITHDRAW", walletId, () -> {
+            OperationTrace.add(Stage.LOCK, 5_000_000L);
+            throw new InsufficientFundsException(10L, 0L);
+        })).isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(meterRegistry.get("wallet.operation")
+                .tags("operation", "WITHDRAW", "outcome", "insufficient_funds").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.operation.stage")
+                .tags("operation", "WITHDRAW", "outcome", "insufficient_funds", "stage", "lock").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.find("wallet.operation.stage").tag("stage", "flush").timer()).isNull();
+    }
+
+    @Test
+    void connectionTakenInsideStage_shouldNotBeCountedTwice() {
+        walletMetrics.record("DEPOSIT", UUID.randomUUID(), () -> OperationTrace.time(Stage.LOCK, () -> {
+            // Ленивый прокси берёт соединение внутри первого запроса
+            OperationTrace.add(Stage.CONNECTION, 60_000_000_000L);
+            return null;
+        }));
+
+        double connection = meterRegistry.get("wallet.operation.stage").tag("stage", "connection").timer()
+                .totalTime(TimeUnit.SECONDS);
+        Timer lock = meterRegistry.find("wallet.operation.stage").tag("stage", "lock").timer();
+        assertThat(connection).isEqualTo(60.0);
+        assertThat(lock == null ? 0 : lock.totalTime(TimeUnit.SECONDS)).isLessThan(1.0);
+    }
+
+    @Test
+    void stagesOutsideOperation_shouldBeIgnored() {
+        OperationTrace.add(Stage.CONNECTION, 1_000L);
+
+        assertThat(meterRegistry.find("wallet.operation.stage").timers()).isEmpty();
+    }
+
+    @Test
+    void spaceSaving_shouldKeepHeavyHittersInBoundedMemory() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(10);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add("wallet-" + i, 1);
+            if (i % 10 == 0) {
+                sketch.add("hot", 5);
+            }
+            if (i % 20 == 0) {
+                sketch.add("warm", 5);
+            }
+        }
+
+        List<SpaceSaving.Entry<String>> top = sketch.top(2);
+        assertThat(top).extracting(SpaceSaving.Entry::key).containsExactly("hot", "warm");
+        assertThat(top.get(0).weight() - top.get(0).error()).isLessThanOrEqualTo(5_000L);
+        assertThat(top.get(0).weight()).isGreaterThanOrEqualTo(5_000L);
+    }
+}
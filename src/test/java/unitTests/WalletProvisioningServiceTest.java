@@ -0,0 +1,88 @@
+package unitTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletBalanceResponse;
+import org.kaesoron.wallet.dto.WalletBulkCreateResponse;
+import org.kaesoron.wallet.dto.WalletCreateRequest;
+import org.kaesoron.wallet.exceptions.WalletAlreadyExistsException;
+import org.kaesoron.wallet.repository.WalletProvisioningRepository;
+import org.kaesoron.wallet.service.WalletProvisioningService;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WalletProvisioningServiceTest {
+
+    private WalletProvisioningRepository walletProvisioningRepository;
+    private WalletProperties properties;
+    private WalletProvisioningService walletProvisioningService;
+
+    @BeforeEach
+    void setUp() {
+        walletProvisioningRepository = mock(WalletProvisioningRepository.class);
+        properties = new WalletProperties();
+        walletProvisioningService = new WalletProvisioningService(walletProvisioningRepository, properties);
+    }
+
+    @Test
+    void create_shouldGenerateTimeOrderedId() {
+        WalletBalanceResponse created = walletProvisioningService.create(new WalletCreateRequest(null, 100L));
+
+        assertThat(created.walletId().version()).isEqualTo(7);
+        assertThat(created.balance()).isEqualTo(100L);
+        verify(walletProvisioningRepository).insert(Map.of(created.walletId(), 100L));
+    }
+
+    @Test
+    void createAll_shouldKeepGivenIdsAndRequestOrder() {
+        UUID given = UUID.randomUUID();
+
+        WalletBulkCreateResponse response = walletProvisioningService.createAll(List.of(
+                new WalletCreateRequest(null, 1L),
+                new WalletCreateRequest(given, 2L),
+                new WalletCreateRequest(null, 3L)));
+
+        assertThat(response.created()).isEqualTo(3);
+        assertThat(response.walletIds().get(1)).isEqualTo(given);
+        assertThat(response.walletIds().get(0).version()).isEqualTo(7);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<UUID, Long>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(walletProvisioningRepository).insert(captor.capture());
+        assertThat(captor.getValue().keySet()).containsExactlyElementsOf(response.walletIds());
+        assertThat(captor.getValue().values()).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void createAll_shouldRejectDuplicatesAndOversizedRequests() {
+        UUID walletId = UUID.randomUUID();
+        assertThatThrownBy(() -> walletProvisioningService.createAll(List.of(
+                new WalletCreateRequest(walletId, 1L), new WalletCreateRequest(walletId, 2L))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        properties.getBatch().setMaxCreate(1);
+        assertThatThrownBy(() -> walletProvisioningService.createAll(List.of(
+                new WalletCreateRequest(), new WalletCreateRequest())))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(walletProvisioningRepository);
+    }
+
+    @Test
+    void create_shouldReportExistingWallet() {
+        doThrow(new DuplicateKeyException("duplicate key value violates unique constraint \"wallets_pkey\""))
+                .when(walletProvisioningRepository).insert(any());
+
+        assertThatThrownBy(() -> walletProvisioningService.create(new WalletCreateRequest(UUID.randomUUID(), 0L)))
+                .isInstanceOf(WalletAlreadyExistsException.class)
+                .hasMessageContaining("wallets_pkey");
+    }
+}
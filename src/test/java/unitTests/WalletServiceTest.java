@@ -1,13 +1,20 @@
 package unitTests;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.cache.BalanceCache;
+import org.kaesoron.wallet.config.WalletProperties;
 import org.kaesoron.wallet.dto.WalletOperationRequest;
 import org.kaesoron.wallet.model.Wallet;
 import org.kaesoron.wallet.enums.OperationType;
 import org.kaesoron.wallet.exceptions.InsufficientFundsException;
 import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.metrics.WalletMetrics;
 import org.kaesoron.wallet.repository.WalletRepository;
+import org.kaesoron.wallet.service.IdempotencyService;
+import org.kaesoron.wallet.service.PessimisticOperationExecutor;
+import org.kaesoron.wallet.service.WalletBatchService;
 import org.kaesoron.wallet.service.WalletService;
 import org.mockito.ArgumentCaptor;
 
@@ -21,12 +28,17 @@ import static org.mockito.Mockito.*;
 class WalletServiceTest {
 
     private WalletRepository walletRepository;
+    private WalletBatchService walletBatchService;
     private WalletService walletService;
 
     @BeforeEach
     void setUp() {
         walletRepository = mock(WalletRepository.class);
-        walletService = new WalletService(walletRepository);
+        walletBatchService = mock(WalletBatchService.class);
+        walletService = new WalletService(walletRepository, new PessimisticOperationExecutor(walletRepository),
+                walletBatchService,
+                new BalanceCache(new WalletProperties(), new SimpleMeterRegistry()), mock(IdempotencyService.class),
+                new WalletMetrics(new SimpleMeterRegistry(), new WalletProperties()));
     }
 
     @Test
@@ -89,6 +101,20 @@ class WalletServiceTest {
                 .isInstanceOf(WalletNotFoundException.class);
     }
 
+    @Test
+    void transfer_shouldGoThroughOrderedBatchLocking() {
+        UUID source = UUID.randomUUID();
+        UUID target = UUID.randomUUID();
+        WalletOperationRequest request = new WalletOperationRequest(source, OperationType.TRANSFER, 300L, null, target);
+
+        when(walletBatchService.transfer(request)).thenReturn(700L);
+
+        walletService.processOperation(request);
+
+        verify(walletBatchService).transfer(request);
+        verifyNoInteractions(walletRepository);
+    }
+
     @Test
     void shouldThrowException_whenUnsupportedOperation() {
         UUID walletId = UUID.randomUUID();
@@ -102,4 +128,21 @@ class WalletServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Operation type must be provided");
     }
+
+    @Test
+    void getBalance_shouldLoadCacheFromPrimary() {
+        WalletProperties properties = new WalletProperties();
+        properties.getCache().setEnabled(true);
+        walletService = new WalletService(walletRepository, new PessimisticOperationExecutor(walletRepository),
+                walletBatchService, new BalanceCache(properties, new SimpleMeterRegistry()), mock(IdempotencyService.class),
+                new WalletMetrics(new SimpleMeterRegistry(), properties));
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.findPrimaryBalanceById(walletId)).thenReturn(Optional.of(100L));
+
+        assertThat(walletService.getBalance(walletId)).isEqualTo(100L);
+        assertThat(walletService.getBalance(walletId)).isEqualTo(100L);
+
+        verify(walletRepository).findPrimaryBalanceById(walletId);
+        verify(walletRepository, never()).findBalanceById(walletId);
+    }
 }
@@ -0,0 +1,98 @@
+package unitTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.config.WalletProperties;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.model.Wallet;
+import org.kaesoron.wallet.repository.WalletRepository;
+import org.kaesoron.wallet.service.WriteCombiningOperationExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WriteCombiningOperationExecutorTest {
+
+    private WalletRepository walletRepository;
+    private WriteCombiningOperationExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        walletRepository = mock(WalletRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        executor = new WriteCombiningOperationExecutor(walletRepository, transactionManager, new WalletProperties());
+    }
+
+    @Test
+    void shouldApplySingleOperation() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.findByIdForUpdate(walletId)).thenReturn(Optional.of(new Wallet(walletId, 1000L)));
+
+        long balance = executor.execute(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 500L));
+
+        assertThat(balance).isEqualTo(1500L);
+        verify(walletRepository).save(any(Wallet.class));
+    }
+
+    @Test
+    void shouldThrowException_whenWalletNotFound() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.findByIdForUpdate(walletId)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> executor.execute(new WalletOperationRequest(walletId, OperationType.DEPOSIT, 100L)))
+                .isInstanceOf(WalletNotFoundException.class);
+    }
+
+    @Test
+    void concurrentWithdrawals_shouldBeCombinedAndRejectedIndividually() throws Exception {
+        UUID walletId = UUID.randomUUID();
+        Wallet wallet = new Wallet(walletId, 1000L);
+        when(walletRepository.findByIdForUpdate(walletId)).thenReturn(Optional.of(wallet));
+
+        int threads = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    executor.execute(new WalletOperationRequest(walletId, OperationType.WITHDRAW, 30L));
+                    return true;
+                } catch (InsufficientFundsException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                succeeded++;
+            }
+        }
+        pool.shutdown();
+
+        assertThat(succeeded).isEqualTo(33);
+        assertThat(wallet.getBalance()).isEqualTo(10L);
+        verify(walletRepository, atMost(threads)).save(wallet);
+    }
+}
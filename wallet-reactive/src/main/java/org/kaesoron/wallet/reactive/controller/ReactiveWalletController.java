@@ -0,0 +1,32 @@
+package org.kaesoron.wallet.reactive.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.dto.WalletBalanceResponse;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.reactive.service.ReactiveWalletService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class ReactiveWalletController {
+
+    private final ReactiveWalletService walletService;
+
+    @PostMapping("/wallet")
+    public Mono<ResponseEntity<Void>> operate(@RequestBody @Valid WalletOperationRequest request) {
+        return walletService.processOperation(request)
+                .thenReturn(ResponseEntity.ok().build());
+    }
+
+    @GetMapping("/wallets/{walletId}")
+    public Mono<WalletBalanceResponse> getBalance(@PathVariable UUID walletId) {
+        return walletService.getBalance(walletId)
+                .map(balance -> new WalletBalanceResponse(walletId, balance));
+    }
+}
@@ -0,0 +1,70 @@
+package org.kaesoron.wallet.reactive.handler;
+
+import org.kaesoron.wallet.dto.ErrorResponse;
+import org.kaesoron.wallet.dto.ValidationErrorResponse;
+import org.kaesoron.wallet.exceptions.IdempotencyKeyConflictException;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Тела ошибок совпадают с {@code GlobalExceptionHandler} servlet-версии.
+ */
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(WalletNotFoundException.class)
+    public ResponseEntity<?> handleWalletNotFound(WalletNotFoundException ex) {
+        return buildError(HttpStatus.NOT_FOUND, "Wallet Not Found", ex.getMessage());
+    }
+
+    @ExceptionHandler(InsufficientFundsException.class)
+    public ResponseEntity<?> handleInsufficientFunds(InsufficientFundsException ex) {
+        return buildError(HttpStatus.UNPROCESSABLE_ENTITY, "Insufficient Funds", ex.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<?> handleIdempotencyKeyConflict(IdempotencyKeyConflictException ex) {
+        return buildError(HttpStatus.CONFLICT, "Idempotency Key Conflict", ex.getMessage());
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<?> handleValidation(WebExchangeBindException ex) {
+        List<ValidationErrorResponse.FieldError> errors = ex.getBindingResult().getFieldErrors().stream()
+                .map(field -> new ValidationErrorResponse.FieldError(field.getField(), field.getDefaultMessage()))
+                .toList();
+        return ResponseEntity.badRequest().body(new ValidationErrorResponse(Instant.now(),
+                HttpStatus.BAD_REQUEST.value(), "Validation Failed", errors));
+    }
+
+    // Аналог HttpMessageNotReadableException: тело не разобралось
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<?> handleMalformedJson(ServerWebInputException ex) {
+        Throwable cause = ex.getMostSpecificCause();
+        String message = ex.getCause() instanceof DecodingException ? cause.getMessage() : ex.getReason();
+        return buildError(HttpStatus.BAD_REQUEST, "Malformed JSON", message);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleIllegalArgument(IllegalArgumentException ex) {
+        return buildError(HttpStatus.BAD_REQUEST, "Invalid Request", ex.getMessage());
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<?> handleUnexpected(Exception ex) {
+        return buildError(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected Error", ex.getMessage());
+    }
+
+    private ResponseEntity<ErrorResponse> buildError(HttpStatus status, String error, String message) {
+        return ResponseEntity.status(status).body(new ErrorResponse(Instant.now(), status.value(), error, message));
+    }
+}
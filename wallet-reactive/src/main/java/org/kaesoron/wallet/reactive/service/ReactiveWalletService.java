@@ -0,0 +1,181 @@
+package org.kaesoron.wallet.reactive.service;
+
+import lombok.RequiredArgsConstructor;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.exceptions.IdempotencyKeyConflictException;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Операции одним условным UPDATE ... RETURNING, как в режиме ATOMIC_UPDATE: строка кошелька
+ * блокируется только на время самого UPDATE, списание не уводит баланс в минус при любой конкуренции.
+ * Ключ идемпотентности пишется в той же транзакции, повтор возвращает сохранённый баланс.
+ * Баланс списания проверяется по строке {@code wallets}, поэтому модуль работает рядом с режимами PESSIMISTIC
+ * и ATOMIC_UPDATE; со слотов (STRIPED) и из несвёрнутого хвоста журнала (LEDGER) он не списывает.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveWalletService {
+
+    private static final String DEPOSIT_SQL =
+            "UPDATE wallets SET balance = balance + :delta, version = version + 1 WHERE id = :id RETURNING balance";
+    // Часть баланса в слотах или в хвосте журнала строка wallets не видит: такой кошелёк не трогаем
+    private static final String WITHDRAW_SQL = """
+            UPDATE wallets w SET balance = balance - :amount, version = version + 1
+            WHERE id = :id AND balance >= :amount
+              AND NOT EXISTS (SELECT 1 FROM wallet_slots s WHERE s.wallet_id = w.id)
+              AND NOT EXISTS (SELECT 1 FROM wallet_operations o WHERE o.wallet_id = w.id AND o.id > w.ledger_offset)
+            RETURNING balance
+            """;
+    private static final String REJECTION_SQL = """
+            SELECT w.balance,
+                   EXISTS (SELECT 1 FROM wallet_slots s WHERE s.wallet_id = w.id)
+                       OR EXISTS (SELECT 1 FROM wallet_operations o WHERE o.wallet_id = w.id AND o.id > w.ledger_offset)
+                       AS split
+            FROM wallets w WHERE w.id = :id
+            """;
+    private static final String BALANCE_SQL = "SELECT balance FROM wallet_balances WHERE id = :id";
+    private static final String INSERT_KEY_SQL = """
+            INSERT INTO idempotency_keys (idempotency_key, wallet_id, operation_type, amount, balance, target_wallet_id)
+            VALUES (:key, :walletId, :type, :amount, :balance, :targetWalletId)
+            """;
+    private static final String FIND_KEY_SQL = """
+            SELECT wallet_id, operation_type, amount, balance, target_wallet_id
+            FROM idempotency_keys WHERE idempotency_key = :key
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    public Mono<Long> processOperation(WalletOperationRequest request) {
+        if (request.getOperationType() == null) {
+            return Mono.error(new IllegalArgumentException("Operation type must be provided"));
+        }
+        String key = request.getIdempotencyKey();
+        if (key == null) {
+            return apply(request).as(transactionalOperator::transactional);
+        }
+        return apply(request)
+                .flatMap(balance -> storeKey(key, request, balance).thenReturn(balance))
+                .as(transactionalOperator::transactional)
+                // Ключ уже записан: наша операция откатилась вместе со вставкой
+                .onErrorResume(DuplicateKeyException.class, e -> replay(key, request));
+    }
+
+    public Mono<Long> getBalance(UUID walletId) {
+        return databaseClient.sql(BALANCE_SQL)
+                .bind("id", walletId)
+                .map(row -> row.get("balance", Long.class))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new WalletNotFoundException(walletId)));
+    }
+
+    private Mono<Long> apply(WalletOperationRequest request) {
+        UUID walletId = request.getWalletId();
+        long amount = request.getAmount();
+
+        Mono<Long> balance = switch (request.getOperationType()) {
+            case DEPOSIT -> deposit(walletId, amount);
+            case WITHDRAW -> withdraw(walletId, amount);
+            case TRANSFER -> transfer(walletId, request.getTargetWalletId(), amount);
+            default -> Mono.error(new IllegalArgumentException("Unsupported operation: " + request.getOperationType()));
+        };
+        // Второй запрос нужен только на пути отказа, чтобы отличить отсутствующий кошелёк от нехватки средств.
+        return balance.switchIfEmpty(Mono.defer(() -> rejection(walletId, amount)));
+    }
+
+    private Mono<Long> rejection(UUID walletId, long amount) {
+        return databaseClient.sql(REJECTION_SQL)
+                .bind("id", walletId)
+                .map(row -> row.get("split", Boolean.class)
+                        ? new IllegalArgumentException("Wallet " + walletId
+                        + " keeps part of its balance in slots or in the ledger tail; withdraw it through the main service")
+                        : new InsufficientFundsException(amount, row.get("balance", Long.class)))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new WalletNotFoundException(walletId)))
+                .flatMap(Mono::error);
+    }
+
+    // Строки блокируются в порядке id, как ORDER BY id в servlet-версии: встречные переводы не дают дедлоков.
+    // Пустой результат — списание не прошло, его разбирает общий путь отказа в apply.
+    private Mono<Long> transfer(UUID sourceId, UUID targetId, long amount) {
+        if (targetId == null || targetId.equals(sourceId)) {
+            return Mono.error(new IllegalArgumentException("Transfer requires a target wallet different from the source"));
+        }
+        Mono<Long> debit = withdraw(sourceId, amount);
+        Mono<Long> credit = deposit(targetId, amount)
+                .switchIfEmpty(Mono.error(() -> new WalletNotFoundException(targetId)));
+        return lockOrder(sourceId, targetId) < 0
+                ? debit.flatMap(balance -> credit.thenReturn(balance))
+                : credit.then(debit);
+    }
+
+    // Порядок uuid в Postgres — побайтовое беззнаковое сравнение, UUID.compareTo сравнивает со знаком
+    private static int lockOrder(UUID first, UUID second) {
+        int high = Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+    }
+
+    private Mono<Long> deposit(UUID walletId, long amount) {
+        return databaseClient.sql(DEPOSIT_SQL)
+                .bind("delta", amount)
+                .bind("id", walletId)
+                .map(row -> row.get("balance", Long.class))
+                .one();
+    }
+
+    private Mono<Long> withdraw(UUID walletId, long amount) {
+        return databaseClient.sql(WITHDRAW_SQL)
+                .bind("amount", amount)
+                .bind("id", walletId)
+                .map(row -> row.get("balance", Long.class))
+                .one();
+    }
+
+    private Mono<Void> storeKey(String key, WalletOperationRequest request, long balance) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(INSERT_KEY_SQL)
+                .bind("key", key)
+                .bind("walletId", request.getWalletId())
+                .bind("type", request.getOperationType().name())
+                .bind("amount", request.getAmount())
+                .bind("balance", balance);
+        UUID targetWalletId = request.getTargetWalletId();
+        return (targetWalletId == null
+                ? spec.bindNull("targetWalletId", UUID.class)
+                : spec.bind("targetWalletId", targetWalletId)).then();
+    }
+
+    private Mono<Long> replay(String key, WalletOperationRequest request) {
+        return databaseClient.sql(FIND_KEY_SQL)
+                .bind("key", key)
+                .map(row -> new StoredResult(
+                        row.get("wallet_id", UUID.class),
+                        row.get("operation_type", String.class),
+                        row.get("amount", Long.class),
+                        row.get("balance", Long.class),
+                        row.get("target_wallet_id", UUID.class)))
+                .one()
+                .flatMap(stored -> stored.matches(request)
+                        ? Mono.just(stored.balance())
+                        : Mono.error(new IdempotencyKeyConflictException(
+                        "Idempotency key " + key + " was already used for another operation")));
+    }
+
+    private record StoredResult(UUID walletId, String operationType, Long amount, Long balance, UUID targetWalletId) {
+
+        boolean matches(WalletOperationRequest request) {
+            return walletId.equals(request.getWalletId())
+                    && operationType.equals(request.getOperationType().name())
+                    && amount.equals(request.getAmount())
+                    && Objects.equals(targetWalletId, request.getTargetWalletId());
+        }
+    }
+}
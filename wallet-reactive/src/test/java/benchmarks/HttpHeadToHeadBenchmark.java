@@ -0,0 +1,101 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servlet- и реактивная версии API под одинаковой HTTP-нагрузкой. Оба приложения должны быть запущены
+ * на одной базе: BENCH_SERVLET_URL (по умолчанию http://localhost:8080), BENCH_REACTIVE_URL
+ * (http://localhost:8081); кошельки создаются через BENCH_DATASOURCE_URL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(256)
+public class HttpHeadToHeadBenchmark {
+
+    @Param({"servlet", "reactive"})
+    public String target;
+
+    @Param({"1", "1000"})
+    public int wallets;
+
+    private HttpClient client;
+    private String baseUrl;
+    private UUID[] walletIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        baseUrl = "servlet".equals(target)
+                ? env("BENCH_SERVLET_URL", "http://localhost:8080")
+                : env("BENCH_REACTIVE_URL", "http://localhost:8081");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        walletIds = new UUID[wallets];
+        try (Connection connection = DriverManager.getConnection(
+                env("BENCH_DATASOURCE_URL", "jdbc:postgresql://localhost:5432/walletdb"),
+                env("BENCH_DATASOURCE_USERNAME", "walletuser"),
+                env("BENCH_DATASOURCE_PASSWORD", "walletpass"));
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO wallets (id, balance) VALUES (?, ?)")) {
+            for (int i = 0; i < wallets; i++) {
+                walletIds[i] = UUID.randomUUID();
+                insert.setObject(1, walletIds[i]);
+                insert.setLong(2, 1_000_000_000L);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    @Benchmark
+    public int depositThenWithdraw() throws Exception {
+        UUID walletId = randomWallet();
+        return operate(walletId, "DEPOSIT") + operate(walletId, "WITHDRAW");
+    }
+
+    @Benchmark
+    public int getBalance() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/wallets/" + randomWallet())).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int operate(UUID walletId, String type) throws Exception {
+        String body = "{\"walletId\":\"" + walletId + "\",\"operationType\":\"" + type + "\",\"amount\":10}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/wallet"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException(target + " returned " + status);
+        }
+        return status;
+    }
+
+    private UUID randomWallet() {
+        return walletIds[ThreadLocalRandom.current().nextInt(walletIds.length)];
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,94 @@
+package unitTests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kaesoron.wallet.dto.WalletOperationRequest;
+import org.kaesoron.wallet.enums.OperationType;
+import org.kaesoron.wallet.exceptions.InsufficientFundsException;
+import org.kaesoron.wallet.exceptions.WalletNotFoundException;
+import org.kaesoron.wallet.reactive.controller.ReactiveWalletController;
+import org.kaesoron.wallet.reactive.handler.ReactiveExceptionHandler;
+import org.kaesoron.wallet.reactive.service.ReactiveWalletService;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReactiveWalletControllerTest {
+
+    private ReactiveWalletService walletService;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        walletService = mock(ReactiveWalletService.class);
+        client = WebTestClient.bindToController(new ReactiveWalletController(walletService))
+                .controllerAdvice(new ReactiveExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void shouldReturnWalletBalanceResponse() {
+        UUID walletId = UUID.randomUUID();
+        when(walletService.getBalance(walletId)).thenReturn(Mono.just(1234L));
+
+        client.get().uri("/api/v1/wallets/{id}", walletId).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.walletId").isEqualTo(walletId.toString())
+                .jsonPath("$.balance").isEqualTo(1234);
+    }
+
+    @Test
+    void shouldReturnNotFoundBody() {
+        UUID walletId = UUID.randomUUID();
+        when(walletService.getBalance(walletId))
+                .thenReturn(Mono.error(new WalletNotFoundException("Wallet not found: " + walletId)));
+
+        client.get().uri("/api/v1/wallets/{id}", walletId).exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.error").isEqualTo("Wallet Not Found")
+                .jsonPath("$.message").isEqualTo("Wallet not found: " + walletId);
+    }
+
+    @Test
+    void shouldReturnUnprocessableEntity_onInsufficientFunds() {
+        when(walletService.processOperation(any()))
+                .thenReturn(Mono.error(new InsufficientFundsException(100L, 10L)));
+
+        client.post().uri("/api/v1/wallet").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new WalletOperationRequest(UUID.randomUUID(), OperationType.WITHDRAW, 100L))
+                .exchange()
+                .expectStatus().isEqualTo(422)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Insufficient Funds");
+    }
+
+    @Test
+    void shouldReturnValidationErrors() {
+        client.post().uri("/api/v1/wallet").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"operationType\":\"DEPOSIT\",\"amount\":-5}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Validation Failed")
+                .jsonPath("$.messages.length()").isEqualTo(2);
+        verifyNoInteractions(walletService);
+    }
+
+    @Test
+    void shouldReturnMalformedJson_onUnknownOperationType() {
+        client.post().uri("/api/v1/wallet").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"walletId\":\"" + UUID.randomUUID() + "\",\"operationType\":\"REFUND\",\"amount\":5}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Malformed JSON");
+    }
+}